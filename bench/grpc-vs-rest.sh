@@ -0,0 +1,88 @@
+#!/usr/bin/env bash
+# Benchmark gRPC vs REST de las operaciones del Transaction-Service (lectura y escritura).
+#
+# Uso:  ACCOUNT_ID=<id de una cuenta pasiva> bench/grpc-vs-rest.sh [host:puerto]
+#
+# Requiere ghz (https://ghz.sh), hey (https://github.com/rakyll/hey) y jq. Ejecutar en la máquina del servicio
+# para contar las conexiones establecidas. Cada ejecución deja los datos crudos y un resumen en
+# bench/results/<fecha>/ (resumen.md), con la misma carga para ambos protocolos.
+set -euo pipefail
+
+TARGET="${1:-localhost:8081}"
+: "${ACCOUNT_ID:?Falta ACCOUNT_ID (cuenta pasiva existente)}"
+REQUESTS="${REQUESTS:-100000}"
+CONCURRENCY="${CONCURRENCY:-50}"
+WARMUP="${WARMUP:-5000}"
+PORT="${TARGET##*:}"
+PROTO="src/main/proto/account.proto"
+SERVICE="bancario.account.v1.AccountTransactions"
+OUT="bench/results/$(date +%Y%m%d-%H%M%S)"
+mkdir -p "$OUT"
+
+# Conexiones establecidas contra el puerto del servicio, muestreadas a mitad de la ejecución.
+sample_connections() {
+  sleep "${SAMPLE_AFTER_SECONDS:-3}"
+  ss -Htn state established "( sport = :$PORT )" | wc -l
+}
+
+run_grpc() {
+  local call="$1" name="$2"
+  local args=(--insecure --proto "$PROTO" --call "$SERVICE/$call" -d "{\"account_id\":\"$ACCOUNT_ID\"}"
+              -c "$CONCURRENCY" --connections 1 "$TARGET")
+  ghz "${args[@]}" -n "$WARMUP" > /dev/null
+  ghz "${args[@]}" -n "$REQUESTS" --format json -o "$OUT/grpc-$name.json" &
+  local pid=$!
+  sample_connections > "$OUT/grpc-$name.connections"
+  wait "$pid"
+}
+
+run_rest() {
+  local method="$1" path="$2" name="$3"
+  local url="http://$TARGET/accounts/$ACCOUNT_ID/$path"
+  hey -n "$WARMUP" -c "$CONCURRENCY" -m "$method" "$url" > /dev/null
+  hey -n "$REQUESTS" -c "$CONCURRENCY" -m "$method" "$url" > "$OUT/rest-$name.txt" &
+  local pid=$!
+  sample_connections > "$OUT/rest-$name.connections"
+  wait "$pid"
+}
+
+# Latencias de ghz en nanosegundos; se pasan a milisegundos.
+grpc_row() {
+  local name="$1"
+  jq -r --arg name "$name" --arg conns "$(cat "$OUT/grpc-$name.connections")" '
+    def p($q): (.latencyDistribution[] | select(.percentage == $q) | .latency / 1e6);
+    "| gRPC | \($name) | \(.rps | floor) | \(p(50)) | \(p(99)) | \($conns) | \(.statusCodeDistribution | to_entries | map("\(.key)=\(.value)") | join(" ")) |"
+  ' "$OUT/grpc-$name.json"
+}
+
+# hey informa segundos; se pasan a milisegundos.
+rest_row() {
+  local name="$1" file="$OUT/rest-$1.txt"
+  local rps p50 p99 codes
+  rps=$(awk '/Requests\/sec/ {printf "%d", $2}' "$file")
+  p50=$(awk '/ 50% in/ {print $3 * 1000}' "$file")
+  p99=$(awk '/ 99% in/ {print $3 * 1000}' "$file")
+  codes=$(awk '/^\s+\[[0-9]+\]/ {gsub(/[\[\]]/, "", $1); printf "%s=%s ", $1, $2}' "$file")
+  echo "| REST | $name | $rps | $p50 | $p99 | $(cat "$OUT/rest-$name.connections") | $codes|"
+}
+
+run_grpc GetTransactionStatus status
+run_rest GET transaction-status status
+run_grpc IncrementTransactions increment
+run_rest PATCH increment-transactions increment
+
+{
+  echo "# Benchmark gRPC vs REST — $(date -Iseconds)"
+  echo
+  echo "Destino: $TARGET · peticiones: $REQUESTS (calentamiento $WARMUP) · concurrencia: $CONCURRENCY"
+  echo "Commit: $(git rev-parse --short HEAD 2>/dev/null || echo '?') · CPU: $(nproc) · JVM: $(java -version 2>&1 | head -1)"
+  echo
+  echo "| Protocolo | Operación | Peticiones/s | p50 (ms) | p99 (ms) | Conexiones | Códigos |"
+  echo "|---|---|---|---|---|---|---|"
+  grpc_row status
+  rest_row status
+  grpc_row increment
+  rest_row increment
+} > "$OUT/resumen.md"
+
+cat "$OUT/resumen.md"
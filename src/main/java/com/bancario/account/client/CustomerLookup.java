@@ -0,0 +1,107 @@
+package com.bancario.account.client;
+
+import com.bancario.account.dto.CustomerResponse;
+import com.bancario.account.exception.CustomerNotFoundException;
+import com.bancario.account.util.BatchCoalescer;
+import com.bancario.account.util.RequestHedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Punto único de acceso a las consultas de clientes del customer-service.
+ * Cuando el agrupamiento está habilitado, las consultas concurrentes de distintos clientes
+ * se combinan en una sola llamada al endpoint /customers/batch.
+ * Con la cobertura (hedging) habilitada, una llamada que supera el percentil de latencia configurado
+ * se duplica y se usa la primera respuesta, para recortar la cola de latencia del customer-service.
+ */
+@Slf4j
+@ApplicationScoped
+public class CustomerLookup {
+
+    @Inject
+    @RestClient
+    CustomerServiceRestClient customerServiceRestClient;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "account-service.customer-batch.enabled")
+    boolean batchingEnabled;
+
+    @ConfigProperty(name = "account-service.customer-batch.window-micros")
+    long windowMicros;
+
+    @ConfigProperty(name = "account-service.customer-batch.max-size")
+    int maxBatchSize;
+
+    @ConfigProperty(name = "account-service.customer-hedging.enabled")
+    boolean hedgingEnabled;
+
+    @ConfigProperty(name = "account-service.customer-hedging.percentile")
+    double hedgePercentile;
+
+    @ConfigProperty(name = "account-service.customer-hedging.initial-delay-millis")
+    long hedgeInitialDelayMillis;
+
+    @ConfigProperty(name = "account-service.customer-hedging.min-delay-millis")
+    long hedgeMinDelayMillis;
+
+    @ConfigProperty(name = "account-service.customer-hedging.max-ratio")
+    double hedgeMaxRatio;
+
+    @ConfigProperty(name = "account-service.customer-hedging.window-size")
+    int hedgeWindowSize;
+
+    private BatchCoalescer<String, CustomerResponse> coalescer;
+    // Las llamadas individuales y por lote tienen distribuciones de latencia distintas: un hedger para cada una.
+    private RequestHedger singleHedger;
+    private RequestHedger batchHedger;
+
+    @PostConstruct
+    void init() {
+        coalescer = new BatchCoalescer<>("customer-lookup", this::loadBatch, null, windowMicros, maxBatchSize, meterRegistry);
+        singleHedger = newHedger("customer-by-id");
+        batchHedger = newHedger("customer-batch");
+    }
+
+    private RequestHedger newHedger(String name) {
+        return new RequestHedger(name, hedgePercentile, Duration.ofMillis(hedgeInitialDelayMillis),
+                Duration.ofMillis(hedgeMinDelayMillis), hedgeMaxRatio, hedgeWindowSize, meterRegistry);
+    }
+
+    /**
+     * Obtiene un cliente por su ID.
+     * @throws CustomerNotFoundException (como fallo del Uni) si el lote no devuelve al cliente.
+     */
+    public Uni<CustomerResponse> getCustomerById(String customerId) {
+        if (!batchingEnabled) {
+            return hedged(singleHedger, () -> customerServiceRestClient.getCustomerById(customerId));
+        }
+        return coalescer.load(customerId)
+                .onItem().ifNull().failWith(() -> new CustomerNotFoundException(customerId));
+    }
+
+    private Uni<Map<String, CustomerResponse>> loadBatch(List<String> customerIds) {
+        log.debug("Consultando lote de {} clientes al customer-service", customerIds.size());
+        return hedged(batchHedger, () -> customerServiceRestClient.getCustomersByIds(customerIds))
+                .onItem().transform(customers -> customers.stream()
+                        .collect(Collectors.toMap(CustomerResponse::id, Function.identity(), (first, second) -> first)));
+    }
+
+    private <T> Uni<T> hedged(RequestHedger hedger, Supplier<Uni<T>> call) {
+        return hedgingEnabled ? hedger.execute(call) : call.get();
+    }
+}
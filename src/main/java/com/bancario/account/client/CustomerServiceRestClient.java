@@ -5,6 +5,8 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import io.smallrye.mutiny.Uni;
 import com.bancario.account.dto.CustomerResponse;
 
+import java.util.List;
+
 @Path("/customers")
 @RegisterRestClient(configKey = "customer-service")
 public interface CustomerServiceRestClient {
@@ -12,4 +14,11 @@ public interface CustomerServiceRestClient {
     @GET
     @Path("/{customerId}")
     Uni<CustomerResponse> getCustomerById(@PathParam("customerId") String customerId);
+
+    /**
+     * Consulta varios clientes en una sola llamada. Los IDs inexistentes se omiten en la respuesta.
+     */
+    @POST
+    @Path("/batch")
+    Uni<List<CustomerResponse>> getCustomersByIds(List<String> customerIds);
 }
@@ -0,0 +1,24 @@
+package com.bancario.account.dto;
+
+import com.bancario.account.enums.AccountChangeType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento compacto del feed de cambios de cuentas.
+ * offset es monótono dentro de la instancia que publica el evento (instanceId): un consumidor que se reconecta
+ * envía ambos (Last-Event-ID o 'since', con el formato instanceId:offset) para continuar desde el siguiente evento.
+ * Con type = RESYNC_REQUIRED solo instanceId, offset, type y occurredAt tienen valor.
+ */
+public record AccountChangeEvent(
+        String instanceId,
+        long offset,
+        AccountChangeType type,
+        String accountId,
+        String customerId,
+        BigDecimal balance,
+        BigDecimal amountUsed,
+        Integer currentMonthlyTransactions,
+        Long version,
+        LocalDateTime occurredAt
+) {}
@@ -0,0 +1,24 @@
+package com.bancario.account.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el resultado del control de Saldo Promedio Diario (SPD) de una cuenta VIP/PYME en el mes en curso.
+ * * Se lee de la colección precalculada por el job nocturno de cumplimiento; no recalcula nada en la consulta.
+ */
+public record AccountComplianceResponse(
+        String accountId,
+        String customerId,
+        String customerType,
+        String period,
+        LocalDate asOfDate,
+        Integer daysObserved,
+        BigDecimal averageDailyBalance,
+        BigDecimal minimumDailyBalance,
+        BigDecimal requiredDailyAverage,
+        BigDecimal shortfall,
+        boolean breached,
+        LocalDateTime computedAt
+) {}
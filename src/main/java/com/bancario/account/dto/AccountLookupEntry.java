@@ -0,0 +1,11 @@
+package com.bancario.account.dto;
+
+/**
+ * Resultado de una clave dentro de una consulta múltiple de cuentas.
+ * Los resultados se devuelven en el mismo orden de las claves solicitadas.
+ */
+public record AccountLookupEntry(
+        String key, // ID o número de cuenta solicitado
+        AccountResponse account, // null si no se encontró
+        String error // NOT_FOUND o INVALID_ID cuando account es null
+) {}
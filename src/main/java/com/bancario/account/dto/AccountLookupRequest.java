@@ -0,0 +1,11 @@
+package com.bancario.account.dto;
+
+import java.util.List;
+
+/**
+ * Solicitud de consulta múltiple de cuentas. Se debe informar solo una de las dos listas.
+ */
+public record AccountLookupRequest(
+        List<String> ids, // IDs de cuenta (ObjectId en hexadecimal)
+        List<String> accountNumbers // Números de cuenta (ej. 0200-12345678)
+) {}
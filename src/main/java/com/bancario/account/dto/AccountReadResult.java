@@ -0,0 +1,27 @@
+package com.bancario.account.dto;
+
+import java.time.Duration;
+
+/**
+ * Resultado de una lectura de cuenta que puede haberse servido desde la caché de respaldo.
+ * * staleness es null cuando la cuenta se leyó de MongoDB; si no, indica la antigüedad de la copia servida.
+ * * versioned es false cuando la versión no identifica el contenido (cuentas con saldo distribuido: los abonos
+ * a slots no cambian la versión; o con asientos diferidos pendientes de proyectar), y la respuesta no debe llevar ETag.
+ */
+public record AccountReadResult(
+        AccountResponse account,
+        Duration staleness,
+        boolean versioned
+) {
+    public static AccountReadResult fresh(AccountResponse account) {
+        return new AccountReadResult(account, null, true);
+    }
+
+    public static AccountReadResult unversioned(AccountResponse account) {
+        return new AccountReadResult(account, null, false);
+    }
+
+    public boolean stale() {
+        return staleness != null;
+    }
+}
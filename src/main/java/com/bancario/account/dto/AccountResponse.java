@@ -35,5 +35,18 @@ public record AccountResponse(
 
         // --- Titulares y Firmantes ---
         List<String> holders,
-        List<String> signatories
-) {}
\ No newline at end of file
+        List<String> signatories,
+
+        // --- Control de Concurrencia ---
+        Long version // Versión de la cuenta (ETag de las consultas); null con asientos diferidos pendientes
+) {
+    /**
+     * Copia con otro balance (saldo total de las cuentas con saldo distribuido).
+     */
+    public AccountResponse withBalance(BigDecimal newBalance) {
+        return new AccountResponse(id, customerId, accountNumber, productType, accountType, creditType, status, openingDate,
+                newBalance, amountUsed, paymentDayOfMonth, overdueAmount, maintenanceFeeAmount, requiredDailyAverage,
+                freeTransactionLimit, transactionFeeAmount, currentMonthlyTransactions, monthlyMovements, specificDepositDate,
+                holders, signatories, version);
+    }
+}
\ No newline at end of file
@@ -1,9 +1,16 @@
 package com.bancario.account.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 public record AccountTransactionStatus(
         Integer freeTransactionLimit,
         Integer currentMonthlyTransactions,
-        BigDecimal transactionFeeAmount
+        BigDecimal transactionFeeAmount,
+        Long version, // Versión de la cuenta (ETag de la consulta); null con asientos diferidos pendientes
+        // Saldo promedio del mes en curso hasta monthToDateAverageAt (null con saldo distribuido).
+        BigDecimal monthToDateAverageBalance,
+        // Instante del cálculo (al minuto, o el último cambio de saldo si es posterior); forma parte del ETag:
+        // una respuesta 304 solo se da dentro del mismo minuto, con el mismo valor.
+        LocalDateTime monthToDateAverageAt
 ) {}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.bancario.account.dto;
+
+import com.bancario.account.enums.BalanceBasis;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de una cuenta en un instante: el valor base más reciente (snapshot EOD o asiento con saldo) anterior
+ * al instante, más los importes del libro de movimientos registrados entre la base y el instante.
+ * * Consistencia: el resultado incluye exactamente los movimientos con occurredAt <= asOf registrados en el libro
+ * en el momento de la consulta. Los abonos a slots de saldo distribuido simultáneos a la lectura del Job EOD
+ * (basis = SNAPSHOT) pueden contarse dos veces o ninguna; el resto de movimientos llevan su saldo resultante.
+ * El libro se escribe antes que el saldo: cada movimiento se registra como asiento preparado, después se aplica
+ * al documento Account (o al slot) y por último se confirma, o se anula si la escritura no se aplicó. Solo cuentan
+ * los asientos confirmados y, con la proyección asíncrona, los diferidos (ya son el registro del saldo); los
+ * preparados aún sin confirmar y los anulados se excluyen. Un movimiento cuya confirmación falló no se refleja
+ * hasta que el barrido de asientos preparados lo resuelve, pasado LEDGER_PREPARED_GRACE, por las sequences
+ * aplicadas a la cuenta: lo confirma si figura en ellas y lo anula si no.
+ */
+public record BalanceAtResponse(
+        String accountId,
+        LocalDateTime asOf,
+        BigDecimal balance,
+        BigDecimal amountUsed,
+        BalanceBasis basis,
+        LocalDateTime basisAt,
+        int movementsApplied
+) {}
@@ -0,0 +1,10 @@
+package com.bancario.account.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Solicitud de abono o cargo sobre el saldo de una cuenta pasiva.
+ */
+public record BalanceMovementRequest(
+        BigDecimal amount // Importe positivo
+) {}
@@ -0,0 +1,18 @@
+package com.bancario.account.dto;
+
+import com.bancario.account.enums.MovementType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de un abono o cargo.
+ * * balance es el saldo total resultante cuando se conoce de forma exacta; es null en los abonos a cuentas
+ * con saldo distribuido, que no leen el total para no volver a serializar la cuenta.
+ */
+public record BalanceMovementResponse(
+        String accountId,
+        MovementType type,
+        BigDecimal amount,
+        BigDecimal balance,
+        LocalDateTime occurredAt
+) {}
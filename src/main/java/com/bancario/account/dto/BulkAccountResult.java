@@ -0,0 +1,14 @@
+package com.bancario.account.dto;
+
+import com.bancario.account.enums.BulkItemStatus;
+
+/**
+ * Resultado de un elemento de la creación masiva de cuentas.
+ * Se devuelve un resultado por cada AccountRequest, en el mismo orden de la solicitud.
+ */
+public record BulkAccountResult(
+        int index, // Posición del elemento en la solicitud (base 0)
+        BulkItemStatus status,
+        AccountResponse account, // Solo cuando status = CREATED
+        String error // Motivo del rechazo o fallo
+) {}
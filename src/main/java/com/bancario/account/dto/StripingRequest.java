@@ -0,0 +1,8 @@
+package com.bancario.account.dto;
+
+/**
+ * Configuración del saldo distribuido de una cuenta: número de slots de abono (0 para desactivarlo).
+ */
+public record StripingRequest(
+        Integer stripes
+) {}
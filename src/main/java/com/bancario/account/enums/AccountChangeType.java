@@ -0,0 +1,9 @@
+package com.bancario.account.enums;
+
+public enum AccountChangeType {
+    CREATED,             // Alta de cuenta (individual o masiva)
+    BALANCE_UPDATED,     // updateAccountBalance
+    COUNTER_INCREMENTED, // Contador mensual de transacciones
+    DELETED,             // eliminarCuenta
+    RESYNC_REQUIRED      // El offset pedido ya no está disponible: el consumidor debe recargar su copia
+}
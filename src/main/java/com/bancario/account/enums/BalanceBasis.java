@@ -0,0 +1,6 @@
+package com.bancario.account.enums;
+
+public enum BalanceBasis {
+    SNAPSHOT,  // Snapshot EOD tomado antes del instante consultado
+    MOVEMENT   // Asiento del libro con saldo resultante (ancla) posterior al último snapshot
+}
@@ -0,0 +1,7 @@
+package com.bancario.account.enums;
+
+public enum BulkItemStatus {
+    CREATED,   // Cuenta persistida
+    REJECTED,  // No cumple validaciones o reglas de negocio
+    FAILED     // Error técnico (customer-service o persistencia)
+}
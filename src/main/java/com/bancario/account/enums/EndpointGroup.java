@@ -0,0 +1,7 @@
+package com.bancario.account.enums;
+
+public enum EndpointGroup {
+    TRANSACTIONAL, // Lecturas/escrituras puntuales del Transaction-Service (máxima prioridad)
+    ANALYTIC,      // Historial y exportaciones de saldos EOD
+    ACQUISITION    // Alta de cuentas (individual y masiva)
+}
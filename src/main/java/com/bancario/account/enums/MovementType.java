@@ -0,0 +1,12 @@
+package com.bancario.account.enums;
+
+/**
+ * Tipo de asiento del libro de movimientos de saldo (account_movements).
+ */
+public enum MovementType {
+    OPENING,        // Saldo inicial al crear la cuenta
+    BALANCE_UPDATE, // Nuevo balance / monto utilizado (updateAccountBalance)
+    CREDIT,         // Abono (amount); balance solo si se conoce el total resultante
+    DEBIT,          // Cargo (amount); balance solo si se conoce el total resultante
+    FEE             // Comisión del cierre de mes (amount); postingId enlaza el cargo de fee_postings
+}
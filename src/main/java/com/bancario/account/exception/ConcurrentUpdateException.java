@@ -0,0 +1,11 @@
+package com.bancario.account.exception;
+
+/**
+ * Excepción lanzada cuando una escritura condicionada por versión no se pudo aplicar porque la cuenta
+ * fue modificada concurrentemente (tras agotar los reintentos), mapeada a un código HTTP 409 (Conflict).
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
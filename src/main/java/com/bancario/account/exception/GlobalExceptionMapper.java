@@ -1,11 +1,15 @@
 package com.bancario.account.exception;
 
 import com.mongodb.MongoCommandException;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
 import java.time.LocalDateTime;
 
 @Provider
@@ -24,6 +28,10 @@ public class GlobalExceptionMapper implements ExceptionMapper<Exception> {
                 status = Response.Status.NOT_FOUND.getStatusCode(); // 404
                 error = "Resource Not Found";
             }
+            case NotFoundException notFoundException -> {
+                status = Response.Status.NOT_FOUND.getStatusCode(); // 404
+                error = "Resource Not Found";
+            }
             case CreditEligibilityCheckFailedException eligibilityCheckFailedException -> {
                 // Nuevo mapeo: Indica una denegación por riesgo o Fall-Safe (Mora Vencida JIT)
                 status = Response.Status.FORBIDDEN.getStatusCode(); // 403
@@ -34,6 +42,23 @@ public class GlobalExceptionMapper implements ExceptionMapper<Exception> {
                 status = Response.Status.SERVICE_UNAVAILABLE.getStatusCode(); // 503
                 error = "Service Unavailable (Fault Tolerance)";
             }
+            case TimeoutException timeoutException -> {
+                // @Timeout de Fault Tolerance: el limitador de concurrencia lo cuenta como sobrecarga
+                status = Response.Status.GATEWAY_TIMEOUT.getStatusCode(); // 504
+                error = "Gateway Timeout (Fault Tolerance)";
+            }
+            case CircuitBreakerOpenException circuitBreakerOpenException -> {
+                status = Response.Status.SERVICE_UNAVAILABLE.getStatusCode(); // 503
+                error = "Service Unavailable (Fault Tolerance)";
+            }
+            case BulkheadException bulkheadException -> {
+                status = Response.Status.SERVICE_UNAVAILABLE.getStatusCode(); // 503
+                error = "Service Unavailable (Fault Tolerance)";
+            }
+            case ConcurrentUpdateException concurrentUpdateException -> {
+                status = Response.Status.CONFLICT.getStatusCode(); // 409
+                error = "Concurrent Update";
+            }
             case BusinessException businessException -> {
                 status = Response.Status.BAD_REQUEST.getStatusCode(); // 400
                 error = "Violación de Regla de Negocio";
@@ -0,0 +1,43 @@
+package com.bancario.account.job;
+
+import com.bancario.account.repository.BalanceSnapshotRepository;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job programado que calcula cada noche el Saldo Promedio Diario (SPD) del mes en curso de las cuentas
+ * pasivas VIP y PYME, y marca las que no alcanzan el promedio requerido (requiredDailyAverage).
+ * * El cálculo es una única agregación sobre balance_snapshots cuyo resultado se guarda en account_compliance,
+ * de modo que las consultas de cumplimiento leen un documento precalculado en lugar de recorrer el historial.
+ */
+@ApplicationScoped
+public class AccountComplianceJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountComplianceJob.class);
+
+    private final BalanceSnapshotRepository snapshotRepository;
+
+    @Inject
+    public AccountComplianceJob(BalanceSnapshotRepository snapshotRepository) {
+        this.snapshotRepository = snapshotRepository;
+    }
+
+    /**
+     * Ejecuta el cálculo de cumplimiento. Programado después del Job EOD (22:00) para incluir el snapshot del día.
+     */
+    @Scheduled(cron = "{account-service.compliance.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void runComplianceCheck() {
+        LocalDate asOfDate = LocalDate.now();
+        LocalDate monthStart = asOfDate.withDayOfMonth(1);
+        log.info("INICIO del cálculo de cumplimiento SPD del {} al {}", monthStart, asOfDate);
+
+        snapshotRepository.mergeMonthToDateCompliance(monthStart, asOfDate).subscribe().with(
+                success -> log.info("Cálculo de cumplimiento SPD finalizado para la fecha {}", asOfDate),
+                failure -> log.error("Fallo en el cálculo de cumplimiento SPD para la fecha {}", asOfDate, failure)
+        );
+    }
+}
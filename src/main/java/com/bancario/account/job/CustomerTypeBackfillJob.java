@@ -0,0 +1,82 @@
+package com.bancario.account.job;
+
+import com.bancario.account.client.CustomerLookup;
+import com.bancario.account.repository.AccountRepository;
+import com.bancario.account.repository.JobCheckpointRepository;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.stream.Collectors;
+
+/**
+ * Relleno único de Account.customerType en las cuentas creadas antes de que se guardara al abrirlas.
+ * * El cálculo de cumplimiento VIP/PYME segmenta por ese campo: sin él, las cuentas antiguas no se evaluarían.
+ * Se ejecuta al arrancar (en segundo plano) hasta completarse una vez; es idempotente, porque solo toca
+ * las cuentas que aún no tienen el tipo, así que varias réplicas arrancando a la vez no se pisan.
+ */
+@ApplicationScoped
+public class CustomerTypeBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerTypeBackfillJob.class);
+
+    static final String CHECKPOINT_ID = "customer-type-backfill";
+
+    // Clientes consultados en paralelo (el CustomerLookup los agrupa en llamadas por lote si está habilitado).
+    private static final int LOOKUP_CONCURRENCY = 16;
+
+    private final AccountRepository accountRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final CustomerLookup customerLookup;
+
+    @Inject
+    public CustomerTypeBackfillJob(AccountRepository accountRepository,
+                                   JobCheckpointRepository checkpointRepository,
+                                   CustomerLookup customerLookup) {
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.customerLookup = customerLookup;
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        backfill().subscribe().with(
+                updated -> {
+                    if (updated != null) {
+                        log.info("Relleno de customerType finalizado. Cuentas actualizadas: {}", updated);
+                    }
+                },
+                failure -> log.error("Fallo en el relleno de customerType; se reintentará en el próximo arranque.", failure));
+    }
+
+    /**
+     * Asigna el tipo de cliente del customer-service a las cuentas que no lo tienen.
+     * @return Uni con el número de cuentas actualizadas, o null si el relleno ya estaba completado.
+     */
+    public Uni<Long> backfill() {
+        return checkpointRepository.findOrCreate(CHECKPOINT_ID)
+                .chain(checkpoint -> {
+                    if (checkpoint.completed) {
+                        return Uni.createFrom().nullItem();
+                    }
+                    return accountRepository.streamCustomerIdsWithoutCustomerType()
+                            .onItem().transformToUni(customerId -> customerLookup.getCustomerById(customerId)
+                                    .chain(customer -> accountRepository.setMissingCustomerType(customerId, customer.type()))
+                                    // Un cliente que ya no existe (o un fallo puntual) no bloquea el resto: queda para el siguiente arranque.
+                                    .onFailure().invoke(failure -> log.warn("customerType: no se pudo resolver el cliente {}: {}",
+                                            customerId, failure.getMessage()))
+                                    .onFailure().recoverWithItem(0L))
+                            .merge(LOOKUP_CONCURRENCY)
+                            .collect().with(Collectors.summingLong(Long::longValue))
+                            .call(updated -> accountRepository.countWithoutCustomerType()
+                                    .chain(remaining -> {
+                                        checkpoint.processedCount += updated;
+                                        checkpoint.completed = remaining == 0;
+                                        return checkpointRepository.save(checkpoint);
+                                    }));
+                });
+    }
+}
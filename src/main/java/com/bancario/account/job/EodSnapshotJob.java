@@ -2,36 +2,69 @@ package com.bancario.account.job;
 
 import com.bancario.account.repository.AccountRepository;
 import com.bancario.account.repository.BalanceSnapshotRepository;
+import com.bancario.account.repository.BalanceStripeRepository;
+import com.bancario.account.repository.ColumnarBalanceStore;
+import com.bancario.account.repository.JobCheckpointRepository;
 import com.bancario.account.repository.entity.Account;
 import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.bancario.account.repository.entity.JobCheckpoint;
+import com.bancario.account.util.Constants;
 import io.quarkus.scheduler.Scheduled;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Job programado que se ejecuta diariamente para tomar una 'foto' (snapshot) del saldo EOD
- * de todas las cuentas y productos activos.
+ * de las cuentas y productos.
  * * Este proceso garantiza que la colección balance_snapshots se llene con datos históricos
  * para el cálculo del Saldo Promedio Diario (SPD), cumpliendo con el Principio de Responsabilidad Única.
+ * * Solo se escriben las cuentas cuyo saldo cambió desde la ejecución anterior (lastBalanceChangeAt); las lecturas
+ * arrastran el último valor conocido a los días sin snapshot. La primera ejecución de cada mes (o sin punto de
+ * control) escribe todas las cuentas, de modo que cada mes tiene su propio valor inicial y no depende de meses
+ * ya compactados o archivados.
+ * * Si la ejecución falla, se reintenta el mismo día con espera creciente: un snapshot completo fallido el día 1
+ * dejaría ese día sin valores (la ejecución siguiente ya fecha su snapshot completo en el día 2). Cada intento
+ * borra antes los snapshots del día, de modo que una persistencia parcial no deja duplicados.
  */
 @ApplicationScoped
 public class EodSnapshotJob {
 
     private static final Logger log = LoggerFactory.getLogger(EodSnapshotJob.class);
 
+    // Margen sobre la marca de agua para tolerar desfases de reloj entre las instancias que escriben saldos.
+    private static final Duration WATERMARK_MARGIN = Duration.ofMinutes(5);
+
     private final AccountRepository accountRepository;
     private final BalanceSnapshotRepository snapshotRepository;
+    private final ColumnarBalanceStore columnarStore;
+    private final BalanceStripeRepository stripeRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
 
     @Inject
-    public EodSnapshotJob(AccountRepository accountRepository, BalanceSnapshotRepository snapshotRepository) {
+    public EodSnapshotJob(AccountRepository accountRepository, BalanceSnapshotRepository snapshotRepository,
+                          ColumnarBalanceStore columnarStore, BalanceStripeRepository stripeRepository,
+                          JobCheckpointRepository checkpointRepository,
+                          @ConfigProperty(name = "account-service.eod.retry-attempts") int retryAttempts,
+                          @ConfigProperty(name = "account-service.eod.retry-backoff") Duration retryBackoff) {
         this.accountRepository = accountRepository;
         this.snapshotRepository = snapshotRepository;
+        this.columnarStore = columnarStore;
+        this.stripeRepository = stripeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.retryAttempts = retryAttempts;
+        this.retryBackoff = retryBackoff;
     }
 
     /**
@@ -42,31 +75,13 @@ public class EodSnapshotJob {
     @Scheduled(cron = "0 0 22 * * ?")
     public void runDailySnapshot() {
         LocalDate today = LocalDate.now();
+        // La marca de agua se toma antes de leer las cuentas: un cambio concurrente entra en esta ejecución o en la siguiente.
+        LocalDateTime runStartedAt = LocalDateTime.now();
         log.info("INICIO del Job EOD para la fecha: {}", today);
 
-        // 1. Obtener todas las cuentas activas (o todos los productos).
-        // NOTA: Asumimos un método findAllActiveProducts() en AccountRepository para obtener todas las cuentas.
-        // Si no existe, usa accountRepository.findAll().list() y filtra si es necesario.
-        Uni<Void> jobFlow = accountRepository.findAll().list() // Se asume que findAll().list() devuelve todas las cuentas.
-                .onItem().transformToUni(accounts -> {
-                    if (accounts.isEmpty()) {
-                        log.warn("Job EOD: No se encontraron cuentas activas para procesar.");
-                        return Uni.createFrom().voidItem(); // Flujo finalizado
-                    }
-
-                    // 2. Mapear las entidades Account a BalanceSnapshot
-                    List<BalanceSnapshot> snapshots = accounts.stream()
-                            .map(account -> mapAccountToSnapshot(account, today))
-                            .toList();
-
-                    // 3. Persistir la lista de snapshots de forma reactiva (batch insert)
-                    log.info("Job EOD: Persistiendo {} snapshots para la fecha {}", snapshots.size(), today);
-
-                    // El método persist() de Panache maneja la inserción batch.
-                    return snapshotRepository.persist(snapshots)
-                            .onItem().invoke(() -> log.info("Job EOD finalizado con éxito. Snapshots guardados: {}", snapshots.size()))
-                            .onFailure().invoke(e -> log.error("Job EOD falló durante la persistencia de snapshots.", e));
-                });
+        Uni<Void> jobFlow = snapshotDay(today, runStartedAt)
+                .onFailure().invoke(failure -> log.warn("Job EOD del {} fallido; se reintentará: {}", today, failure.getMessage()))
+                .onFailure().retry().withBackOff(retryBackoff, retryBackoff.multipliedBy(8)).atMost(retryAttempts);
 
         // La suscripción es NECESARIA para que el flujo reactivo se ejecute.
         jobFlow.subscribe().with(
@@ -75,13 +90,93 @@ public class EodSnapshotJob {
         );
     }
 
+    /**
+     * Un intento del snapshot del día: relee el punto de control y las cuentas en cada reintento.
+     */
+    private Uni<Void> snapshotDay(LocalDate today, LocalDateTime runStartedAt) {
+        return checkpointRepository.findOrCreate(Constants.EOD_SNAPSHOT_CHECKPOINT)
+                .chain(checkpoint -> {
+                    boolean fullSnapshot = requiresFullSnapshot(checkpoint, today);
+                    // 1. Cuentas a fotografiar: todas (inicio de mes) o solo las que cambiaron desde la última ejecución.
+                    Uni<List<Account>> accountsToSnapshot = fullSnapshot
+                            ? accountRepository.findAll().list()
+                            : accountRepository.findBalanceChangedSince(checkpoint.watermark.minus(WATERMARK_MARGIN));
+
+                    return accountsToSnapshot
+                            // Las cuentas con saldo distribuido guardan parte del saldo en slots: el EOD es el saldo total.
+                            .call(this::addStripedBalances)
+                            .chain(accounts -> {
+                                // Instante en que terminó la lectura (cuentas y slots): los movimientos posteriores no están en el snapshot.
+                                LocalDateTime takenAt = LocalDateTime.now();
+                                // 2. Mapear las entidades Account a BalanceSnapshot
+                                List<BalanceSnapshot> snapshots = accounts.stream()
+                                        .map(account -> mapAccountToSnapshot(account, today, takenAt))
+                                        .toList();
+
+                                // 3. Persistir la lista de snapshots de forma reactiva (batch insert)
+                                log.info("Job EOD: Persistiendo {} snapshots ({}) para la fecha {}",
+                                        snapshots.size(), fullSnapshot ? "completo" : "solo cambios", today);
+
+                                // El almacén columnar deja de servir este día hasta que reciba los snapshots ya persistidos.
+                                columnarStore.beginDay(today);
+
+                                // El método persist() de Panache maneja la inserción batch; antes se borra lo que
+                                // haya dejado un intento anterior del mismo día.
+                                Uni<Void> persisted = snapshotRepository.deleteByDate(today)
+                                        .chain(() -> snapshots.isEmpty()
+                                                ? Uni.createFrom().voidItem()
+                                                : snapshotRepository.persist(snapshots));
+                                return persisted
+                                        .onItem().invoke(() -> columnarStore.appendDay(today, snapshots))
+                                        .onFailure().invoke(e -> log.error("Job EOD falló durante la persistencia de snapshots.", e))
+                                        // 4. El día solo cuenta como cerrado (y las lecturas lo rellenan) tras persistir.
+                                        .chain(() -> {
+                                            checkpoint.lastCompletedDate = today;
+                                            checkpoint.watermark = runStartedAt;
+                                            checkpoint.completed = true;
+                                            return checkpointRepository.save(checkpoint);
+                                        })
+                                        .onItem().invoke(() -> log.info("Job EOD finalizado con éxito. Snapshots guardados: {}", snapshots.size()))
+                                        .replaceWithVoid();
+                            });
+                });
+    }
+
+    /**
+     * Snapshot completo si no hay una ejecución anterior completa en el mismo mes: primer día del mes,
+     * primera ejecución tras el despliegue o tras un fallo que dejó el mes sin valor inicial.
+     */
+    private boolean requiresFullSnapshot(JobCheckpoint checkpoint, LocalDate today) {
+        return checkpoint.watermark == null
+                || checkpoint.lastCompletedDate == null
+                || !YearMonth.from(checkpoint.lastCompletedDate).equals(YearMonth.from(today));
+    }
+
     // --- Lógica de Mapeo (Método de ayuda) ---
 
+    /**
+     * Suma los slots de saldo distribuido al balance de las cuentas que los tienen (entidades recién leídas).
+     */
+    private Uni<Void> addStripedBalances(List<Account> accounts) {
+        List<String> stripedIds = accounts.stream()
+                .filter(account -> account.balanceStripes != null)
+                .map(account -> account.id.toHexString())
+                .toList();
+        return stripeRepository.sumByAccounts(stripedIds)
+                .onItem().invoke(totals -> accounts.forEach(account -> {
+                    BigDecimal striped = totals.get(account.id.toHexString());
+                    if (striped != null) {
+                        account.balance = account.balance == null ? striped : account.balance.add(striped);
+                    }
+                }))
+                .replaceWithVoid();
+    }
+
     /**
      * Mapea la entidad de estado actual (Account) a la entidad de historial (BalanceSnapshot).
      * Esta es la lógica de negocio del cierre diario.
      */
-    private BalanceSnapshot mapAccountToSnapshot(Account account, LocalDate date) {
+    private BalanceSnapshot mapAccountToSnapshot(Account account, LocalDate date, LocalDateTime takenAt) {
         BalanceSnapshot snapshot = new BalanceSnapshot();
 
         // Datos de identificación
@@ -89,7 +184,9 @@ public class EodSnapshotJob {
         snapshot.productId = account.id.toHexString();
         snapshot.productType = account.productType.toString();
         snapshot.accountType = account.accountType;
+        snapshot.customerType = account.customerType;
         snapshot.date = date;
+        snapshot.takenAt = takenAt;
 
         // Lógica clave para el saldo EOD:
         if (account.productType.toString().equals("PASSIVE")) { // Cuentas de depósito
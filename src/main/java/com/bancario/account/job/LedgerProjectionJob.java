@@ -0,0 +1,49 @@
+package com.bancario.account.job;
+
+import com.bancario.account.service.AccountService;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job de proyección del libro de movimientos: con la proyección asíncrona habilitada, updateAccountBalance
+ * solo inserta asientos diferidos en account_movements y este job los compacta en el documento Account de cada cuenta
+ * (las lecturas los aplican mientras tanto).
+ * * En ambos modos resuelve además los asientos preparados que una caída dejó sin confirmar ni anular.
+ */
+@ApplicationScoped
+public class LedgerProjectionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerProjectionJob.class);
+
+    private final AccountService accountService;
+    private final int batchSize;
+
+    @Inject
+    public LedgerProjectionJob(AccountService accountService,
+                               @ConfigProperty(name = "account-service.ledger.projection-batch-size") int batchSize) {
+        this.accountService = accountService;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Proyecta un lote de asientos pendientes. Devuelve el Uni para que el scheduler no solape ejecuciones
+     * mientras la anterior sigue en curso.
+     */
+    @Scheduled(every = "{account-service.ledger.projection-interval}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public Uni<Void> runProjection() {
+        return accountService.projectPendingMovements(batchSize)
+                .onItem().invoke(accounts -> {
+                    if (accounts > 0) {
+                        log.debug("Ledger: {} cuentas proyectadas.", accounts);
+                    }
+                })
+                .onFailure().invoke(failure -> log.error("Fallo en la proyección del libro de movimientos.", failure))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
+}
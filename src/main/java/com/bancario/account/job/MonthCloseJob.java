@@ -0,0 +1,455 @@
+package com.bancario.account.job;
+
+import com.bancario.account.enums.AccountStatus;
+import com.bancario.account.enums.MovementType;
+import com.bancario.account.enums.ProductType;
+import com.bancario.account.repository.AccountMovementRepository;
+import com.bancario.account.repository.AccountRepository;
+import com.bancario.account.repository.BalanceStripeRepository;
+import com.bancario.account.repository.FeePostingRepository;
+import com.bancario.account.repository.JobCheckpointRepository;
+import com.bancario.account.repository.entity.Account;
+import com.bancario.account.repository.entity.AccountMovement;
+import com.bancario.account.repository.entity.FeePosting;
+import com.bancario.account.repository.entity.JobCheckpoint;
+import com.bancario.account.service.impl.AccountReadCache;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job programado de cierre de mes para las cuentas pasivas.
+ * * Calcula la comisión de mantenimiento y la comisión por transacciones por encima del límite gratuito,
+ * registra el cargo en fee_postings y su asiento FEE en el libro de movimientos, lo descuenta del saldo
+ * (como mucho hasta dejarlo en cero) y cierra el contador mensual del periodo.
+ * * El contador de transacciones lleva su mes (transactionCounterPeriod): las transacciones del mes siguiente
+ * anteriores a la ejecución no cuentan para el mes cerrado, sea cual sea la hora del cron.
+ * * Recorre las cuentas con un cursor en orden de _id y aplica los cambios por particiones con bulkWrite,
+ * guardando un punto de control tras cada partición para poder reanudar una ejecución interrumpida.
+ * Cada cuenta queda marcada con el periodo cerrado (lastFeePeriod), lo que evita cobrar dos veces.
+ * * Una ejecución fallida se reintenta con espera creciente; si se agotan los reintentos, o si el servicio no estaba
+ * activo a la hora del cron, el cierre pendiente del mes anterior se reanuda al arrancar y en la comprobación periódica.
+ */
+@ApplicationScoped
+public class MonthCloseJob {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthCloseJob.class);
+
+    /** Asignaciones de sequence del libro (y consolidaciones de slots) en paralelo por partición. */
+    private static final int SEQUENCE_CONCURRENCY = 16;
+
+    /** Reintentos de las cuentas cuyo saldo cambió entre la lectura y el cobro de su comisión. */
+    private static final int CHARGE_RETRIES = 5;
+
+    private static final Bson ACCOUNT_FIELDS = Projections.include("customerId", "maintenanceFeeAmount",
+            "freeTransactionLimit", "transactionFeeAmount", "currentMonthlyTransactions", "transactionCounterPeriod",
+            "previousMonthTransactions", "previousTransactionPeriod", "balance", "balanceStripes");
+
+    private final AccountRepository accountRepository;
+    private final FeePostingRepository feePostingRepository;
+    private final AccountMovementRepository movementRepository;
+    private final BalanceStripeRepository stripeRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final AccountReadCache accountReadCache;
+    private final int partitionSize;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
+    // Evita que el cron, el arranque y la comprobación periódica solapen ejecuciones en la misma instancia.
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Inject
+    public MonthCloseJob(AccountRepository accountRepository,
+                         FeePostingRepository feePostingRepository,
+                         AccountMovementRepository movementRepository,
+                         BalanceStripeRepository stripeRepository,
+                         JobCheckpointRepository checkpointRepository,
+                         AccountReadCache accountReadCache,
+                         @ConfigProperty(name = "account-service.month-close.partition-size") int partitionSize,
+                         @ConfigProperty(name = "account-service.month-close.retry-attempts") int retryAttempts,
+                         @ConfigProperty(name = "account-service.month-close.retry-backoff") Duration retryBackoff) {
+        this.accountRepository = accountRepository;
+        this.feePostingRepository = feePostingRepository;
+        this.movementRepository = movementRepository;
+        this.stripeRepository = stripeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.accountReadCache = accountReadCache;
+        this.partitionSize = partitionSize;
+        this.retryAttempts = retryAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Cierra el mes anterior. Programado para el día 1 de cada mes a la 01:00 AM.
+     * Si la ejecución anterior quedó incompleta, la reanuda desde su punto de control.
+     */
+    @Scheduled(cron = "{account-service.month-close.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void runMonthClose() {
+        closePreviousMonth();
+    }
+
+    /**
+     * Reanuda al arrancar el cierre del mes anterior si quedó incompleto o no llegó a ejecutarse.
+     */
+    void onStart(@Observes StartupEvent event) {
+        closePreviousMonth();
+    }
+
+    /**
+     * Comprobación periódica: reanuda el cierre del mes anterior si sigue incompleto (reintentos agotados).
+     */
+    @Scheduled(every = "{account-service.month-close.resume-interval}", delayed = "{account-service.month-close.resume-interval}",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void resumePendingClose() {
+        closePreviousMonth();
+    }
+
+    private void closePreviousMonth() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Cierre de mes en curso en esta instancia; se omite la ejecución.");
+            return;
+        }
+        YearMonth period = YearMonth.now().minusMonths(1);
+        checkpointRepository.findOrCreate(checkpointId(period))
+                .chain(checkpoint -> checkpoint.completed
+                        ? Uni.createFrom().<JobCheckpoint>nullItem()
+                        : closeMonth(period)
+                                .onFailure().invoke(failure -> log.warn("Cierre de mes {} fallido; se reintentará desde el último punto de control: {}",
+                                        period, failure.getMessage()))
+                                .onFailure().retry().withBackOff(retryBackoff, retryBackoff.multipliedBy(8)).atMost(retryAttempts))
+                .onTermination().invoke(() -> running.set(false))
+                .subscribe().with(
+                        checkpoint -> {
+                            if (checkpoint != null) {
+                                log.info("Cierre de mes {} finalizado. Cuentas procesadas: {}", period, checkpoint.processedCount);
+                            }
+                        },
+                        failure -> log.error("Cierre de mes {} interrumpido tras {} reintentos; la comprobación periódica lo reanudará "
+                                + "desde el último punto de control.", period, retryAttempts, failure)
+                );
+    }
+
+    /**
+     * Ejecuta (o reanuda) el cierre de un periodo.
+     * @param period Mes a cerrar.
+     * @return Uni que emite el punto de control final de la ejecución.
+     */
+    public Uni<JobCheckpoint> closeMonth(YearMonth period) {
+        String periodKey = period.toString();
+        return checkpointRepository.findOrCreate(checkpointId(period))
+                .onItem().transformToUni(checkpoint -> {
+                    if (checkpoint.completed) {
+                        log.info("Cierre de mes {} ya completado; no hay nada que hacer.", periodKey);
+                        return Uni.createFrom().item(checkpoint);
+                    }
+                    log.info("INICIO del cierre de mes {} (reanudando tras _id: {})", periodKey, checkpoint.lastProcessedId);
+
+                    return streamPendingAccounts(period, checkpoint.lastProcessedId)
+                            .group().intoLists().of(partitionSize)
+                            // Las particiones se aplican en secuencia para que el punto de control sea consistente.
+                            .onItem().transformToUniAndConcatenate(partition -> applyPartition(period, partition)
+                                    .chain(() -> {
+                                        checkpoint.lastProcessedId = partition.get(partition.size() - 1).id.toHexString();
+                                        checkpoint.processedCount += partition.size();
+                                        return checkpointRepository.save(checkpoint);
+                                    }))
+                            .collect().last()
+                            .chain(() -> {
+                                checkpoint.completed = true;
+                                return checkpointRepository.save(checkpoint);
+                            });
+                });
+    }
+
+    private static String checkpointId(YearMonth period) {
+        return "month-close:" + period;
+    }
+
+    private Multi<Account> streamPendingAccounts(YearMonth period, String lastProcessedId) {
+        List<Bson> conditions = new ArrayList<>(List.of(
+                Filters.eq("productType", ProductType.PASSIVE.name()),
+                Filters.eq("status", AccountStatus.ACTIVE.name()),
+                Filters.ne("lastFeePeriod", period.toString()),
+                // Las cuentas abiertas después del periodo (ej. el día 1 antes del cierre, o antes de una reanudación
+                // tardía) no pagan ese mes. Las cuentas sin fecha de apertura son anteriores al campo.
+                Filters.or(
+                        Filters.eq("openingDate", null),
+                        Filters.lt("openingDate", period.plusMonths(1).atDay(1).atStartOfDay()))));
+        if (lastProcessedId != null) {
+            conditions.add(Filters.gt("_id", new ObjectId(lastProcessedId)));
+        }
+        FindOptions options = new FindOptions()
+                .projection(ACCOUNT_FIELDS)
+                .sort(Sorts.ascending("_id"))
+                .batchSize(partitionSize);
+
+        return accountRepository.mongoCollection().find(Filters.and(conditions), options);
+    }
+
+    /**
+     * Registra los cargos de la partición y aplica los registrados: en una reanudación se cobran los cargos
+     * de la ejecución interrumpida, no unos recalculados con la configuración de comisiones actual.
+     */
+    private Uni<Void> applyPartition(YearMonth period, List<Account> partition) {
+        LocalDateTime now = LocalDateTime.now();
+        List<FeePosting> postings = new ArrayList<>();
+        for (Account account : partition) {
+            FeePosting posting = calculateFees(account, period, now);
+            if (posting.totalFee.signum() > 0) {
+                postings.add(posting);
+            }
+        }
+
+        return feePostingRepository.insertIgnoringDuplicates(postings)
+                .chain(() -> feePostingRepository.findByIds(partition.stream()
+                        .map(account -> postingId(account, period))
+                        .toList()))
+                .chain(stored -> applyCharges(period, partition, stored, 0));
+    }
+
+    /**
+     * Descuenta los cargos sin dejar el saldo en negativo (el importe descontado es el cargo limitado al saldo leído)
+     * y cierra el contador de transacciones, en un solo bulkWrite; antes registra el importe en el cargo y prepara
+     * su asiento FEE, y después confirma los asientos. Si el proceso se interrumpe antes del bulkWrite, la reanudación
+     * vuelve a procesar esas cuentas reutilizando sus cargos y asientos (misma sequence), sin duplicarlos. Si se
+     * interrumpe después, el barrido de asientos preparados del libro los confirma porque el bulkWrite registró su sequence entre las aplicadas a la cuenta.
+     * * Una cuenta cuyo saldo cambió desde la lectura de forma que el importe ya no vale no se modifica; se vuelve
+     * a leer y se reintenta.
+     */
+    private Uni<Void> applyCharges(YearMonth period, List<Account> accounts, Map<String, FeePosting> postings, int attempt) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, FeePosting> accountPostings = new HashMap<>();
+        for (Account account : accounts) {
+            FeePosting posting = postings.get(account.id.toHexString());
+            if (posting != null) {
+                accountPostings.put(posting.accountId, posting);
+            }
+        }
+        return baseBalances(accounts, accountPostings)
+                .chain(balances -> {
+                    Map<String, BigDecimal> charges = new HashMap<>();
+                    Map<String, BigDecimal> chargedByPosting = new HashMap<>();
+                    for (FeePosting posting : accountPostings.values()) {
+                        BigDecimal charge = chargeable(posting.totalFee, balances.get(posting.accountId));
+                        charges.put(posting.accountId, charge);
+                        chargedByPosting.put(posting.id, charge);
+                    }
+                    return feePostingRepository.recordCharged(chargedByPosting)
+                            .chain(() -> prepareFeeMovements(accountPostings, charges, now))
+                            .chain(movements -> accountRepository.mongoCollection()
+                                    .bulkWrite(buildUpdates(period, accounts, accountPostings, charges, balances, movements, now),
+                                            new BulkWriteOptions().ordered(false))
+                                    .onItem().invoke(result -> log.debug("Cierre {}: {} cuentas aplicadas ({} modificadas, {} cargos).",
+                                            period, accounts.size(), result.getModifiedCount(), movements.size()))
+                                    // Saldo y contador cambiaron: las copias de respaldo de la partición dejan de valer.
+                                    .onItem().invoke(() -> accounts.forEach(account -> accountReadCache.evict(account.id.toHexString())))
+                                    .chain(() -> findStillOpen(period, accounts))
+                                    .chain(open -> {
+                                        Set<String> openIds = open.stream()
+                                                .map(account -> account.id.toHexString())
+                                                .collect(Collectors.toSet());
+                                        return movementRepository.markProjected(movements.values().stream()
+                                                        .filter(movement -> !openIds.contains(movement.accountId))
+                                                        .map(movement -> movement.id)
+                                                        .toList())
+                                                .chain(() -> retryOpen(period, open, postings, attempt));
+                                    }));
+                });
+    }
+
+    private Uni<Void> retryOpen(YearMonth period, List<Account> open, Map<String, FeePosting> postings, int attempt) {
+        if (open.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        if (attempt >= CHARGE_RETRIES) {
+            return Uni.createFrom().failure(new IllegalStateException("Cierre " + period + ": " + open.size()
+                    + " cuentas cambiaron de saldo en cada intento de cobro de la comisión."));
+        }
+        log.debug("Cierre {}: {} cuentas cambiaron de saldo durante el cobro; se reintentan.", period, open.size());
+        return applyCharges(period, open, postings, attempt + 1);
+    }
+
+    /**
+     * Saldo base de las cuentas con cargo, por accountId. Si el saldo base de una cuenta con slots no cubre su cargo,
+     * se consolidan antes los slots para cobrarlo con el saldo total.
+     */
+    private Uni<Map<String, BigDecimal>> baseBalances(List<Account> accounts, Map<String, FeePosting> postings) {
+        return Multi.createFrom().iterable(accounts)
+                .filter(account -> postings.containsKey(account.id.toHexString()))
+                .onItem().transformToUni(account -> {
+                    FeePosting posting = postings.get(account.id.toHexString());
+                    BigDecimal balance = account.balance != null ? account.balance : BigDecimal.ZERO;
+                    if (account.balanceStripes == null || balance.compareTo(posting.totalFee) >= 0) {
+                        return Uni.createFrom().item(Map.entry(posting.accountId, balance));
+                    }
+                    return stripeRepository.foldIntoBalance(account.id)
+                            .onItem().transform(folded -> Map.entry(posting.accountId, balance.add(folded)));
+                })
+                .merge(SEQUENCE_CONCURRENCY)
+                .collect().asMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private static BigDecimal chargeable(BigDecimal totalFee, BigDecimal balance) {
+        return balance.signum() <= 0 ? BigDecimal.ZERO : totalFee.min(balance);
+    }
+
+    /**
+     * Cuentas de la lista que siguen sin el periodo cerrado (su escritura no se aplicó), releídas.
+     */
+    private Uni<List<Account>> findStillOpen(YearMonth period, List<Account> accounts) {
+        Bson filter = Filters.and(
+                Filters.in("_id", accounts.stream().map(account -> account.id).toList()),
+                Filters.ne("lastFeePeriod", period.toString()));
+        return accountRepository.mongoCollection().find(filter, new FindOptions().projection(ACCOUNT_FIELDS))
+                .collect().asList();
+    }
+
+    private List<WriteModel<Account>> buildUpdates(YearMonth period, List<Account> accounts, Map<String, FeePosting> postings,
+                                                   Map<String, BigDecimal> charges, Map<String, BigDecimal> balances,
+                                                   Map<String, AccountMovement> feeMovements, LocalDateTime now) {
+        List<WriteModel<Account>> updates = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            String accountId = account.id.toHexString();
+            FeePosting posting = postings.get(accountId);
+            AccountMovement fee = feeMovements.get(accountId);
+
+            // El filtro por periodo garantiza que una cuenta no se cobre dos veces.
+            Bson filter = Filters.and(Filters.eq("_id", account.id), Filters.ne("lastFeePeriod", period.toString()));
+            if (posting != null) {
+                BigDecimal charge = charges.get(accountId);
+                filter = charge.compareTo(posting.totalFee) == 0
+                        // Cargo completo: basta con que el saldo lo siga cubriendo.
+                        ? Filters.and(filter, Filters.gte("balance", new Decimal128(charge)))
+                        // Cargo limitado al saldo: solo vale si el saldo no cambió desde la lectura.
+                        : Filters.and(filter, Filters.eq("balance",
+                                account.balance != null ? new Decimal128(balances.get(accountId)) : null));
+            }
+
+            List<Bson> pipeline = new ArrayList<>();
+            Document close = new Document("lastFeePeriod", period.toString());
+            if (fee != null) {
+                // Solo las cuentas con cargo cambian de saldo: misma escritura que los cargos (integral del mes,
+                // lastBalanceChangeAt para el snapshot EOD y sequence del asiento).
+                pipeline.addAll(AccountRepository.withLedgerSequence(
+                        AccountRepository.balanceChangeUpdate(fee.amount, now), fee.sequence));
+            } else {
+                close.append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)));
+            }
+            pipeline.add(AccountRepository.closeTransactionCounter(period));
+            pipeline.add(new Document("$set", close));
+            updates.add(new UpdateOneModel<>(filter, pipeline));
+        }
+        return updates;
+    }
+
+    /**
+     * Asientos FEE preparados con el importe a descontar, por accountId: reutiliza los de un intento o una
+     * ejecución anterior (vueltos a preparar con el importe actual) y crea los que faltan con una sequence nueva.
+     * Un asiento anterior cuya cuenta ya no tiene importe que descontar se anula.
+     */
+    private Uni<Map<String, AccountMovement>> prepareFeeMovements(Map<String, FeePosting> postings,
+                                                                  Map<String, BigDecimal> charges, LocalDateTime now) {
+        return movementRepository.findByPostingIds(postings.values().stream().map(posting -> posting.id).toList())
+                .chain(existing -> {
+                    List<AccountMovement> reused = new ArrayList<>();
+                    List<ObjectId> withoutCharge = new ArrayList<>();
+                    existing.values().forEach(movement -> {
+                        BigDecimal charge = charges.get(movement.accountId);
+                        if (charge == null || charge.signum() == 0) {
+                            withoutCharge.add(movement.id);
+                        } else {
+                            movement.amount = charge.negate();
+                            reused.add(movement);
+                        }
+                    });
+                    List<FeePosting> missing = postings.values().stream()
+                            .filter(posting -> !existing.containsKey(posting.id))
+                            .filter(posting -> charges.getOrDefault(posting.accountId, BigDecimal.ZERO).signum() > 0)
+                            .toList();
+                    return Multi.createFrom().iterable(missing)
+                            .onItem().transformToUni(posting -> movementRepository.nextSequence(posting.accountId)
+                                    .onItem().transform(sequence -> feeMovement(posting, charges.get(posting.accountId), sequence, now)))
+                            .merge(SEQUENCE_CONCURRENCY)
+                            .collect().asList()
+                            .call(movementRepository::appendAll)
+                            .call(() -> movementRepository.prepareAgain(reused))
+                            .call(() -> withoutCharge.isEmpty()
+                                    ? Uni.createFrom().voidItem()
+                                    : movementRepository.markVoided(withoutCharge).replaceWithVoid())
+                            .onItem().transform(created -> {
+                                Map<String, AccountMovement> byAccount = new HashMap<>();
+                                reused.forEach(movement -> byAccount.put(movement.accountId, movement));
+                                created.forEach(movement -> byAccount.put(movement.accountId, movement));
+                                return byAccount;
+                            });
+                });
+    }
+
+    private AccountMovement feeMovement(FeePosting posting, BigDecimal charge, long sequence, LocalDateTime occurredAt) {
+        AccountMovement movement = new AccountMovement();
+        movement.id = new ObjectId();
+        movement.accountId = posting.accountId;
+        movement.customerId = posting.customerId;
+        movement.type = MovementType.FEE;
+        movement.amount = charge.negate();
+        movement.postingId = posting.id;
+        movement.sequence = sequence;
+        movement.projected = false;
+        movement.occurredAt = occurredAt;
+        return movement;
+    }
+
+    private static String postingId(Account account, YearMonth period) {
+        return account.id.toHexString() + ":" + period;
+    }
+
+    private FeePosting calculateFees(Account account, YearMonth period, LocalDateTime postedAt) {
+        int transactions = AccountRepository.transactionsIn(account, period);
+        int freeLimit = account.freeTransactionLimit != null ? account.freeTransactionLimit : 0;
+        int excessTransactions = Math.max(0, transactions - freeLimit);
+
+        BigDecimal transactionFeeAmount = account.transactionFeeAmount != null ? account.transactionFeeAmount : BigDecimal.ZERO;
+        BigDecimal maintenanceFee = account.maintenanceFeeAmount != null ? account.maintenanceFeeAmount : BigDecimal.ZERO;
+        BigDecimal transactionFee = transactionFeeAmount.multiply(BigDecimal.valueOf(excessTransactions));
+
+        FeePosting posting = new FeePosting();
+        posting.id = postingId(account, period);
+        posting.accountId = account.id.toHexString();
+        posting.customerId = account.customerId;
+        posting.period = period.toString();
+        posting.maintenanceFee = maintenanceFee;
+        posting.excessTransactions = excessTransactions;
+        posting.transactionFee = transactionFee;
+        posting.totalFee = maintenanceFee.add(transactionFee);
+        posting.postedAt = postedAt;
+        return posting;
+    }
+}
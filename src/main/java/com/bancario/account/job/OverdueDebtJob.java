@@ -0,0 +1,76 @@
+package com.bancario.account.job;
+
+import com.bancario.account.repository.AccountRepository;
+import com.bancario.account.service.impl.AccountReadCache;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job programado que mantiene la marca de deuda vencida (overdueSince / overdueAmount) de los créditos.
+ * * Al inicio de cada día limpia las marcas que dejaron de aplicar y marca, con un updateMany por cada
+ * día de pago ya pasado en el mes, los créditos con saldo utilizado. Así la validación de crearCuenta
+ * y los reportes de riesgo consultan un campo indexado en lugar de evaluar todos los créditos del cliente.
+ */
+@ApplicationScoped
+public class OverdueDebtJob {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueDebtJob.class);
+
+    private final AccountRepository accountRepository;
+    private final AccountReadCache accountReadCache;
+
+    @Inject
+    public OverdueDebtJob(AccountRepository accountRepository, AccountReadCache accountReadCache) {
+        this.accountRepository = accountRepository;
+        this.accountReadCache = accountReadCache;
+    }
+
+    /**
+     * Recalcula las marcas al arrancar: si el servicio estaba detenido a la hora del cron, las marcas del día
+     * no esperan a la ejecución del día siguiente. El recálculo es idempotente.
+     */
+    void onStart(@Observes StartupEvent event) {
+        runOverdueRefresh();
+    }
+
+    /**
+     * Recalcula las marcas de mora. Programado para ejecutarse todos los días a las 00:05 AM.
+     */
+    @Scheduled(cron = "{account-service.overdue.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void runOverdueRefresh() {
+        LocalDate today = LocalDate.now();
+        log.info("INICIO del recálculo de deuda vencida para la fecha: {}", today);
+
+        refreshOverdueFlags(today).subscribe().with(
+                marked -> log.info("Recálculo de deuda vencida finalizado. Cuentas marcadas/actualizadas: {}", marked),
+                failure -> log.error("Fallo en el recálculo de deuda vencida para la fecha {}", today, failure)
+        );
+    }
+
+    /**
+     * Limpia las marcas obsoletas y marca los créditos vencidos a la fecha indicada.
+     * @return Uni con el total de cuentas marcadas o actualizadas como vencidas.
+     */
+    public Uni<Long> refreshOverdueFlags(LocalDate today) {
+        int todayDay = today.getDayOfMonth();
+
+        return accountRepository.clearSettledOverdue(todayDay)
+                .onItem().invoke(cleared -> log.info("Marcas de mora retiradas: {}", cleared))
+                // Un updateMany por día de pago ya pasado, en secuencia, cada uno con su fecha de vencimiento.
+                .chain(() -> Multi.createFrom().range(1, todayDay)
+                        .onItem().transformToUniAndConcatenate(paymentDay -> accountRepository.markOverdueForPaymentDay(
+                                paymentDay, today.withDayOfMonth(paymentDay).plusDays(1)))
+                        .collect().with(Collectors.summingLong(Long::longValue)))
+                // Los updateMany no dicen qué cuentas cambiaron: se descartan todas las copias de respaldo.
+                .onTermination().invoke(accountReadCache::clear);
+    }
+}
@@ -0,0 +1,259 @@
+package com.bancario.account.job;
+
+import com.bancario.account.repository.BalanceSnapshotMonthlyRepository;
+import com.bancario.account.repository.BalanceSnapshotRepository;
+import com.bancario.account.repository.SnapshotArchiveRepository;
+import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.bancario.account.repository.entity.BalanceSnapshotMonthly;
+import com.bancario.account.repository.entity.SnapshotArchive;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Job programado de retención de balance_snapshots, ejecutado de forma incremental en lotes pequeños.
+ * * Compactación: los snapshots diarios de meses completos anteriores al horizonte configurado se agrupan
+ * en un resumen mensual por producto (balance_snapshots_monthly) que conserva el valor de cada día,
+ * y los diarios se eliminan. Las consultas de historial expanden esos resúmenes, por lo que el SPD no cambia.
+ * * Archivo: los resúmenes mensuales fuera de la ventana regulatoria se guardan comprimidos (gzip)
+ * en balance_snapshots_archive y dejan de participar en las consultas.
+ * * No se ejecuta dentro de la ventana de silencio alrededor del Job EOD de las 22:00.
+ */
+@ApplicationScoped
+public class SnapshotRetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotRetentionJob.class);
+    private static final String ARCHIVE_ENCODING = "gzip+extended-json";
+
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final BalanceSnapshotMonthlyRepository monthlyRepository;
+    private final SnapshotArchiveRepository archiveRepository;
+    private final int compactAfterDays;
+    private final int archiveAfterMonths;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final LocalTime quietWindowStart;
+    private final LocalTime quietWindowEnd;
+
+    @Inject
+    public SnapshotRetentionJob(BalanceSnapshotRepository snapshotRepository,
+                                BalanceSnapshotMonthlyRepository monthlyRepository,
+                                SnapshotArchiveRepository archiveRepository,
+                                @ConfigProperty(name = "account-service.retention.compact-after-days") int compactAfterDays,
+                                @ConfigProperty(name = "account-service.retention.archive-after-months") int archiveAfterMonths,
+                                @ConfigProperty(name = "account-service.retention.batch-size") int batchSize,
+                                @ConfigProperty(name = "account-service.retention.max-batches-per-run") int maxBatchesPerRun,
+                                @ConfigProperty(name = "account-service.retention.quiet-window-start") LocalTime quietWindowStart,
+                                @ConfigProperty(name = "account-service.retention.quiet-window-end") LocalTime quietWindowEnd) {
+        this.snapshotRepository = snapshotRepository;
+        this.monthlyRepository = monthlyRepository;
+        this.archiveRepository = archiveRepository;
+        this.compactAfterDays = compactAfterDays;
+        this.archiveAfterMonths = archiveAfterMonths;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.quietWindowStart = quietWindowStart;
+        this.quietWindowEnd = quietWindowEnd;
+    }
+
+    /**
+     * Procesa como máximo max-batches-per-run lotes de compactación y de archivo por ejecución.
+     */
+    @Scheduled(cron = "{account-service.retention.cron}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    public void runRetention() {
+        if (inQuietWindow()) {
+            log.debug("Retención de snapshots omitida: ventana de silencio del Job EOD.");
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        // Solo meses completos anteriores al horizonte, para que un mes no quede a medias entre diario y mensual.
+        LocalDate compactionCutoff = today.minusDays(compactAfterDays).withDayOfMonth(1);
+        LocalDate archiveCutoff = today.minusMonths(archiveAfterMonths).withDayOfMonth(1);
+
+        runBatches(maxBatchesPerRun, () -> compactNextBatch(compactionCutoff))
+                .chain(compacted -> runBatches(maxBatchesPerRun, () -> archiveNextBatch(archiveCutoff))
+                        .onItem().invoke(archived -> log.info(
+                                "Retención de snapshots: {} resúmenes mensuales generados, {} archivados.", compacted, archived)))
+                .subscribe().with(
+                        ignored -> { },
+                        failure -> log.error("Fallo en la retención de snapshots; se reanudará en la próxima ejecución.", failure)
+                );
+    }
+
+    /**
+     * Ejecuta lotes en secuencia hasta agotar el presupuesto, no quedar trabajo o entrar en la ventana de silencio.
+     */
+    private Uni<Integer> runBatches(int remaining, Supplier<Uni<Integer>> batch) {
+        if (remaining == 0 || inQuietWindow()) {
+            return Uni.createFrom().item(0);
+        }
+        return batch.get().chain(processed -> processed == 0
+                ? Uni.createFrom().item(0)
+                : runBatches(remaining - 1, batch).onItem().transform(rest -> processed + rest));
+    }
+
+    /**
+     * Compacta un lote de productos del mes más antiguo pendiente.
+     * Se fusiona con un resumen existente (compactación anterior interrumpida) antes de borrar los diarios,
+     * de modo que repetir un lote nunca pierde días.
+     * @return Número de resúmenes mensuales escritos (0 si no queda nada por compactar).
+     */
+    private Uni<Integer> compactNextBatch(LocalDate cutoff) {
+        return snapshotRepository.findOldestDateBefore(cutoff)
+                .onItem().ifNull().continueWith(LocalDate.MAX)
+                .chain(oldest -> {
+                    if (oldest.equals(LocalDate.MAX)) {
+                        return Uni.createFrom().item(0);
+                    }
+                    YearMonth month = YearMonth.from(oldest);
+                    LocalDate monthStart = month.atDay(1);
+                    LocalDate monthEnd = month.atEndOfMonth();
+
+                    return snapshotRepository.findProductIdsInRange(monthStart, monthEnd, batchSize)
+                            .chain(productIds -> productIds.isEmpty() ? Uni.createFrom().item(0) : Uni.combine().all().unis(
+                                            snapshotRepository.findByProductsAndDateRange(productIds, monthStart, monthEnd),
+                                            monthlyRepository.findByIds(productIds.stream().map(id -> monthlyId(id, month)).toList()))
+                                    .with((daily, existing) -> buildMonthlySummaries(month, daily, existing))
+                                    .chain(summaries -> monthlyRepository.persistOrUpdate(summaries)
+                                            .chain(() -> snapshotRepository.deleteByProductsAndDateRange(productIds, monthStart, monthEnd))
+                                            .onItem().transform(deleted -> {
+                                                log.debug("Compactado {}: {} productos, {} snapshots diarios.", month, summaries.size(), deleted);
+                                                return summaries.size();
+                                            })));
+                });
+    }
+
+    private List<BalanceSnapshotMonthly> buildMonthlySummaries(YearMonth month, List<BalanceSnapshot> daily,
+                                                              List<BalanceSnapshotMonthly> existing) {
+        Map<String, BalanceSnapshotMonthly> existingById = existing.stream()
+                .collect(Collectors.toMap(summary -> summary.id, Function.identity()));
+        Map<String, List<BalanceSnapshot>> dailyByProduct = daily.stream()
+                .collect(Collectors.groupingBy(snapshot -> snapshot.productId));
+
+        List<BalanceSnapshotMonthly> summaries = new ArrayList<>(dailyByProduct.size());
+        dailyByProduct.forEach((productId, snapshots) -> {
+            String id = monthlyId(productId, month);
+            BalanceSnapshotMonthly summary = existingById.getOrDefault(id, new BalanceSnapshotMonthly());
+
+            // Día -> [saldo, usado]; los días del resumen previo se conservan y los diarios los completan.
+            TreeMap<Integer, BigDecimal[]> values = new TreeMap<>();
+            if (summary.days != null) {
+                for (int i = 0; i < summary.days.size(); i++) {
+                    values.put(summary.days.get(i), new BigDecimal[]{summary.balanceEOD.get(i), summary.amountUsedEOD.get(i)});
+                }
+            }
+            snapshots.sort(Comparator.comparing(snapshot -> snapshot.date));
+            for (BalanceSnapshot snapshot : snapshots) {
+                values.put(snapshot.date.getDayOfMonth(), new BigDecimal[]{snapshot.balanceEOD, snapshot.amountUsedEOD});
+            }
+
+            BalanceSnapshot latest = snapshots.get(snapshots.size() - 1);
+            summary.id = id;
+            summary.customerId = latest.customerId;
+            summary.productId = productId;
+            summary.accountType = latest.accountType;
+            summary.productType = latest.productType;
+            summary.customerType = latest.customerType;
+            summary.month = month.toString();
+            summary.monthStart = month.atDay(1);
+            summary.days = new ArrayList<>(values.keySet());
+            summary.balanceEOD = values.values().stream().map(pair -> pair[0]).collect(Collectors.toCollection(ArrayList::new));
+            summary.amountUsedEOD = values.values().stream().map(pair -> pair[1]).collect(Collectors.toCollection(ArrayList::new));
+            summary.averageBalanceEOD = timeWeightedAverage(summary.days, summary.balanceEOD, month.lengthOfMonth());
+            summaries.add(summary);
+        });
+        return summaries;
+    }
+
+    /**
+     * Promedio del mes ponderado por días: los snapshots solo se escriben cuando el saldo cambia, así que cada
+     * valor cuenta hasta el siguiente día con snapshot (o hasta fin de mes).
+     */
+    private static BigDecimal timeWeightedAverage(List<Integer> days, List<BigDecimal> balances, int monthLength) {
+        BigDecimal weighted = BigDecimal.ZERO;
+        int totalDays = 0;
+        for (int i = 0; i < days.size(); i++) {
+            int held = (i + 1 < days.size() ? days.get(i + 1) : monthLength + 1) - days.get(i);
+            BigDecimal balance = balances.get(i) != null ? balances.get(i) : BigDecimal.ZERO;
+            weighted = weighted.add(balance.multiply(BigDecimal.valueOf(held)));
+            totalDays += held;
+        }
+        return weighted.divide(BigDecimal.valueOf(totalDays), 2, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Archiva comprimido un lote de resúmenes mensuales anteriores a la ventana regulatoria.
+     * El archivo se escribe (idempotente por ID) antes de borrar los resúmenes.
+     * @return Número de resúmenes archivados (0 si no queda nada por archivar).
+     */
+    private Uni<Integer> archiveNextBatch(LocalDate cutoff) {
+        return monthlyRepository.findDocumentsBefore(cutoff, batchSize)
+                .chain(documents -> {
+                    if (documents.isEmpty()) {
+                        return Uni.createFrom().item(0);
+                    }
+                    LocalDateTime now = LocalDateTime.now();
+                    List<SnapshotArchive> archives = documents.stream().map(document -> toArchive(document, now)).toList();
+                    List<String> ids = archives.stream().map(archive -> archive.id).toList();
+
+                    return archiveRepository.persistOrUpdate(archives)
+                            .chain(() -> monthlyRepository.deleteByIds(ids))
+                            .onItem().transform(deleted -> archives.size());
+                });
+    }
+
+    private SnapshotArchive toArchive(Document document, LocalDateTime archivedAt) {
+        SnapshotArchive archive = new SnapshotArchive();
+        archive.id = document.getString("_id");
+        archive.customerId = document.getString("customerId");
+        archive.productId = document.getString("productId");
+        archive.monthStart = LocalDate.parse(document.getString("month") + "-01");
+        archive.encoding = ARCHIVE_ENCODING;
+        archive.payload = gzip(document.toJson());
+        archive.archivedAt = archivedAt;
+        return archive;
+    }
+
+    private static byte[] gzip(String json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length() / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String monthlyId(String productId, YearMonth month) {
+        return productId + ":" + month;
+    }
+
+    private boolean inQuietWindow() {
+        LocalTime now = LocalTime.now();
+        return !now.isBefore(quietWindowStart) && now.isBefore(quietWindowEnd);
+    }
+}
@@ -1,8 +1,10 @@
 package com.bancario.account.mapper;
 
+import com.bancario.account.dto.AccountChangeEvent;
 import com.bancario.account.dto.AccountRequest;
 import com.bancario.account.dto.AccountResponse;
 import com.bancario.account.repository.entity.Account;
+import com.bancario.account.repository.entity.AccountChange;
 import org.bson.types.ObjectId;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -13,6 +15,7 @@ public interface AccountMapper {
 
     // --- Mapeo de Solicitud (Request) a Entidad (Entity) ---
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true) // La asigna el servicio al crear y cada escritura la incrementa
     @Mapping(target = "accountNumber", ignore = true)
     @Mapping(target = "openingDate", ignore = true)
     @Mapping(target = "status", ignore = true)
@@ -21,7 +24,19 @@ public interface AccountMapper {
     // 🔑 CORRECCIÓN: Permitir el mapeo de amountUsed desde el Request
     @Mapping(target = "amountUsed", source = "amountUsed")
 
-    @Mapping(target = "overdueAmount", ignore = true) // Inicialización en el servicio (siempre ZERO)
+    @Mapping(target = "overdueAmount", ignore = true) // Inicialización en el servicio
+    @Mapping(target = "overdueSince", ignore = true) // Lo calcula el servicio y lo mantiene el job de mora
+    @Mapping(target = "lastFeePeriod", ignore = true) // Lo mantiene el job de cierre de mes
+    @Mapping(target = "transactionCounterPeriod", ignore = true) // Lo mantienen el contador y el cierre de mes
+    @Mapping(target = "previousMonthTransactions", ignore = true)
+    @Mapping(target = "previousTransactionPeriod", ignore = true)
+    @Mapping(target = "balanceStripes", ignore = true) // Se activa con PUT /accounts/{id}/striping
+    @Mapping(target = "lastBalanceChangeAt", ignore = true) // Lo mantienen las escrituras de saldo
+    @Mapping(target = "balanceIntegralMonth", ignore = true) // Idem, en la misma escritura que el saldo
+    @Mapping(target = "integralPeriod", ignore = true)
+    @Mapping(target = "ledgerSequence", ignore = true) // Lo mantienen las escrituras de saldo con su asiento
+    @Mapping(target = "appliedSequences", ignore = true)
+    @Mapping(target = "customerType", ignore = true) // Se toma del customer-service al crear la cuenta
     @Mapping(target = "paymentDayOfMonth", source = "paymentDayOfMonth")
     @Mapping(target = "holders", source = "holders")
     @Mapping(target = "signatories", source = "signatories")
@@ -40,6 +55,12 @@ public interface AccountMapper {
     @Mapping(target = "monthlyMovements", source = "monthlyMovements")
     AccountResponse toResponse(Account account);
 
+    // --- Copia de la entidad (vista de la cuenta con los asientos pendientes, sin modificar la leída) ---
+    Account copy(Account account);
+
+    // --- Mapeo del evento persistido del feed de cambios a su DTO ---
+    AccountChangeEvent toChangeEvent(AccountChange change);
+
     // Método corregido con la anotación @Named
     @Named("mapObjectIdToString")
     default String mapObjectIdToString(ObjectId objectId) {
@@ -1,6 +1,8 @@
 package com.bancario.account.mapper;
 
+import com.bancario.account.dto.AccountComplianceResponse;
 import com.bancario.account.dto.DailyBalanceHistoryDto;
+import com.bancario.account.repository.entity.AccountCompliance;
 import com.bancario.account.repository.entity.BalanceSnapshot;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -26,4 +28,10 @@ public interface BalanceSnapshotMapper {
      * Permite mapear listas completas de entidades a listas de DTOs.
      */
     List<DailyBalanceHistoryDto> toDtoList(List<BalanceSnapshot> snapshots);
+
+    /**
+     * Mapea el resultado de cumplimiento de SPD (calculado a partir de los snapshots) a su DTO de respuesta.
+     */
+    @Mapping(target = "accountId", source = "id")
+    AccountComplianceResponse toComplianceResponse(AccountCompliance compliance);
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.AccountChange;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepository;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.List;
+
+/**
+ * Repositorio de la cola persistida del feed de cambios (colección con tope 'account_changes').
+ * * Todas las lecturas se limitan al espacio de offsets de una instancia.
+ */
+@ApplicationScoped
+public class AccountChangeRepository implements ReactivePanacheMongoRepository<AccountChange> {
+
+    private static final int NAMESPACE_EXISTS = 48;
+
+    /**
+     * Crea la colección con tope si no existe (MongoDB descarta los eventos más antiguos al superar el tamaño)
+     * y su índice único (instanceId, offset). El índice se crea aquí y no en MongoIndexInitializer:
+     * crearlo antes que la colección la crearía sin tope.
+     */
+    public Uni<Void> ensureCappedCollection(long maxBytes, long maxDocuments) {
+        return mongoDatabase().createCollection("account_changes", new CreateCollectionOptions()
+                        .capped(true)
+                        .sizeInBytes(maxBytes)
+                        .maxDocuments(maxDocuments))
+                .onFailure(failure -> failure instanceof MongoCommandException commandException
+                        && commandException.getErrorCode() == NAMESPACE_EXISTS)
+                .recoverWithNull()
+                .chain(() -> mongoCollection().createIndex(
+                        Indexes.ascending("instanceId", "offset"),
+                        new IndexOptions().name("ux_change_instance_offset").unique(true)))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Los últimos 'limit' eventos de la instancia, en orden de offset ascendente.
+     */
+    public Uni<List<AccountChange>> findLatest(String instanceId, int limit) {
+        return find("instanceId", Sort.descending("offset"), instanceId).page(0, limit).list()
+                .onItem().transform(changes -> changes.reversed());
+    }
+
+    /**
+     * Eventos de la instancia con offset mayor al indicado y hasta 'upTo' (inclusive), en orden de offset.
+     */
+    public Uni<List<AccountChange>> findRange(String instanceId, long afterOffset, long upTo) {
+        return list("instanceId = ?1 and offset > ?2 and offset <= ?3", Sort.ascending("offset"), instanceId, afterOffset, upTo);
+    }
+
+    /**
+     * Offset más antiguo conservado de la instancia (null si no tiene eventos).
+     */
+    public Uni<Long> findOldestOffset(String instanceId) {
+        return find("instanceId", Sort.ascending("offset"), instanceId).firstResult()
+                .onItem().ifNotNull().transform(change -> change.offset);
+    }
+}
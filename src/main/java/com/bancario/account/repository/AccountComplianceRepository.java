@@ -0,0 +1,13 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.AccountCompliance;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Repositorio de lectura de los resultados de cumplimiento de SPD (colección account_compliance).
+ * La colección la escribe la agregación de {@link BalanceSnapshotRepository#mergeMonthToDateCompliance}.
+ */
+@ApplicationScoped
+public class AccountComplianceRepository implements ReactivePanacheMongoRepositoryBase<AccountCompliance, String> {
+}
@@ -0,0 +1,232 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.AccountMovement;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepository;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Repositorio del libro de movimientos de saldo (colección de solo inserción 'account_movements').
+ * * La sequence de cada asiento se asigna con un contador por cuenta ('account_movement_sequences');
+ * el índice único (accountId, sequence) impide dos asientos con el mismo orden.
+ */
+@ApplicationScoped
+public class AccountMovementRepository implements ReactivePanacheMongoRepository<AccountMovement> {
+
+    /** Sequence del asiento de apertura: el contador de una cuenta nueva se inicializa con este valor. */
+    public static final long OPENING_SEQUENCE = 1L;
+
+    private static final String SEQUENCES_COLLECTION = "account_movement_sequences";
+
+    /**
+     * Siguiente sequence del libro de la cuenta (incremento atómico del contador, creado si no existe).
+     */
+    @WithSpan("AccountMovementRepository.nextSequence")
+    public Uni<Long> nextSequence(String accountId) {
+        return sequences().findOneAndUpdate(
+                        Filters.eq("_id", accountId),
+                        Updates.inc("sequence", 1L),
+                        new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER))
+                .onItem().transform(document -> document.getLong("sequence"))
+                // Dos upserts simultáneos sobre un contador nuevo: uno falla por clave duplicada y al reintentar lo encuentra.
+                .onFailure(failure -> failure instanceof MongoWriteException writeException
+                        && writeException.getError().getCategory() == ErrorCategory.DUPLICATE_KEY)
+                .retry().atMost(1);
+    }
+
+    /**
+     * Inicializa los contadores de cuentas nuevas con la sequence de apertura (altas masivas, una sola operación).
+     */
+    public Uni<Void> initSequences(Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<UpdateOneModel<Document>> upserts = accountIds.stream()
+                .map(accountId -> new UpdateOneModel<Document>(Filters.eq("_id", accountId),
+                        Updates.max("sequence", OPENING_SEQUENCE), new UpdateOptions().upsert(true)))
+                .toList();
+        return sequences().bulkWrite(upserts, new BulkWriteOptions().ordered(false)).replaceWithVoid();
+    }
+
+    /**
+     * Inserta los asientos de un lote (altas masivas) en una sola operación.
+     */
+    public Uni<Void> appendAll(List<AccountMovement> movements) {
+        if (movements.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return mongoCollection().insertMany(movements, new InsertManyOptions().ordered(false)).replaceWithVoid();
+    }
+
+    /**
+     * Asientos FEE ya registrados para los cargos indicados, por postingId (reanudación del cierre de mes).
+     */
+    public Uni<Map<String, AccountMovement>> findByPostingIds(Collection<String> postingIds) {
+        if (postingIds.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        return list("postingId in ?1", postingIds)
+                .onItem().transform(movements -> movements.stream()
+                        .collect(Collectors.toMap(movement -> movement.postingId, movement -> movement)));
+    }
+
+    /**
+     * Vuelve a preparar asientos (projected = false, sin anular) cuya escritura de saldo se va a reintentar
+     * con la misma sequence, con su importe actual; el resultado de la escritura los confirma y, si no llega,
+     * los resuelve el barrido.
+     */
+    public Uni<Void> prepareAgain(Collection<AccountMovement> movements) {
+        if (movements.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<UpdateOneModel<AccountMovement>> updates = movements.stream()
+                .map(movement -> new UpdateOneModel<AccountMovement>(Filters.eq("_id", movement.id), Updates.combine(
+                        Updates.set("amount", new Decimal128(movement.amount)),
+                        Updates.set("projected", false),
+                        Updates.set("voided", false))))
+                .toList();
+        return mongoCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false)).replaceWithVoid();
+    }
+
+    /**
+     * Asientos aún no reflejados en el documento Account (diferidos y preparados), del más antiguo al más reciente.
+     */
+    @WithSpan("AccountMovementRepository.findPending")
+    public Uni<List<AccountMovement>> findPending(int limit) {
+        return find("projected = ?1 and voided != ?2", Sort.ascending("occurredAt", "_id"), false, true)
+                .page(0, limit).list();
+    }
+
+    /**
+     * Asientos diferidos pendientes de una cuenta, en orden de sequence.
+     */
+    public Uni<List<AccountMovement>> findDeferredByAccount(String accountId) {
+        return list("accountId = ?1 and projected = ?2 and deferred = ?3", Sort.ascending("sequence"), accountId, false, true);
+    }
+
+    /**
+     * Indica si la cuenta tiene asientos diferidos pendientes de proyectar.
+     */
+    public Uni<Boolean> hasDeferred(String accountId) {
+        return count("accountId = ?1 and projected = ?2 and deferred = ?3", accountId, false, true)
+                .onItem().transform(count -> count > 0);
+    }
+
+    /**
+     * Último asiento diferido pendiente de cada cuenta indicada (las cuentas sin pendientes no aparecen).
+     */
+    public Uni<Map<String, AccountMovement>> findLatestDeferredByAccounts(Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        return list("accountId in ?1 and projected = ?2 and deferred = ?3", Sort.ascending("sequence"), accountIds, false, true)
+                .onItem().transform(pending -> pending.stream()
+                        .collect(Collectors.toMap(movement -> movement.accountId, movement -> movement, (earlier, later) -> later)));
+    }
+
+    /**
+     * Suma de los importes (abonos, cargos, comisiones) aplicados al documento de la cuenta con sequence en
+     * (after, through]: los confirmados y los preparados cuya sequence figura en applied. Un asiento preparado
+     * cuya escritura no llegó a hacerse no cuenta.
+     */
+    public Uni<BigDecimal> sumAmountsBetween(String accountId, long after, long through, Collection<Long> applied) {
+        if (through <= after) {
+            return Uni.createFrom().item(BigDecimal.ZERO);
+        }
+        Document query = new Document("accountId", accountId)
+                .append("sequence", new Document("$gt", after).append("$lte", through))
+                .append("deferred", new Document("$ne", true))
+                .append("voided", new Document("$ne", true))
+                .append("amount", new Document("$ne", null))
+                .append("$or", List.of(
+                        new Document("projected", true),
+                        new Document("sequence", new Document("$in", applied != null ? applied : List.of()))));
+        return find(query).list()
+                .onItem().transform(movements -> movements.stream()
+                        .map(movement -> movement.amount)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    /**
+     * Última ancla (asiento con saldo resultante) de la cuenta registrada hasta el instante indicado.
+     * Los asientos anulados y los preparados aún sin confirmar no cuentan.
+     */
+    @WithSpan("AccountMovementRepository.findLatestAnchor")
+    public Uni<AccountMovement> findLatestAnchor(String accountId, LocalDateTime instant) {
+        Document query = new Document("accountId", accountId)
+                .append("occurredAt", new Document("$lte", instant))
+                .append("balance", new Document("$ne", null))
+                .append("voided", new Document("$ne", true))
+                .append("$or", List.of(new Document("projected", true), new Document("deferred", true)));
+        return find(query, new Document("occurredAt", -1).append("_id", -1)).firstResult();
+    }
+
+    /**
+     * Importes confirmados (asientos sin saldo resultante) de la cuenta en el intervalo (after, until], en orden de registro.
+     */
+    @WithSpan("AccountMovementRepository.findAmountsBetween")
+    public Uni<List<AccountMovement>> findAmountsBetween(String accountId, LocalDateTime after, LocalDateTime until) {
+        Document query = new Document("accountId", accountId)
+                .append("occurredAt", new Document("$gt", after).append("$lte", until))
+                .append("balance", null)
+                .append("amount", new Document("$ne", null))
+                .append("projected", true)
+                .append("voided", new Document("$ne", true));
+        return find(query, new Document("occurredAt", 1).append("_id", 1)).list();
+    }
+
+    /**
+     * Confirma un asiento preparado: la escritura de saldo se aplicó. Completa el saldo resultante si se conoce.
+     */
+    public Uni<Void> confirm(AccountMovement movement) {
+        Document set = new Document("projected", true).append("customerId", movement.customerId);
+        if (movement.balance != null) {
+            set.append("balance", new Decimal128(movement.balance));
+        }
+        if (movement.amountUsed != null) {
+            set.append("amountUsed", new Decimal128(movement.amountUsed));
+        }
+        return mongoCollection().updateOne(Filters.eq("_id", movement.id), new Document("$set", set)).replaceWithVoid();
+    }
+
+    /**
+     * Marca como proyectados los asientos indicados.
+     */
+    public Uni<Long> markProjected(Collection<ObjectId> ids) {
+        return update("projected", true).where("_id in ?1", ids);
+    }
+
+    /**
+     * Anula los asientos indicados: su escritura de saldo no se aplicó (el libro conserva el documento).
+     */
+    public Uni<Long> markVoided(Collection<ObjectId> ids) {
+        return update("voided", true).where("_id in ?1", ids);
+    }
+
+    private ReactiveMongoCollection<Document> sequences() {
+        return mongoDatabase().getCollection(SEQUENCES_COLLECTION);
+    }
+}
@@ -0,0 +1,76 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.Account;
+import com.bancario.account.util.BatchCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Agrupador opcional de lecturas puntuales de cuentas por ID o por número.
+ * Las consultas concurrentes recibidas dentro de una ventana sub-milisegundo se resuelven con una
+ * sola consulta $in, reduciendo el costo por comando del driver de MongoDB en picos de lectura.
+ * Cuando no hay otras lecturas en curso, la consulta se envía directamente al repositorio.
+ */
+@ApplicationScoped
+public class AccountReadCoalescer {
+
+    @Inject
+    AccountRepository accountRepository;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "account-service.read-coalescer.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "account-service.read-coalescer.window-micros")
+    long windowMicros;
+
+    @ConfigProperty(name = "account-service.read-coalescer.max-size")
+    int maxBatchSize;
+
+    private BatchCoalescer<ObjectId, Account> byId;
+    private BatchCoalescer<String, Account> byNumber;
+
+    @PostConstruct
+    void init() {
+        byId = new BatchCoalescer<>("account-by-id",
+                ids -> accountRepository.findByIds(ids)
+                        .onItem().transform(accounts -> index(accounts, account -> account.id)),
+                id -> accountRepository.findById(id),
+                windowMicros, maxBatchSize, meterRegistry);
+        byNumber = new BatchCoalescer<>("account-by-number",
+                numbers -> accountRepository.findByAccountNumbers(numbers)
+                        .onItem().transform(accounts -> index(accounts, account -> account.accountNumber)),
+                accountRepository::findByAccountNumber,
+                windowMicros, maxBatchSize, meterRegistry);
+    }
+
+    /**
+     * Equivalente a AccountRepository.findById: emite null si la cuenta no existe.
+     */
+    public Uni<Account> findById(ObjectId id) {
+        return enabled ? byId.load(id) : accountRepository.findById(id);
+    }
+
+    /**
+     * Equivalente a AccountRepository.findByAccountNumber: emite null si la cuenta no existe.
+     */
+    public Uni<Account> findByAccountNumber(String accountNumber) {
+        return enabled ? byNumber.load(accountNumber) : accountRepository.findByAccountNumber(accountNumber);
+    }
+
+    private static <K> Map<K, Account> index(List<Account> accounts, Function<Account, K> key) {
+        return accounts.stream().collect(Collectors.toMap(key, Function.identity(), (first, second) -> first));
+    }
+}
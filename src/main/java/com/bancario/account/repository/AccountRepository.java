@@ -3,13 +3,34 @@ package com.bancario.account.repository;
 import com.bancario.account.enums.AccountStatus;
 import com.bancario.account.enums.AccountType;
 import com.bancario.account.enums.CreditType;
+import com.bancario.account.enums.CustomerType;
 import com.bancario.account.enums.ProductType;
 import com.bancario.account.repository.entity.Account;
+import com.bancario.account.util.Constants;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.mongodb.FindOptions;
 import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepository;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import org.bson.types.ObjectId;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @ApplicationScoped
@@ -21,6 +42,7 @@ public class AccountRepository implements ReactivePanacheMongoRepository<Account
      * * @param customerId El ID del cliente a verificar.
      * @return Uni<Boolean> que emitirá 'true' si encuentra una tarjeta activa, 'false' si no.
      */
+    @WithSpan("AccountRepository.hasActiveCreditCard")
     public Uni<Boolean> hasActiveCreditCard(String customerId) {
 
         // La consulta busca una cuenta que sea:
@@ -37,39 +59,255 @@ public class AccountRepository implements ReactivePanacheMongoRepository<Account
     }
 
     // --- Método 1: Contar Cuentas Pasivas por Tipo (Para clientes PERSONAL y VIP) ---
+    @WithSpan("AccountRepository.countAccountsByType")
     public Uni<Long> countAccountsByType(String customerId, AccountType type) {
         return find("customerId = ?1 and accountType = ?2", customerId, type)
                 .count();
     }
 
     // --- Método 2: Contar Productos Activos (Para la validación ACTIVE) ---
+    @WithSpan("AccountRepository.countActiveProducts")
     public Uni<Long> countActiveProducts(String customerId) {
         return find("customerId = ?1 and productType = ?2", customerId, ProductType.ACTIVE)
                 .count();
     }
 
     /**
-     * Incrementa atómicamente el contador mensual de transacciones.
-     * Utiliza el método 'update' de Panache con sintaxis String/JSON para la actualización.
+     * Abona atómicamente el importe en el saldo base y registra la sequence de su asiento.
+     * Devuelve la cuenta resultante o null si no existe.
      */
-    public Uni<Long> incrementMonthlyTransactionCounter(String id) {
+    @WithSpan("AccountRepository.incrementBalance")
+    public Uni<Account> incrementBalance(ObjectId id, BigDecimal amount, long ledgerSequence) {
+        return mongoCollection().findOneAndUpdate(
+                Filters.eq("_id", id),
+                withLedgerSequence(balanceChangeUpdate(amount, LocalDateTime.now()), ledgerSequence),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    /**
+     * Carga atómicamente el importe en el saldo base solo si lo cubre. Devuelve la cuenta resultante,
+     * o null si no existe o el saldo base es insuficiente.
+     */
+    @WithSpan("AccountRepository.decrementBalanceIfCovered")
+    public Uni<Account> decrementBalanceIfCovered(ObjectId id, BigDecimal amount, long ledgerSequence) {
+        return mongoCollection().findOneAndUpdate(
+                Filters.and(Filters.eq("_id", id), Filters.gte("balance", new Decimal128(amount))),
+                withLedgerSequence(balanceChangeUpdate(amount.negate(), LocalDateTime.now()), ledgerSequence),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    /**
+     * Actualización (pipeline) de un cambio relativo de saldo que, en la misma escritura atómica, acumula en
+     * balanceIntegralMonth el saldo anterior por los segundos que estuvo vigente en el mes (desde lastBalanceChangeAt,
+     * o desde el inicio del mes si la integral es de un mes anterior) y marca lastBalanceChangeAt.
+     * Misma regla que la escritura con versión de update-balance.
+     *
+     * @param delta Importe con signo que se suma al saldo.
+     * @param now Instante del cambio.
+     */
+    public static List<Bson> balanceChangeUpdate(BigDecimal delta, LocalDateTime now) {
+        LocalDateTime monthStart = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        String period = YearMonth.from(now).toString();
+        Document previousBalance = new Document("$ifNull", List.of("$balance", Decimal128.POSITIVE_ZERO));
+        Document heldSeconds = new Document("$dateDiff", new Document("startDate",
+                new Document("$ifNull", List.of("$lastBalanceChangeAt", monthStart)))
+                .append("endDate", now)
+                .append("unit", "second"));
+        Document integral = new Document("$cond", List.of(
+                new Document("$eq", List.of("$integralPeriod", period)),
+                new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$balanceIntegralMonth", Decimal128.POSITIVE_ZERO)),
+                        new Document("$multiply", List.of(previousBalance, heldSeconds)))),
+                // Primer cambio del mes: el saldo anterior estuvo vigente desde el inicio del mes.
+                new Document("$multiply", List.of(previousBalance, Duration.between(monthStart, now).getSeconds()))));
+
+        // Las expresiones de un mismo $set se evalúan sobre el documento previo: la integral usa el saldo anterior.
+        return List.of(new Document("$set", new Document("balanceIntegralMonth", integral)
+                .append("integralPeriod", period)
+                .append("lastBalanceChangeAt", now)
+                .append("balance", new Document("$add", List.of(previousBalance, new Decimal128(delta))))
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))));
+    }
+
+    /**
+     * Añade a la actualización (pipeline) el registro de la sequence del asiento: en ledgerSequence (nunca la reduce)
+     * y al final de appliedSequences (conservando las últimas LEDGER_APPLIED_WINDOW), en la misma escritura atómica.
+     */
+    public static List<Bson> withLedgerSequence(List<Bson> update, long ledgerSequence) {
+        List<Bson> stages = new ArrayList<>(update);
+        Document applied = new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$appliedSequences", List.of())), List.of(ledgerSequence)));
+        stages.add(new Document("$set", new Document("ledgerSequence",
+                new Document("$max", List.of(new Document("$ifNull", List.of("$ledgerSequence", 0L)), ledgerSequence)))
+                .append("appliedSequences", new Document("$slice", List.of(applied, -Constants.LEDGER_APPLIED_WINDOW)))));
+        return stages;
+    }
+
+    /**
+     * Misma regla que withLedgerSequence sobre la entidad, para las escrituras con control de versión.
+     */
+    public static void recordLedgerSequence(Account account, long ledgerSequence) {
+        account.ledgerSequence = Math.max(account.ledgerSequence != null ? account.ledgerSequence : 0L, ledgerSequence);
+        List<Long> applied = account.appliedSequences != null ? new ArrayList<>(account.appliedSequences) : new ArrayList<>();
+        applied.add(ledgerSequence);
+        account.appliedSequences = applied.size() > Constants.LEDGER_APPLIED_WINDOW
+                ? new ArrayList<>(applied.subList(applied.size() - Constants.LEDGER_APPLIED_WINDOW, applied.size()))
+                : applied;
+    }
+
+    /**
+     * Indica si la escritura de saldo del asiento se aplicó al documento (su sequence figura en appliedSequences).
+     */
+    public static boolean hasApplied(Account account, long ledgerSequence) {
+        return account.appliedSequences != null && account.appliedSequences.contains(ledgerSequence);
+    }
+
+    /**
+     * IDs de cliente (sin repetir) de las cuentas sin customerType: cuentas creadas antes de que se guardara al abrirlas.
+     */
+    public Multi<String> streamCustomerIdsWithoutCustomerType() {
+        return mongoCollection().distinct("customerId", Filters.eq("customerType", null), String.class);
+    }
+
+    public Uni<Long> countWithoutCustomerType() {
+        return mongoCollection().countDocuments(Filters.eq("customerType", null));
+    }
+
+    /**
+     * Asigna el tipo de cliente a sus cuentas que aún no lo tienen.
+     * @return Uni<Long> con el número de cuentas modificadas.
+     */
+    @WithSpan("AccountRepository.setMissingCustomerType")
+    public Uni<Long> setMissingCustomerType(String customerId, CustomerType customerType) {
+        return mongoCollection().updateMany(
+                        Filters.and(Filters.eq("customerId", customerId), Filters.eq("customerType", null)),
+                        Updates.set("customerType", customerType.name()))
+                .onItem().transform(UpdateResult::getModifiedCount);
+    }
+
+    /**
+     * Fija el número de slots de saldo distribuido. Devuelve la cuenta resultante o null si no existe.
+     */
+    public Uni<Account> setBalanceStripes(ObjectId id, int stripes) {
+        return mongoCollection().findOneAndUpdate(
+                Filters.eq("_id", id),
+                Updates.combine(Updates.set("balanceStripes", stripes), Updates.inc("version", 1L)),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER));
+    }
+
+    /**
+     * Incrementa atómicamente el contador mensual de transacciones del mes indicado. Si el contador es de un mes
+     * anterior, la misma escritura lo guarda como contador de ese mes (previousMonthTransactions) y empieza el del
+     * mes en curso: las transacciones del nuevo mes nunca se suman al mes pendiente de cierre.
+     * Devuelve el estado resultante (solo los campos que publica el feed de cambios) o null si la cuenta no existe.
+     */
+    @WithSpan("AccountRepository.incrementMonthlyTransactionCounter")
+    public Uni<Account> incrementMonthlyTransactionCounter(String id, YearMonth period) {
+        String current = period.toString();
+        // Sin periodo (contadores anteriores al campo), el contador se considera del mes en curso.
+        Document samePeriod = counterPeriodIs(current, current);
+        Document currentCount = new Document("$ifNull", List.of("$currentMonthlyTransactions", 0));
+        Document rollover = new Document("$set", new Document("previousMonthTransactions",
+                new Document("$cond", List.of(samePeriod, "$previousMonthTransactions", currentCount)))
+                .append("previousTransactionPeriod",
+                        new Document("$cond", List.of(samePeriod, "$previousTransactionPeriod", "$transactionCounterPeriod")))
+                .append("currentMonthlyTransactions",
+                        new Document("$cond", List.of(samePeriod, new Document("$add", List.of(currentCount, 1)), 1)))
+                .append("transactionCounterPeriod", current)
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L))));
+        return mongoCollection().findOneAndUpdate(
+                Filters.eq("_id", new ObjectId(id)),
+                List.of(rollover),
+                new FindOneAndUpdateOptions()
+                        .returnDocument(ReturnDocument.AFTER)
+                        .projection(Projections.include("customerId", "balance", "amountUsed", "currentMonthlyTransactions", "version")));
+    }
+
+    /**
+     * Etapa ($set) del cierre de un mes sobre el contador de transacciones: si el contador es de ese mes (o no tiene
+     * periodo), pasa a previousMonthTransactions y el contador empieza en cero para el mes siguiente. Si un
+     * incremento del mes siguiente ya hizo el cambio, el contador no se toca.
+     */
+    public static Bson closeTransactionCounter(YearMonth period) {
+        String closed = period.toString();
+        Document samePeriod = counterPeriodIs(closed, closed);
+        return new Document("$set", new Document("previousMonthTransactions", new Document("$cond", List.of(samePeriod,
+                        new Document("$ifNull", List.of("$currentMonthlyTransactions", 0)), "$previousMonthTransactions")))
+                .append("previousTransactionPeriod",
+                        new Document("$cond", List.of(samePeriod, closed, "$previousTransactionPeriod")))
+                .append("currentMonthlyTransactions",
+                        new Document("$cond", List.of(samePeriod, 0, "$currentMonthlyTransactions")))
+                .append("transactionCounterPeriod",
+                        new Document("$cond", List.of(samePeriod, period.plusMonths(1).toString(), "$transactionCounterPeriod"))));
+    }
+
+    /**
+     * Transacciones de la cuenta en el mes indicado, según el periodo de sus contadores.
+     * Un contador sin periodo (anterior al campo) se atribuye al mes indicado.
+     */
+    public static int transactionsIn(Account account, YearMonth period) {
+        String month = period.toString();
+        if (account.transactionCounterPeriod == null || account.transactionCounterPeriod.equals(month)) {
+            return account.currentMonthlyTransactions != null ? account.currentMonthlyTransactions : 0;
+        }
+        if (month.equals(account.previousTransactionPeriod)) {
+            return account.previousMonthTransactions != null ? account.previousMonthTransactions : 0;
+        }
+        return 0;
+    }
+
+    private static Document counterPeriodIs(String period, String whenMissing) {
+        return new Document("$eq", List.of(new Document("$ifNull", List.of("$transactionCounterPeriod", whenMissing)), period));
+    }
 
-        ObjectId objectId = new ObjectId(id);
+    /**
+     * Reemplaza la cuenta solo si su versión no cambió desde que se leyó, incrementando la versión.
+     * @param account Cuenta leída y modificada (con la versión leída).
+     * @return Uni<Boolean> con true si se aplicó; false si otra escritura se adelantó.
+     */
+    @WithSpan("AccountRepository.replaceIfVersion")
+    public Uni<Boolean> replaceIfVersion(Account account) {
+        Long expectedVersion = account.version;
+        // Las cuentas anteriores al versionado no tienen el campo: eq(null) también las encuentra.
+        Bson filter = Filters.and(Filters.eq("_id", account.id), Filters.eq("version", expectedVersion));
+        account.version = (expectedVersion != null ? expectedVersion : 0L) + 1;
 
-        // 1. Comando de actualización atómica ($inc) como String.
-        String updateCommandString = "{$inc: {currentMonthlyTransactions: 1}}";
+        return mongoCollection().replaceOne(filter, account)
+                .onItem().transform(result -> {
+                    if (result.getMatchedCount() == 0) {
+                        account.version = expectedVersion;
+                        return false;
+                    }
+                    return true;
+                });
+    }
 
-        // 2. Llamada a update() con el comando y el parámetro de filtro implícito (por ID).
-        // 3. .all() finaliza la operación y la convierte a Uni<Long>.
-        return update(
-                updateCommandString,
-                objectId
-        ).all();
+    /**
+     * Consulta solo la versión de la cuenta (proyección sobre _id, sin decodificar la entidad).
+     * Con saldo distribuido la versión no identifica el saldo (los abonos a slots no la incrementan): se devuelve null.
+     * @return Uni<Long> con la versión (0 para cuentas sin versionar), o null si la cuenta no existe o tiene slots.
+     */
+    @WithSpan("AccountRepository.findVersion")
+    public Uni<Long> findVersion(ObjectId id) {
+        FindOptions options = new FindOptions()
+                .projection(Projections.include("version", "balanceStripes"))
+                .limit(1);
+        return mongoCollection().find(Filters.eq("_id", id), Document.class, options)
+                .collect().first()
+                .onItem().ifNotNull().transform(document -> {
+                    Number stripes = document.get("balanceStripes", Number.class);
+                    if (stripes != null && stripes.intValue() > 0) {
+                        return null;
+                    }
+                    Number version = document.get("version", Number.class);
+                    return version != null ? version.longValue() : 0L;
+                });
     }
 
     /**
      * Busca una cuenta por su número de cuenta.
      */
+    @WithSpan("AccountRepository.findByAccountNumber")
     public Uni<Account> findByAccountNumber(String accountNumber) {
         // Usamos el método Panache find para buscar por el campo 'accountNumber'
         return find("accountNumber", accountNumber)
@@ -77,14 +315,92 @@ public class AccountRepository implements ReactivePanacheMongoRepository<Account
     }
 
     /**
-     * Busca todas las cuentas de crédito (ACTIVE) de un cliente específico.
-     * Esta es la base para la validación JIT de deuda vencida en el servicio.
+     * Busca varias cuentas por sus IDs con una sola consulta $in.
+     * Las cuentas inexistentes simplemente no aparecen en el resultado.
+     */
+    @WithSpan("AccountRepository.findByIds")
+    public Uni<List<Account>> findByIds(Collection<ObjectId> ids) {
+        return list("_id in ?1", ids);
+    }
+
+    /**
+     * Busca varias cuentas por sus números de cuenta con una sola consulta $in.
+     */
+    @WithSpan("AccountRepository.findByAccountNumbers")
+    public Uni<List<Account>> findByAccountNumbers(Collection<String> accountNumbers) {
+        return list("accountNumber in ?1", accountNumbers);
+    }
+
+    /**
+     * Cuentas cuyo balance / amountUsed cambió desde el instante indicado (índice por lastBalanceChangeAt),
+     * más las que tienen saldo distribuido: sus abonos en slots no escriben el documento de la cuenta.
+     */
+    @WithSpan("AccountRepository.findBalanceChangedSince")
+    public Uni<List<Account>> findBalanceChangedSince(LocalDateTime since) {
+        return mongoCollection().find(Filters.or(
+                        Filters.gte("lastBalanceChangeAt", since),
+                        Filters.gte("balanceStripes", 0)))
+                .collect().asList();
+    }
+
+    /**
+     * Busca un producto de crédito del cliente marcado con deuda vencida (overdueSince).
+     * Usa el índice {customerId, overdueSince}: para un cliente al día no devuelve documentos.
+     * El filtro por día de pago descarta marcas que el job diario aún no haya limpiado (ej. al cambiar de mes).
      * @param customerId El ID del cliente.
-     * @return Uni<List<Account>> que emite una lista de cuentas activas.
+     * @param todayDay Día del mes actual.
+     * @return Uni<Account> con la cuenta vencida, o null si el cliente está al día.
      */
-    public Uni<List<Account>> findActiveAccountsByCustomerId(String customerId) {
-        // La consulta busca todas las cuentas asociadas al cliente con tipo de producto ACTIVE.
-        return find("customerId = ?1 and productType = ?2", customerId, ProductType.ACTIVE)
-                .list();
+    @WithSpan("AccountRepository.findFirstOverdueAccount")
+    public Uni<Account> findFirstOverdueAccount(String customerId, int todayDay) {
+        return find("{customerId: ?1, overdueSince: {$ne: null}, paymentDayOfMonth: {$lt: ?2}}", customerId, todayDay)
+                .firstResult();
+    }
+
+    /**
+     * Marca como vencidos los créditos con saldo utilizado cuyo día de pago es el indicado.
+     * Conserva la fecha de una marca previa y refresca el monto vencido con el amountUsed actual.
+     * @param paymentDay Día de pago (ya pasado en el mes actual).
+     * @param overdueSince Fecha desde la que la deuda se considera vencida.
+     * @return Uni<Long> con el número de cuentas modificadas.
+     */
+    @WithSpan("AccountRepository.markOverdueForPaymentDay")
+    public Uni<Long> markOverdueForPaymentDay(int paymentDay, LocalDate overdueSince) {
+        Bson filter = Filters.and(
+                Filters.eq("productType", ProductType.ACTIVE.name()),
+                Filters.eq("paymentDayOfMonth", paymentDay),
+                Filters.gt("amountUsed", Decimal128.POSITIVE_ZERO),
+                // Solo las cuentas cuya marca cambia: así la versión (ETag) no se invalida a diario sin motivo.
+                Filters.or(
+                        Filters.eq("overdueSince", null),
+                        Filters.expr(new Document("$ne", List.of("$overdueAmount", "$amountUsed")))));
+        List<Bson> update = List.of(new Document("$set", new Document()
+                .append("overdueSince", new Document("$ifNull", List.of("$overdueSince", overdueSince)))
+                .append("overdueAmount", "$amountUsed")
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))));
+
+        return mongoCollection().updateMany(filter, update)
+                .onItem().transform(UpdateResult::getModifiedCount);
+    }
+
+    /**
+     * Limpia la marca de deuda vencida de los créditos que ya no están vencidos:
+     * su día de pago aún no ha pasado en el mes actual, o no tienen saldo utilizado.
+     * @param todayDay Día del mes actual.
+     * @return Uni<Long> con el número de cuentas modificadas.
+     */
+    @WithSpan("AccountRepository.clearSettledOverdue")
+    public Uni<Long> clearSettledOverdue(int todayDay) {
+        Bson filter = Filters.and(
+                Filters.ne("overdueSince", null),
+                Filters.or(
+                        Filters.gte("paymentDayOfMonth", todayDay),
+                        Filters.lte("amountUsed", Decimal128.POSITIVE_ZERO)));
+
+        return mongoCollection().updateMany(filter, Updates.combine(
+                        Updates.set("overdueSince", null),
+                        Updates.set("overdueAmount", Decimal128.POSITIVE_ZERO),
+                        Updates.inc("version", 1L)))
+                .onItem().transform(UpdateResult::getModifiedCount);
     }
 }
@@ -0,0 +1,156 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.bancario.account.repository.entity.BalanceSnapshotMonthly;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio de los resúmenes mensuales compactados de snapshots (colección balance_snapshots_monthly).
+ */
+@ApplicationScoped
+public class BalanceSnapshotMonthlyRepository implements ReactivePanacheMongoRepositoryBase<BalanceSnapshotMonthly, String> {
+
+    /**
+     * Busca los resúmenes mensuales de un cliente que se solapan con el rango y los expande a snapshots
+     * diarios dentro del rango, para combinarlos con los snapshots diarios aún no compactados.
+     */
+    @WithSpan("BalanceSnapshotMonthlyRepository.findDailyByCustomerAndDateRange")
+    public Uni<List<BalanceSnapshot>> findDailyByCustomerAndDateRange(String customerId, LocalDate startDate, LocalDate endDate) {
+        return list("customerId = ?1 and monthStart >= ?2 and monthStart <= ?3",
+                customerId, startDate.withDayOfMonth(1), endDate)
+                .onItem().transform(months -> {
+                    List<BalanceSnapshot> snapshots = new ArrayList<>();
+                    for (BalanceSnapshotMonthly month : months) {
+                        snapshots.addAll(toDailySnapshots(month, startDate, endDate));
+                    }
+                    return snapshots;
+                });
+    }
+
+    /**
+     * Expande en snapshots diarios todos los resúmenes compactados del mes (reconstrucción del almacén columnar).
+     */
+    public Multi<BalanceSnapshot> streamDailyByMonth(LocalDate monthStart) {
+        return find("monthStart", monthStart).stream()
+                .onItem().transformToIterable(month -> toDailySnapshots(month, monthStart, monthStart.plusMonths(1).minusDays(1)));
+    }
+
+    private List<BalanceSnapshot> toDailySnapshots(BalanceSnapshotMonthly month, LocalDate startDate, LocalDate endDate) {
+        List<BalanceSnapshot> snapshots = new ArrayList<>(month.days.size());
+        for (int i = 0; i < month.days.size(); i++) {
+            LocalDate date = month.monthStart.withDayOfMonth(month.days.get(i));
+            if (!date.isBefore(startDate) && !date.isAfter(endDate)) {
+                snapshots.add(toDailySnapshot(month, i, date));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Recorre con un cursor los resúmenes del mes y los expande a filas diarias dentro de [startDate, endDate],
+     * como documentos BSON planos con los campos de balance_snapshots (exportación masiva).
+     * * Con fillThrough, los días sin cambios de cada producto hasta esa fecha se rellenan con su último valor.
+     *
+     * @param productType Filtro opcional por tipo de producto; null para todos.
+     * @param fillThrough Último día que se rellena; null para emitir solo los días almacenados.
+     */
+    public Multi<Document> streamDailyDocuments(LocalDate monthStart, LocalDate startDate, LocalDate endDate,
+                                                String productType, int batchSize, LocalDate fillThrough) {
+        Bson filter = Filters.eq("monthStart", monthStart);
+        if (productType != null) {
+            filter = Filters.and(filter, Filters.eq("productType", productType));
+        }
+        FindOptions options = new FindOptions().batchSize(batchSize);
+        return mongoCollection().find(filter, Document.class, options)
+                .onItem().transformToIterable(month -> toDailyDocuments(month, monthStart, startDate, endDate, fillThrough));
+    }
+
+    private List<Document> toDailyDocuments(Document month, LocalDate monthStart, LocalDate startDate, LocalDate endDate,
+                                            LocalDate fillThrough) {
+        List<Integer> days = month.getList("days", Integer.class);
+        List<Object> balances = month.getList("balanceEOD", Object.class);
+        List<Object> amountsUsed = month.getList("amountUsedEOD", Object.class);
+        // El resumen es de un único producto: se rellena recorriendo sus días desde el inicio del mes.
+        DailyDocumentFiller filler = fillThrough == null ? null : new DailyDocumentFiller(startDate, fillThrough);
+        List<Document> rows = new ArrayList<>(days.size());
+        for (int i = 0; i < days.size(); i++) {
+            LocalDate date = monthStart.withDayOfMonth(days.get(i));
+            if (date.isAfter(endDate) || (filler == null && date.isBefore(startDate))) {
+                continue;
+            }
+            Document row = new Document("date", date)
+                    .append("customerId", month.get("customerId"))
+                    .append("productId", month.get("productId"))
+                    .append("productType", month.get("productType"))
+                    .append("accountType", month.get("accountType"))
+                    .append("balanceEOD", balances.get(i))
+                    .append("amountUsedEOD", amountsUsed.get(i));
+            if (filler == null) {
+                rows.add(row);
+            } else {
+                rows.addAll(filler.accept(row));
+            }
+        }
+        if (filler != null) {
+            rows.addAll(filler.finish());
+        }
+        return rows;
+    }
+
+    // --- Lecturas de la retención (primario: lo leído se fusiona o se archiva y después se borra) ---
+
+    /**
+     * Resúmenes existentes por ID (para fusionarlos si una compactación anterior quedó a medias).
+     */
+    public Uni<List<BalanceSnapshotMonthly>> findByIds(Collection<String> ids) {
+        return primary().find(Filters.in("_id", ids)).collect().asList();
+    }
+
+    /**
+     * Resúmenes (como documentos BSON sin mapear) de meses anteriores al corte, en orden de mes, para archivarlos.
+     */
+    public Uni<List<Document>> findDocumentsBefore(LocalDate cutoff, int limit) {
+        FindOptions options = new FindOptions()
+                .sort(Sorts.ascending("monthStart"))
+                .limit(limit);
+        return primary().find(Filters.lt("monthStart", cutoff), Document.class, options)
+                .collect().asList();
+    }
+
+    private ReactiveMongoCollection<BalanceSnapshotMonthly> primary() {
+        return mongoCollection().withReadPreference(ReadPreference.primary());
+    }
+
+    public Uni<Long> deleteByIds(Collection<String> ids) {
+        return delete("_id in ?1", ids);
+    }
+
+    private BalanceSnapshot toDailySnapshot(BalanceSnapshotMonthly month, int index, LocalDate date) {
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.customerId = month.customerId;
+        snapshot.productId = month.productId;
+        snapshot.accountType = month.accountType;
+        snapshot.productType = month.productType;
+        snapshot.customerType = month.customerType;
+        snapshot.date = date;
+        snapshot.balanceEOD = month.balanceEOD.get(index);
+        snapshot.amountUsedEOD = month.amountUsedEOD.get(index);
+        return snapshot;
+    }
+}
@@ -1,20 +1,50 @@
 package com.bancario.account.repository;
 
+import com.bancario.account.enums.CustomerType;
+import com.bancario.account.enums.ProductType;
 import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.mongodb.ReadPreference;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
 import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepository;
+import io.quarkus.panache.common.Sort;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.WindowOutputFields;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Repositorio dedicado exclusivamente a la consulta y persistencia de las fotos del saldo
  * al final del día (BalanceSnapshot), que son la fuente de datos para los reportes analíticos.
  * Sigue el Principio de Responsabilidad Única (SRP) al manejar una colección separada.
+ * Las consultas de historial combinan los snapshots diarios con los meses ya compactados por la retención.
  */
 @ApplicationScoped
 public class BalanceSnapshotRepository implements ReactivePanacheMongoRepository<BalanceSnapshot> {
 
+    @Inject
+    BalanceSnapshotMonthlyRepository monthlyRepository;
+
     /**
      * Busca asíncronamente todos los snapshots de saldo (EOD) para los productos
      * de un cliente dentro de un rango de fechas específico.
@@ -24,16 +54,220 @@ public class BalanceSnapshotRepository implements ReactivePanacheMongoRepository
      * @param endDate La fecha de fin del rango (inclusiva).
      * @return Uni que emitirá una lista de la entidad BalanceSnapshot con los datos de historial.
      */
+    @WithSpan("BalanceSnapshotRepository.findByCustomerAndDateRange")
     public Uni<List<BalanceSnapshot>> findByCustomerAndDateRange(
             String customerId,
             LocalDate startDate,
             LocalDate endDate
     ) {
         // Consulta Panache usando la sintaxis de campo de Mongo.
-        // Se ordena por fecha ascendente para facilitar el procesamiento posterior en el servicio.
-        String query = "customerId = ?1 and date >= ?2 and date <= ?3 order by date asc";
+        String query = "customerId = ?1 and date >= ?2 and date <= ?3";
+
+        // Los días de meses compactados se expanden desde el resumen mensual, así el SPD es el mismo
+        // que con los snapshots diarios originales.
+        return Uni.combine().all().unis(
+                        find(query, customerId, startDate, endDate).list(),
+                        monthlyRepository.findDailyByCustomerAndDateRange(customerId, startDate, endDate))
+                .with((daily, compacted) -> {
+                    List<BalanceSnapshot> snapshots = new ArrayList<>(daily.size() + compacted.size());
+                    snapshots.addAll(compacted);
+                    snapshots.addAll(daily);
+                    // Se ordena por fecha ascendente para facilitar el procesamiento posterior en el servicio.
+                    snapshots.sort(Comparator.comparing(snapshot -> snapshot.date));
+                    return snapshots;
+                });
+    }
+
+    /**
+     * Snapshot diario más reciente de un producto tomado hasta el instante indicado (índice productId + takenAt).
+     * Los snapshots ya compactados por la retención no tienen takenAt y no participan.
+     */
+    @WithSpan("BalanceSnapshotRepository.findLatestTakenAtOrBefore")
+    public Uni<BalanceSnapshot> findLatestTakenAtOrBefore(String productId, LocalDateTime instant) {
+        return find("productId = ?1 and takenAt <= ?2", Sort.descending("takenAt"), productId, instant)
+                .firstResult();
+    }
+
+    /**
+     * Recorre con un cursor los snapshots diarios del rango (reconstrucción del almacén columnar).
+     */
+    public Multi<BalanceSnapshot> streamEntitiesByDateRange(LocalDate startDate, LocalDate endDate) {
+        return find("date >= ?1 and date <= ?2", startDate, endDate).stream();
+    }
+
+    // --- Lecturas de la retención ---
+    // El cliente analytics lee de secundarios con un retraso tolerado: la retención borra lo que lee,
+    // así que lee del primario para no compactar (y borrar) una vista desactualizada.
+
+    /**
+     * Fecha del snapshot diario más antiguo anterior al corte (null si no hay ninguno), para la retención.
+     */
+    public Uni<LocalDate> findOldestDateBefore(LocalDate cutoff) {
+        FindOptions options = new FindOptions().sort(Sorts.ascending("date")).limit(1);
+        return primary().find(Filters.lt("date", cutoff), options)
+                .collect().first()
+                .onItem().ifNotNull().transform(snapshot -> snapshot.date);
+    }
+
+    /**
+     * Hasta 'limit' productos distintos con snapshots diarios en el rango, para compactarlos por lotes.
+     */
+    public Uni<List<String>> findProductIdsInRange(LocalDate startDate, LocalDate endDate, int limit) {
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.and(Filters.gte("date", startDate), Filters.lte("date", endDate))),
+                Aggregates.group("$productId"),
+                Aggregates.limit(limit));
+        return primary().aggregate(pipeline, Document.class)
+                .map(document -> document.getString("_id"))
+                .collect().asList();
+    }
+
+    public Uni<List<BalanceSnapshot>> findByProductsAndDateRange(Collection<String> productIds, LocalDate startDate, LocalDate endDate) {
+        return primary().find(Filters.and(
+                        Filters.in("productId", productIds),
+                        Filters.gte("date", startDate),
+                        Filters.lte("date", endDate)))
+                .collect().asList();
+    }
+
+    private ReactiveMongoCollection<BalanceSnapshot> primary() {
+        return mongoCollection().withReadPreference(ReadPreference.primary());
+    }
+
+    /**
+     * Borra los snapshots de un día (reintento del Job EOD tras una persistencia parcial).
+     */
+    public Uni<Long> deleteByDate(LocalDate date) {
+        return delete("date", date);
+    }
+
+    public Uni<Long> deleteByProductsAndDateRange(Collection<String> productIds, LocalDate startDate, LocalDate endDate) {
+        return delete("productId in ?1 and date >= ?2 and date <= ?3", productIds, startDate, endDate);
+    }
+
+    /**
+     * Recorre con cursores de MongoDB todos los snapshots de un rango de fechas, mes a mes, como documentos BSON
+     * planos (sin mapear a la entidad) para la exportación masiva.
+     * * De cada mes se emiten primero los días de los resúmenes compactados por la retención (por producto) y después
+     * los snapshots diarios (en orden de fecha); así un rango anterior al horizonte de compactación no queda vacío.
+     * * Con fillThrough, cada mes se lee desde el día 1 (el Job EOD escribe un snapshot completo al inicio de mes) y
+     * los días sin snapshot hasta fillThrough se rellenan con el último valor del producto; solo se retienen en
+     * memoria los productos del mes en curso.
+     *
+     * @param startDate La fecha de inicio del rango (inclusiva).
+     * @param endDate La fecha de fin del rango (inclusiva).
+     * @param productType Filtro opcional por tipo de producto ("PASSIVE" / "ACTIVE"); null para todos.
+     * @param batchSize Documentos por cada lote del cursor.
+     * @param fillThrough Último día que se rellena (normalmente el último EOD cerrado); null para emitir solo los
+     *                    snapshots almacenados.
+     * @return Multi que emite los documentos a medida que llegan del cursor.
+     */
+    public Multi<Document> streamByDateRange(LocalDate startDate, LocalDate endDate, String productType, int batchSize,
+                                             LocalDate fillThrough) {
+        List<Multi<Document>> months = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(startDate); !month.isAfter(YearMonth.from(endDate)); month = month.plusMonths(1)) {
+            LocalDate from = month.atDay(1).isBefore(startDate) ? startDate : month.atDay(1);
+            LocalDate to = month.atEndOfMonth().isAfter(endDate) ? endDate : month.atEndOfMonth();
+            if (fillThrough == null) {
+                months.add(Multi.createBy().concatenating().streams(
+                        monthlyRepository.streamDailyDocuments(month.atDay(1), from, to, productType, batchSize, null),
+                        streamDailyDocuments(from, to, productType, batchSize)));
+                continue;
+            }
+            LocalDate monthStart = month.atDay(1);
+            LocalDate monthFill = fillThrough.isBefore(to) ? fillThrough : to;
+            // Un relleno nuevo por suscripción: el estado no se comparte entre exportaciones ni reintentos.
+            Multi<Document> daily = Multi.createFrom().deferred(() -> {
+                DailyDocumentFiller filler = new DailyDocumentFiller(from, monthFill);
+                return Multi.createBy().concatenating().streams(
+                        streamDailyDocuments(monthStart, to, productType, batchSize)
+                                .onItem().transformToIterable(filler::accept),
+                        Multi.createFrom().items(() -> filler.finish().stream()));
+            });
+            months.add(Multi.createBy().concatenating().streams(
+                    monthlyRepository.streamDailyDocuments(monthStart, from, to, productType, batchSize, monthFill),
+                    daily));
+        }
+        return Multi.createBy().concatenating().streams(months);
+    }
+
+    private Multi<Document> streamDailyDocuments(LocalDate startDate, LocalDate endDate, String productType, int batchSize) {
+        Bson filter = Filters.and(Filters.gte("date", startDate), Filters.lte("date", endDate));
+        if (productType != null) {
+            filter = Filters.and(filter, Filters.eq("productType", productType));
+        }
+        FindOptions options = new FindOptions()
+                .projection(Projections.excludeId())
+                .sort(Sorts.ascending("date", "takenAt"))
+                .batchSize(batchSize);
+
+        return mongoCollection().find(filter, Document.class, options);
+    }
+
+    /**
+     * Calcula en una sola agregación el Saldo Promedio Diario (SPD) del mes en curso de todas las cuentas
+     * pasivas VIP/PYME y escribe el resultado en la colección account_compliance ($merge, un documento por cuenta).
+     * * El coste crece con el volumen de snapshots del mes, no con el número de clientes: no hay una consulta
+     * por cuenta, y el requisito de cada cuenta se obtiene con un $lookup por _id.
+     * * Los snapshots solo se escriben cuando el saldo cambia (más uno completo al inicio de mes): cada valor
+     * pondera los días que estuvo vigente, hasta el siguiente snapshot del producto o hasta asOfDate inclusive.
+     *
+     * @param monthStart Primer día del mes evaluado.
+     * @param asOfDate Último día incluido en el promedio (normalmente la fecha del último EOD).
+     * @return Uni que se completa cuando el $merge ha terminado.
+     */
+    @WithSpan("BalanceSnapshotRepository.mergeMonthToDateCompliance")
+    public Uni<Void> mergeMonthToDateCompliance(LocalDate monthStart, LocalDate asOfDate) {
+        Document requiredAverage = new Document("$ifNull", List.of("$account.requiredDailyAverage", Decimal128.POSITIVE_ZERO));
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.and(
+                        Filters.gte("date", monthStart),
+                        Filters.lte("date", asOfDate),
+                        Filters.eq("productType", ProductType.PASSIVE.name()),
+                        // Los snapshots anteriores a que se guardara el tipo de cliente no lo tienen: se resuelve con la cuenta.
+                        Filters.or(
+                                Filters.in("customerType", CustomerType.VIP.name(), CustomerType.PYME.name()),
+                                Filters.eq("customerType", null)))),
+                // takenAt desempata los snapshots de la misma fecha: el leído por última vez es el vigente.
+                Aggregates.setWindowFields("$productId", Sorts.ascending("date", "takenAt"),
+                        WindowOutputFields.shift("nextDate", "$date", asOfDate.plusDays(1), 1)),
+                Aggregates.addFields(new Field<>("daysHeld", new Document("$dateDiff",
+                        new Document("startDate", "$date").append("endDate", "$nextDate").append("unit", "day")))),
+                // Un snapshot repetido en la misma fecha (reejecución del Job EOD) queda sustituido por el más reciente.
+                Aggregates.match(Filters.gt("daysHeld", 0)),
+                Aggregates.group("$productId",
+                        Accumulators.first("customerId", "$customerId"),
+                        Accumulators.first("customerType", "$customerType"),
+                        Accumulators.first("accountType", "$accountType"),
+                        Accumulators.sum("weightedBalance", new Document("$multiply", List.of("$balanceEOD", "$daysHeld"))),
+                        Accumulators.min("minimumDailyBalance", "$balanceEOD"),
+                        Accumulators.sum("daysObserved", "$daysHeld")),
+                Aggregates.addFields(new Field<>("averageDailyBalance",
+                        new Document("$divide", List.of("$weightedBalance", "$daysObserved")))),
+                // productId es el hex del ObjectId de la cuenta: se convierte para que el $lookup use el índice de _id.
+                Aggregates.addFields(new Field<>("accountObjectId", new Document("$toObjectId", "$_id"))),
+                Aggregates.lookup("accounts", "accountObjectId", "_id", "account"),
+                // Las cuentas eliminadas desaparecen aquí y no generan resultado.
+                Aggregates.unwind("$account"),
+                Aggregates.addFields(new Field<>("customerType",
+                        new Document("$ifNull", List.of("$customerType", "$account.customerType")))),
+                Aggregates.match(Filters.in("customerType", CustomerType.VIP.name(), CustomerType.PYME.name())),
+                Aggregates.project(Projections.fields(
+                        Projections.include("customerId", "customerType", "accountType",
+                                "averageDailyBalance", "minimumDailyBalance", "daysObserved"),
+                        Projections.computed("period", YearMonth.from(monthStart).toString()),
+                        Projections.computed("asOfDate", asOfDate),
+                        Projections.computed("requiredDailyAverage", requiredAverage),
+                        Projections.computed("shortfall", new Document("$max", List.of(Decimal128.POSITIVE_ZERO,
+                                new Document("$subtract", List.of(requiredAverage, "$averageDailyBalance"))))),
+                        Projections.computed("breached", new Document("$lt", List.of("$averageDailyBalance", requiredAverage))),
+                        Projections.computed("computedAt", LocalDateTime.now()))),
+                Aggregates.merge("account_compliance", new MergeOptions()
+                        .whenMatched(MergeOptions.WhenMatched.REPLACE)
+                        .whenNotMatched(MergeOptions.WhenNotMatched.INSERT)));
 
-        // El método list() es reactivo y devuelve el resultado envuelto en un Uni.
-        return find(query, customerId, startDate, endDate).list();
+        // $merge no devuelve documentos; basta con consumir el cursor para ejecutar la agregación.
+        return mongoCollection().aggregate(pipeline).collect().last().replaceWithVoid();
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.BalanceStripe;
+import com.bancario.account.util.Constants;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.PushOptions;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import io.quarkus.mongodb.reactive.ReactiveMongoClient;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repositorio de los slots de saldo de las cuentas con saldo distribuido (colección 'account_balance_stripes').
+ */
+@ApplicationScoped
+public class BalanceStripeRepository implements ReactivePanacheMongoRepositoryBase<BalanceStripe, String> {
+
+    private static final int TRANSACTION_RETRIES = 3;
+
+    @Inject
+    ReactiveMongoClient mongoClient;
+
+    @Inject
+    AccountRepository accountRepository;
+
+    /**
+     * Abona el importe en un slot de la cuenta (lo crea si no existe) y registra la sequence de su asiento.
+     */
+    @WithSpan("BalanceStripeRepository.credit")
+    public Uni<Void> credit(String accountId, int slot, BigDecimal amount, long ledgerSequence) {
+        return mongoCollection().updateOne(
+                        Filters.eq("_id", accountId + ":" + slot),
+                        Updates.combine(
+                                Updates.setOnInsert("accountId", accountId),
+                                Updates.setOnInsert("slot", slot),
+                                Updates.inc("amount", new Decimal128(amount)),
+                                Updates.pushEach("appliedSequences", List.of(ledgerSequence),
+                                        new PushOptions().slice(-Constants.LEDGER_APPLIED_WINDOW))),
+                        new UpdateOptions().upsert(true))
+                .replaceWithVoid()
+                // Dos upserts simultáneos sobre un slot nuevo: uno falla por clave duplicada y al reintentar encuentra el documento.
+                .onFailure(failure -> failure instanceof MongoWriteException writeException
+                        && writeException.getError().getCategory() == ErrorCategory.DUPLICATE_KEY)
+                .retry().atMost(1);
+    }
+
+    /**
+     * Indica si algún slot de la cuenta registra el abono del asiento con la sequence indicada.
+     */
+    public Uni<Boolean> hasApplied(String accountId, long ledgerSequence) {
+        return mongoCollection().countDocuments(Filters.and(
+                        Filters.eq("accountId", accountId),
+                        Filters.eq("appliedSequences", ledgerSequence)))
+                .onItem().transform(count -> count > 0);
+    }
+
+    /**
+     * Suma de los slots de una cuenta (cero si no tiene).
+     */
+    public Uni<BigDecimal> sumByAccount(String accountId) {
+        return mongoCollection().aggregate(List.of(
+                        Aggregates.match(Filters.eq("accountId", accountId)),
+                        Aggregates.group(null, Accumulators.sum("total", "$amount"))), Document.class)
+                .collect().first()
+                .onItem().transform(document -> document == null ? BigDecimal.ZERO : toBigDecimal(document.get("total")));
+    }
+
+    /**
+     * Suma de los slots de las cuentas indicadas, por accountId (las cuentas sin slots no aparecen).
+     */
+    public Uni<Map<String, BigDecimal>> sumByAccounts(Collection<String> accountIds) {
+        if (accountIds.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        return mongoCollection().aggregate(List.of(
+                        Aggregates.match(Filters.in("accountId", accountIds)),
+                        Aggregates.group("$accountId", Accumulators.sum("total", "$amount"))), Document.class)
+                .collect().asMap(document -> document.getString("_id"), document -> toBigDecimal(document.get("total")));
+    }
+
+    /**
+     * Consolida los slots en Account.balance dentro de una transacción: pone los slots a cero y suma su total
+     * al saldo base. Un abono concurrente sobre un slot provoca un conflicto de escritura y la transacción se reintenta.
+     * Requiere que MongoDB sea un replica set.
+     *
+     * @return Uni con el importe consolidado.
+     */
+    @WithSpan("BalanceStripeRepository.foldIntoBalance")
+    public Uni<BigDecimal> foldIntoBalance(ObjectId accountId) {
+        String id = accountId.toHexString();
+        return mongoClient.startSession()
+                .chain(session -> {
+                    session.startTransaction();
+                    return mongoCollection().find(session, Filters.eq("accountId", id)).collect().asList()
+                            .chain(stripes -> {
+                                BigDecimal total = stripes.stream()
+                                        .map(stripe -> stripe.amount)
+                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                                if (total.signum() == 0) {
+                                    return Uni.createFrom().item(total);
+                                }
+                                return mongoCollection().updateMany(session, Filters.eq("accountId", id),
+                                                Updates.set("amount", new Decimal128(BigDecimal.ZERO)))
+                                        .chain(() -> accountRepository.mongoCollection().updateOne(session,
+                                                Filters.eq("_id", accountId),
+                                                Updates.combine(Updates.inc("balance", new Decimal128(total)), Updates.inc("version", 1L))))
+                                        .replaceWith(total);
+                            })
+                            .call(() -> Uni.createFrom().publisher(session.commitTransaction()))
+                            .onFailure().call(() -> Uni.createFrom().publisher(session.abortTransaction())
+                                    .onFailure().recoverWithNull())
+                            .eventually(session::close);
+                })
+                .onFailure(failure -> failure instanceof MongoException mongoException
+                        && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))
+                .retry().atMost(TRANSACTION_RETRIES);
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        return switch (value) {
+            case Decimal128 decimal -> decimal.bigDecimalValue();
+            case Number number -> new BigDecimal(number.toString());
+            case null, default -> BigDecimal.ZERO;
+        };
+    }
+}
@@ -0,0 +1,283 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.bancario.account.util.Constants;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Modelo de lectura local y opcional de los saldos EOD: un archivo columnar mapeado en memoria por mes.
+ * * El Job EOD le añade los snapshots de cada noche y, al arrancar, los meses recientes sin archivo se
+ * reconstruyen desde balance_snapshots (incluidos los meses compactados por la retención).
+ * * Las consultas de historial por cliente lo usan solo cuando tiene completos todos los días cerrados del rango;
+ * en cualquier otro caso (deshabilitado, mes sin archivo, día sin volcado o incompleto) se consulta MongoDB.
+ */
+@Slf4j
+@ApplicationScoped
+public class ColumnarBalanceStore {
+
+    private static final Pattern FILE_NAME = Pattern.compile("balances-(\\d{4}-\\d{2})\\.col");
+    private static final int REBUILD_BATCH_SIZE = 1_000;
+
+    @Inject
+    BalanceSnapshotRepository snapshotRepository;
+
+    @Inject
+    BalanceSnapshotMonthlyRepository monthlyRepository;
+
+    @Inject
+    JobCheckpointRepository checkpointRepository;
+
+    @ConfigProperty(name = "account-service.columnar-store.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "account-service.columnar-store.directory")
+    String directory;
+
+    @ConfigProperty(name = "account-service.columnar-store.max-products-per-month")
+    int maxProductsPerMonth;
+
+    @ConfigProperty(name = "account-service.columnar-store.rebuild-months")
+    int rebuildMonths;
+
+    private final Map<YearMonth, ColumnarMonthFile> months = new ConcurrentHashMap<>();
+    private Path basePath;
+
+    /**
+     * Abre los archivos existentes y reconstruye en segundo plano los meses recientes que no tienen archivo.
+     */
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (maxProductsPerMonth <= 0 || maxProductsPerMonth > ColumnarMonthFile.maxCapacity()) {
+            log.error("Almacén columnar deshabilitado: max-products-per-month debe estar entre 1 y {}.", ColumnarMonthFile.maxCapacity());
+            enabled = false;
+            return;
+        }
+        basePath = Paths.get(directory);
+        try {
+            Files.createDirectories(basePath);
+            try (Stream<Path> files = Files.list(basePath)) {
+                files.forEach(this::openExisting);
+            }
+        } catch (IOException e) {
+            log.error("Almacén columnar deshabilitado: no se pudo abrir el directorio {}.", basePath, e);
+            enabled = false;
+            return;
+        }
+
+        List<YearMonth> missing = new ArrayList<>();
+        for (int i = rebuildMonths - 1; i >= 0; i--) {
+            YearMonth month = YearMonth.now().minusMonths(i);
+            if (!months.containsKey(month)) {
+                missing.add(month);
+            }
+        }
+        Multi.createFrom().iterable(missing)
+                .onItem().transformToUniAndConcatenate(this::rebuildMonth)
+                .collect().asList()
+                .subscribe().with(
+                        ignored -> log.info("Almacén columnar listo en {} ({} meses reconstruidos).", basePath, missing.size()),
+                        failure -> log.error("Fallo al reconstruir el almacén columnar.", failure));
+    }
+
+    @PreDestroy
+    void close() {
+        months.values().forEach(this::closeQuietly);
+        months.clear();
+    }
+
+    /**
+     * Marca el inicio del volcado EOD de la fecha: hasta {@link #appendDay} los rangos que la incluyen se leen de MongoDB.
+     */
+    public void beginDay(LocalDate date) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            monthFileFor(date).markStarted(ColumnarMonthFile.dayBit(date.getDayOfMonth()));
+        } catch (RuntimeException e) {
+            log.warn("Almacén columnar: no se pudo iniciar el día {}: {}", date, e.getMessage());
+        }
+    }
+
+    /**
+     * Añade los snapshots EOD de la fecha, ya persistidos en MongoDB. Un fallo deja el día sin completar
+     * (las consultas que lo incluyen siguen yendo a MongoDB); nunca hace fallar el Job EOD.
+     */
+    public void appendDay(LocalDate date, List<BalanceSnapshot> snapshots) {
+        if (!enabled) {
+            return;
+        }
+        int dayBit = ColumnarMonthFile.dayBit(date.getDayOfMonth());
+        try {
+            ColumnarMonthFile file = monthFileFor(date);
+            file.markStarted(dayBit);
+            file.write(snapshots);
+            file.force();
+            file.markComplete(dayBit);
+        } catch (RuntimeException e) {
+            log.warn("Almacén columnar: el día {} queda sin completar y se servirá desde MongoDB: {}", date, e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el almacén refleja todos los snapshots del rango [startDate, endDate].
+     */
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        if (!enabled || startDate.isAfter(endDate)) {
+            return false;
+        }
+        YearMonth first = YearMonth.from(startDate);
+        YearMonth last = YearMonth.from(endDate);
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            ColumnarMonthFile file = months.get(month);
+            if (file == null || !file.isCovered(fromDay(month, first, startDate), toDay(month, last, endDate))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Snapshots del cliente en el rango, ordenados por fecha. Solo es válido si {@link #covers} es true.
+     */
+    public List<BalanceSnapshot> findByCustomerAndDateRange(String customerId, LocalDate startDate, LocalDate endDate) {
+        YearMonth first = YearMonth.from(startDate);
+        YearMonth last = YearMonth.from(endDate);
+        List<BalanceSnapshot> snapshots = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            ColumnarMonthFile file = months.get(month);
+            if (file != null) {
+                snapshots.addAll(file.findByCustomer(customerId, fromDay(month, first, startDate), toDay(month, last, endDate)));
+            }
+        }
+        snapshots.sort(Comparator.comparing(snapshot -> snapshot.date));
+        return snapshots;
+    }
+
+    /**
+     * Reconstruye el archivo del mes desde balance_snapshots y los resúmenes mensuales compactados.
+     * Mientras dura, el mes no sirve lecturas.
+     */
+    public Uni<Void> rebuildMonth(YearMonth month) {
+        ColumnarMonthFile file;
+        try {
+            file = ColumnarMonthFile.open(basePath, month, maxProductsPerMonth, true);
+        } catch (IOException e) {
+            return Uni.createFrom().failure(e);
+        }
+        file.startRebuild();
+        ColumnarMonthFile previous = months.put(month, file);
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atEndOfMonth();
+        log.info("Almacén columnar: reconstruyendo {} desde MongoDB.", month);
+        // Los días ya cerrados por el Job EOD al empezar la lectura quedan completos (tengan o no snapshots:
+        // el Job EOD solo escribe las cuentas que cambiaron); los posteriores los completa el siguiente volcado.
+        return checkpointRepository.findById(Constants.EOD_SNAPSHOT_CHECKPOINT)
+                .onItem().transform(checkpoint -> closedDays(month, checkpoint != null ? checkpoint.lastCompletedDate : null))
+                .chain(closedDays -> Multi.createBy().concatenating().streams(
+                                snapshotRepository.streamEntitiesByDateRange(start, end),
+                                monthlyRepository.streamDailyByMonth(start))
+                        .group().intoLists().of(REBUILD_BATCH_SIZE)
+                        .onItem().invoke(file::write)
+                        .collect().last()
+                        .onItem().invoke(() -> {
+                            file.force();
+                            file.completeRebuild(closedDays);
+                        }))
+                .replaceWithVoid()
+                .onFailure().invoke(failure -> {
+                    log.error("Almacén columnar: fallo al reconstruir {}; el mes se servirá desde MongoDB.", month, failure);
+                    if (months.remove(month, file)) {
+                        closeQuietly(file);
+                    }
+                })
+                .onFailure().recoverWithNull();
+    }
+
+    private ColumnarMonthFile monthFileFor(LocalDate date) {
+        return months.computeIfAbsent(YearMonth.from(date), month -> {
+            try {
+                ColumnarMonthFile file = ColumnarMonthFile.open(basePath, month, maxProductsPerMonth, false);
+                // Un archivo nuevo solo responde por los días desde el primer volcado que recibe.
+                file.trackFrom(date.getDayOfMonth());
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void openExisting(Path path) {
+        Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            return;
+        }
+        YearMonth month = YearMonth.parse(matcher.group(1));
+        try {
+            months.put(month, ColumnarMonthFile.open(basePath, month, maxProductsPerMonth, false));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Almacén columnar: se ignora el archivo {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void closeQuietly(ColumnarMonthFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Almacén columnar: fallo al cerrar el archivo de {}: {}", file.month(), e.getMessage());
+        }
+    }
+
+    /**
+     * Máscara de los días del mes cerrados hasta closedThrough (ninguno si es null o anterior al mes).
+     */
+    private static int closedDays(YearMonth month, LocalDate closedThrough) {
+        if (closedThrough == null || YearMonth.from(closedThrough).isBefore(month)) {
+            return 0;
+        }
+        int lastDay = YearMonth.from(closedThrough).equals(month) ? closedThrough.getDayOfMonth() : month.lengthOfMonth();
+        int mask = 0;
+        for (int day = 1; day <= lastDay; day++) {
+            mask |= ColumnarMonthFile.dayBit(day);
+        }
+        return mask;
+    }
+
+    private static int fromDay(YearMonth month, YearMonth first, LocalDate startDate) {
+        return month.equals(first) ? startDate.getDayOfMonth() : 1;
+    }
+
+    private static int toDay(YearMonth month, YearMonth last, LocalDate endDate) {
+        return month.equals(last) ? endDate.getDayOfMonth() : month.lengthOfMonth();
+    }
+}
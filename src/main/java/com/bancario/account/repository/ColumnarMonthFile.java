@@ -0,0 +1,376 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.CustomerType;
+import com.bancario.account.repository.entity.BalanceSnapshot;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Archivo columnar de un mes de saldos EOD, mapeado en memoria (ver {@link ColumnarBalanceStore}).
+ * * Disposición: cabecera | presencia por producto (int, un bit por día) | columna balanceEOD |
+ * columna amountUsedEOD. Cada columna guarda 31 long (centavos) por producto, contiguos,
+ * de modo que una consulta de rango es una lectura secuencial fuera del heap.
+ * * El diccionario de productos (ordinal → productId, cliente y tipos) se guarda en un archivo de texto
+ * adjunto ('.dict'), una línea por ordinal.
+ */
+final class ColumnarMonthFile implements Closeable {
+
+    static final int DAYS = 31;
+    private static final int MAGIC = 0x53504431; // "SPD1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_TRACKED_FROM = 12;
+    private static final int OFFSET_STARTED_DAYS = 16;
+    private static final int OFFSET_COMPLETE_DAYS = 20;
+    private static final int SCALE = 2; // Importes en centavos
+    private static final long NULL_AMOUNT = Long.MIN_VALUE;
+    private static final String SEPARATOR = "\t";
+
+    private final YearMonth month;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    private final BufferedWriter dictionaryWriter;
+    private final List<Product> products = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, List<Integer>> ordinalsByCustomer = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean rebuilding;
+
+    private record Product(String productId, String customerId, String productType,
+                           AccountType accountType, CustomerType customerType) {}
+
+    /**
+     * Mayor número de productos por mes que cabe en un único mapeo (las posiciones de un MappedByteBuffer son int).
+     */
+    static int maxCapacity() {
+        return (int) ((Integer.MAX_VALUE - HEADER_BYTES) / bytesPerProduct());
+    }
+
+    /**
+     * Abre el archivo del mes o lo crea vacío con la capacidad indicada.
+     * @param truncate true para descartar el contenido existente (reconstrucción).
+     * @throws IOException si el archivo no se puede mapear o no tiene el formato esperado.
+     */
+    static ColumnarMonthFile open(Path directory, YearMonth month, int capacity, boolean truncate) throws IOException {
+        Path dataPath = directory.resolve(fileName(month, ".col"));
+        Path dictionaryPath = directory.resolve(fileName(month, ".dict"));
+        if (truncate) {
+            Files.deleteIfExists(dataPath);
+            Files.deleteIfExists(dictionaryPath);
+        }
+        boolean exists = Files.exists(dataPath);
+
+        FileChannel channel = FileChannel.open(dataPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int fileCapacity = exists ? readCapacity(channel, dataPath) : capacity;
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) fileCapacity * bytesPerProduct());
+            if (!exists) {
+                data.putInt(OFFSET_MAGIC, MAGIC);
+                data.putInt(OFFSET_VERSION, FORMAT_VERSION);
+                data.putInt(OFFSET_CAPACITY, fileCapacity);
+            }
+            List<String> dictionary = Files.exists(dictionaryPath)
+                    ? Files.readAllLines(dictionaryPath, StandardCharsets.UTF_8)
+                    : List.of();
+            BufferedWriter dictionaryWriter = Files.newBufferedWriter(dictionaryPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            return new ColumnarMonthFile(month, fileCapacity, channel, data, dictionaryWriter, dictionary);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ColumnarMonthFile(YearMonth month, int capacity, FileChannel channel, MappedByteBuffer data,
+                              BufferedWriter dictionaryWriter, List<String> dictionary) {
+        this.month = month;
+        this.capacity = capacity;
+        this.channel = channel;
+        this.data = data;
+        this.dictionaryWriter = dictionaryWriter;
+        for (String line : dictionary) {
+            String[] fields = line.split(SEPARATOR, -1);
+            register(new Product(fields[0], fields[1], emptyToNull(fields[2]),
+                    fields[3].isEmpty() ? null : AccountType.valueOf(fields[3]),
+                    fields[4].isEmpty() ? null : CustomerType.valueOf(fields[4])));
+        }
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    /**
+     * Fija el primer día del mes a partir del cual el archivo refleja todos los snapshots (solo la primera vez).
+     */
+    void trackFrom(int day) {
+        lock.writeLock().lock();
+        try {
+            if (data.getInt(OFFSET_TRACKED_FROM) == 0) {
+                data.putInt(OFFSET_TRACKED_FROM, day);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca los días cuyo volcado empezó: hasta marcarlos como completos, los rangos que los incluyen no están cubiertos.
+     */
+    void markStarted(int dayMask) {
+        updateMask(OFFSET_STARTED_DAYS, dayMask);
+    }
+
+    void markComplete(int dayMask) {
+        updateMask(OFFSET_COMPLETE_DAYS, dayMask);
+    }
+
+    void startRebuild() {
+        rebuilding = true;
+        trackFrom(1);
+    }
+
+    /**
+     * Cierra la reconstrucción: los días indicados (los ya cerrados por el Job EOD antes de leer MongoDB) quedan
+     * completos y el archivo pasa a servir lecturas.
+     */
+    void completeRebuild(int dayMask) {
+        markStarted(dayMask);
+        markComplete(dayMask);
+        rebuilding = false;
+    }
+
+    /**
+     * Indica si el archivo refleja todos los snapshots de los días [fromDay, toDay] del mes.
+     * * Solo cuentan los días cuyo volcado se completó: un día sin volcado en este archivo puede tener snapshots
+     * en MongoDB (cerrado por otra réplica o mientras el almacén no estaba disponible).
+     */
+    boolean isCovered(int fromDay, int toDay) {
+        if (rebuilding) {
+            return false;
+        }
+        int trackedFrom = data.getInt(OFFSET_TRACKED_FROM);
+        if (trackedFrom == 0 || fromDay < trackedFrom) {
+            return false;
+        }
+        int range = daysMask(fromDay, toDay);
+        return (data.getInt(OFFSET_COMPLETE_DAYS) & range) == range;
+    }
+
+    /**
+     * Escribe los snapshots en sus celdas (sobrescribe las existentes) y devuelve la máscara de días escritos.
+     * @throws IllegalStateException si se supera la capacidad de productos del archivo.
+     * @throws ArithmeticException si un importe no se representa exactamente en centavos.
+     */
+    int write(List<BalanceSnapshot> snapshots) {
+        lock.writeLock().lock();
+        try {
+            int writtenDays = 0;
+            for (BalanceSnapshot snapshot : snapshots) {
+                long balance = toCents(snapshot.balanceEOD);
+                long amountUsed = toCents(snapshot.amountUsedEOD);
+                int ordinal = ordinalOf(snapshot);
+                int day = snapshot.date.getDayOfMonth();
+                data.putLong(balancePosition(ordinal, day), balance);
+                data.putLong(amountUsedPosition(ordinal, day), amountUsed);
+                data.putInt(presencePosition(ordinal), data.getInt(presencePosition(ordinal)) | dayBit(day));
+                writtenDays |= dayBit(day);
+            }
+            dictionaryWriter.flush();
+            return writtenDays;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshots del cliente entre los días indicados, leídos de las columnas sin pasar por MongoDB.
+     */
+    List<BalanceSnapshot> findByCustomer(String customerId, int fromDay, int toDay) {
+        lock.readLock().lock();
+        try {
+            List<Integer> customerOrdinals = ordinalsByCustomer.getOrDefault(customerId, List.of());
+            List<BalanceSnapshot> snapshots = new ArrayList<>();
+            for (int ordinal : customerOrdinals) {
+                int presence = data.getInt(presencePosition(ordinal)) & daysMask(fromDay, toDay);
+                if (presence == 0) {
+                    continue;
+                }
+                Product product = products.get(ordinal);
+                for (int day = fromDay; day <= toDay; day++) {
+                    if ((presence & dayBit(day)) != 0) {
+                        snapshots.add(toSnapshot(product, month.atDay(day),
+                                data.getLong(balancePosition(ordinal, day)),
+                                data.getLong(amountUsedPosition(ordinal, day))));
+                    }
+                }
+            }
+            return snapshots;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sincroniza con el disco las páginas modificadas del mapeo.
+     */
+    void force() {
+        data.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            data.force();
+            dictionaryWriter.close();
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- Diccionario de productos ---
+
+    private int ordinalOf(BalanceSnapshot snapshot) throws IOException {
+        Integer ordinal = ordinals.get(snapshot.productId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        if (products.size() >= capacity) {
+            throw new IllegalStateException("El archivo columnar de " + month + " alcanzó su capacidad de " + capacity + " productos.");
+        }
+        Product product = new Product(snapshot.productId, snapshot.customerId, snapshot.productType,
+                snapshot.accountType, snapshot.customerType);
+        // La línea del diccionario se escribe antes que las celdas: un ordinal nunca queda sin su producto.
+        dictionaryWriter.write(String.join(SEPARATOR, product.productId(), nullToEmpty(product.customerId()),
+                nullToEmpty(product.productType()),
+                product.accountType() == null ? "" : product.accountType().name(),
+                product.customerType() == null ? "" : product.customerType().name()));
+        dictionaryWriter.newLine();
+        return register(product);
+    }
+
+    private int register(Product product) {
+        int ordinal = products.size();
+        products.add(product);
+        ordinals.put(product.productId(), ordinal);
+        ordinalsByCustomer.computeIfAbsent(product.customerId(), key -> new ArrayList<>()).add(ordinal);
+        return ordinal;
+    }
+
+    // --- Posiciones y codificación ---
+
+    private static long bytesPerProduct() {
+        return Integer.BYTES + 2L * DAYS * Long.BYTES;
+    }
+
+    private int presencePosition(int ordinal) {
+        return HEADER_BYTES + ordinal * Integer.BYTES;
+    }
+
+    private int balancePosition(int ordinal, int day) {
+        return HEADER_BYTES + capacity * Integer.BYTES + (ordinal * DAYS + day - 1) * Long.BYTES;
+    }
+
+    private int amountUsedPosition(int ordinal, int day) {
+        return balancePosition(ordinal, day) + capacity * DAYS * Long.BYTES;
+    }
+
+    private void updateMask(int offset, int dayMask) {
+        lock.writeLock().lock();
+        try {
+            data.putInt(offset, data.getInt(offset) | dayMask);
+            data.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static int dayBit(int day) {
+        return 1 << (day - 1);
+    }
+
+    private static int daysMask(int fromDay, int toDay) {
+        int upTo = toDay == DAYS ? -1 : dayBit(toDay + 1) - 1;
+        return upTo & ~(dayBit(fromDay) - 1);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return NULL_AMOUNT;
+        }
+        long cents = amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        if (cents == NULL_AMOUNT) {
+            throw new ArithmeticException("Importe fuera del rango representable: " + amount);
+        }
+        return cents;
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return cents == NULL_AMOUNT ? null : BigDecimal.valueOf(cents, SCALE);
+    }
+
+    private static BalanceSnapshot toSnapshot(Product product, LocalDate date, long balance, long amountUsed) {
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.customerId = product.customerId();
+        snapshot.productId = product.productId();
+        snapshot.productType = product.productType();
+        snapshot.accountType = product.accountType();
+        snapshot.customerType = product.customerType();
+        snapshot.date = date;
+        snapshot.balanceEOD = fromCents(balance);
+        snapshot.amountUsedEOD = fromCents(amountUsed);
+        return snapshot;
+    }
+
+    private static int readCapacity(FileChannel channel, Path dataPath) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        if (header.getInt(OFFSET_MAGIC) != MAGIC || header.getInt(OFFSET_VERSION) != FORMAT_VERSION) {
+            throw new IOException("Formato desconocido en el archivo columnar " + dataPath);
+        }
+        return header.getInt(OFFSET_CAPACITY);
+    }
+
+    static String fileName(YearMonth month, String extension) {
+        return "balances-" + month + extension;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
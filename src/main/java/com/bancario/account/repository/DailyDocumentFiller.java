@@ -0,0 +1,98 @@
+package com.bancario.account.repository;
+
+import org.bson.Document;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Relleno en streaming de la exportación CSV: recibe los snapshots diarios de un mes en orden de fecha (y takenAt),
+ * leídos desde el día 1, y emite una fila por producto y día dentro del rango, con el último valor conocido del
+ * producto en los días sin snapshot. Misma regla que la consulta por cliente (SnapshotCarryForward).
+ * Conserva el último documento de cada producto del mes y los del día en curso: la memoria está acotada por
+ * los productos del mes, no por el rango. Cada recorrido usa su propia instancia.
+ */
+final class DailyDocumentFiller {
+
+    private final LocalDate from;
+    private final LocalDate fillThrough;
+    private final Map<String, Document> latest = new LinkedHashMap<>();
+    private final Map<String, Document> current = new LinkedHashMap<>();
+    private LocalDate day;
+
+    /**
+     * @param from Primer día emitido (los anteriores solo aportan el valor vigente).
+     * @param fillThrough Último día que se rellena (último día cerrado por el Job EOD dentro del rango).
+     */
+    DailyDocumentFiller(LocalDate from, LocalDate fillThrough) {
+        this.from = from;
+        this.fillThrough = fillThrough;
+    }
+
+    /**
+     * Recibe el siguiente documento y devuelve las filas de los días ya completos.
+     */
+    List<Document> accept(Document row) {
+        LocalDate date = toLocalDate(row.get("date"));
+        List<Document> ready = new ArrayList<>();
+        if (day != null && date.isAfter(day)) {
+            closeDay(ready);
+            fillDays(date.minusDays(1), ready);
+        }
+        day = date;
+        // Un snapshot repetido en la misma fecha queda sustituido por el más reciente (orden por takenAt).
+        current.put(row.getString("productId"), row);
+        return ready;
+    }
+
+    /**
+     * Filas pendientes al terminar el mes: el último día leído y los días sin cambios hasta fillThrough.
+     */
+    List<Document> finish() {
+        List<Document> ready = new ArrayList<>();
+        if (day != null) {
+            closeDay(ready);
+            fillDays(fillThrough, ready);
+        }
+        return ready;
+    }
+
+    private void closeDay(List<Document> ready) {
+        latest.putAll(current);
+        if (!day.isBefore(from)) {
+            for (Map.Entry<String, Document> entry : latest.entrySet()) {
+                Document stored = current.get(entry.getKey());
+                if (stored != null) {
+                    ready.add(stored);
+                } else if (!day.isAfter(fillThrough)) {
+                    ready.add(carriedTo(entry.getValue(), day));
+                }
+            }
+        }
+        current.clear();
+    }
+
+    private void fillDays(LocalDate until, List<Document> ready) {
+        for (LocalDate date = day.plusDays(1); !date.isAfter(until) && !date.isAfter(fillThrough); date = date.plusDays(1)) {
+            if (!date.isBefore(from)) {
+                for (Document last : latest.values()) {
+                    ready.add(carriedTo(last, date));
+                }
+            }
+        }
+    }
+
+    private static Document carriedTo(Document source, LocalDate date) {
+        return new Document(source).append("date", date);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        // LocalDate se almacena como fecha UTC a medianoche.
+        return value instanceof Date date ? date.toInstant().atOffset(ZoneOffset.UTC).toLocalDate() : (LocalDate) value;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.FeePosting;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Repositorio de los cargos de comisiones del cierre de mes (colección fee_postings).
+ */
+@ApplicationScoped
+public class FeePostingRepository implements ReactivePanacheMongoRepositoryBase<FeePosting, String> {
+
+    /**
+     * Inserta los cargos de una partición. Los cargos ya registrados en una ejecución anterior
+     * (clave duplicada) se ignoran, lo que hace la operación idempotente al reanudar.
+     */
+    public Uni<Void> insertIgnoringDuplicates(List<FeePosting> postings) {
+        if (postings.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        return mongoCollection().insertMany(postings, new InsertManyOptions().ordered(false))
+                .replaceWithVoid()
+                .onFailure(failure -> failure instanceof MongoBulkWriteException bulkWriteException
+                        && bulkWriteException.getWriteErrors().stream()
+                        .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY))
+                .recoverWithNull();
+    }
+
+    /**
+     * Cargos registrados con los IDs indicados, por accountId. Al reanudar un cierre se aplican estos cargos
+     * y no los recalculados, que pueden diferir si cambió la configuración de comisiones de la cuenta.
+     */
+    public Uni<Map<String, FeePosting>> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Uni.createFrom().item(Map.of());
+        }
+        return list("_id in ?1", ids)
+                .onItem().transform(postings -> postings.stream()
+                        .collect(Collectors.toMap(posting -> posting.accountId, posting -> posting)));
+    }
+
+    /**
+     * Registra el importe que se descuenta de cada cargo (por ID de cargo).
+     */
+    public Uni<Void> recordCharged(Map<String, BigDecimal> chargedById) {
+        if (chargedById.isEmpty()) {
+            return Uni.createFrom().voidItem();
+        }
+        List<UpdateOneModel<FeePosting>> updates = chargedById.entrySet().stream()
+                .map(entry -> new UpdateOneModel<FeePosting>(Filters.eq("_id", entry.getKey()),
+                        Updates.set("chargedFee", new Decimal128(entry.getValue()))))
+                .toList();
+        return mongoCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false)).replaceWithVoid();
+    }
+}
@@ -0,0 +1,35 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.JobCheckpoint;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repositorio de puntos de control de los jobs por lotes.
+ */
+@ApplicationScoped
+public class JobCheckpointRepository implements ReactivePanacheMongoRepositoryBase<JobCheckpoint, String> {
+
+    /**
+     * Obtiene el punto de control de una ejecución, o uno nuevo (sin persistir) si aún no existe.
+     */
+    public Uni<JobCheckpoint> findOrCreate(String id) {
+        return findById(id)
+                .onItem().ifNull().continueWith(() -> {
+                    JobCheckpoint checkpoint = new JobCheckpoint();
+                    checkpoint.id = id;
+                    return checkpoint;
+                });
+    }
+
+    /**
+     * Registra el avance de una ejecución.
+     */
+    public Uni<JobCheckpoint> save(JobCheckpoint checkpoint) {
+        checkpoint.updatedAt = LocalDateTime.now();
+        return persistOrUpdate(checkpoint);
+    }
+}
@@ -0,0 +1,106 @@
+package com.bancario.account.repository;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Crea al arrancar los índices que requieren las consultas del servicio.
+ * createIndex es idempotente: si el índice ya existe con la misma definición no hace nada.
+ */
+@Slf4j
+@ApplicationScoped
+public class MongoIndexInitializer {
+
+    @Inject
+    AccountRepository accountRepository;
+
+    @Inject
+    BalanceSnapshotRepository snapshotRepository;
+
+    @Inject
+    BalanceSnapshotMonthlyRepository monthlyRepository;
+
+    @Inject
+    AccountMovementRepository movementRepository;
+
+    @Inject
+    BalanceStripeRepository stripeRepository;
+
+    void onStart(@Observes StartupEvent event) {
+        Uni.combine().all().unis(
+                        // Consulta EOD por cliente y rango (getDailyBalancesByCustomer / SPD)
+                        snapshotRepository.mongoCollection().createIndex(
+                                Indexes.ascending("customerId", "date"),
+                                new IndexOptions().name("ix_snapshot_customer_date")),
+                        // Exportación por rango de fechas y tipo de producto, recorrida en orden de fecha
+                        snapshotRepository.mongoCollection().createIndex(
+                                Indexes.ascending("date", "productType"),
+                                new IndexOptions().name("ix_snapshot_date_product_type")),
+                        // Saldo en un instante: último snapshot de la cuenta anterior al instante
+                        snapshotRepository.mongoCollection().createIndex(
+                                Indexes.compoundIndex(Indexes.ascending("productId"), Indexes.descending("takenAt")),
+                                new IndexOptions().name("ix_snapshot_product_taken_at")),
+                        // Historial por cliente sobre meses compactados por la retención
+                        monthlyRepository.mongoCollection().createIndex(
+                                Indexes.ascending("customerId", "monthStart"),
+                                new IndexOptions().name("ix_snapshot_monthly_customer_month")),
+                        // Archivo de resúmenes fuera de la ventana regulatoria, en orden de mes
+                        monthlyRepository.mongoCollection().createIndex(
+                                Indexes.ascending("monthStart"),
+                                new IndexOptions().name("ix_snapshot_monthly_month")),
+                        // Historial de asientos por cuenta y punto en el tiempo
+                        movementRepository.mongoCollection().createIndex(
+                                Indexes.ascending("accountId", "occurredAt"),
+                                new IndexOptions().name("ix_movement_account_time")),
+                        // Orden de los asientos de cada cuenta: dos asientos no pueden compartir sequence
+                        movementRepository.mongoCollection().createIndex(
+                                Indexes.ascending("accountId", "sequence"),
+                                new IndexOptions().name("ux_movement_account_sequence").unique(true)
+                                        .partialFilterExpression(Filters.exists("sequence"))),
+                        // Un solo asiento FEE por cargo del cierre de mes (reanudaciones idempotentes)
+                        movementRepository.mongoCollection().createIndex(
+                                Indexes.ascending("postingId"),
+                                new IndexOptions().name("ux_movement_posting").unique(true)
+                                        .partialFilterExpression(Filters.exists("postingId"))),
+                        // Asientos pendientes de proyección (índice parcial: solo los no proyectados)
+                        movementRepository.mongoCollection().createIndex(
+                                Indexes.ascending("occurredAt"),
+                                new IndexOptions().name("ix_movement_pending")
+                                        .partialFilterExpression(Filters.eq("projected", false))),
+                        // Suma y consolidación de los slots de saldo distribuido por cuenta
+                        stripeRepository.mongoCollection().createIndex(
+                                Indexes.ascending("accountId"),
+                                new IndexOptions().name("ix_stripe_account")),
+                        // Chequeo de deuda vencida en crearCuenta (una consulta indexada por cliente)
+                        accountRepository.mongoCollection().createIndex(
+                                Indexes.ascending("customerId", "overdueSince"),
+                                new IndexOptions().name("ix_account_customer_overdue")),
+                        // Reportes de riesgo y limpieza de marcas de mora del job diario
+                        accountRepository.mongoCollection().createIndex(
+                                Indexes.ascending("overdueSince"),
+                                new IndexOptions().name("ix_account_overdue_since")),
+                        // updateMany por día de pago del job diario de mora
+                        accountRepository.mongoCollection().createIndex(
+                                Indexes.ascending("paymentDayOfMonth"),
+                                new IndexOptions().name("ix_account_payment_day")),
+                        // Snapshots EOD solo de las cuentas con cambios de saldo (y de las que tienen saldo distribuido)
+                        accountRepository.mongoCollection().createIndex(
+                                Indexes.ascending("lastBalanceChangeAt"),
+                                new IndexOptions().name("ix_account_balance_change")),
+                        accountRepository.mongoCollection().createIndex(
+                                Indexes.ascending("balanceStripes"),
+                                new IndexOptions().name("ix_account_balance_stripes").sparse(true)))
+                .discardItems()
+                .subscribe().with(
+                        ignored -> log.info("Índices de MongoDB verificados."),
+                        failure -> log.error("No se pudieron crear los índices de MongoDB: {}", failure.getMessage(), failure)
+                );
+    }
+}
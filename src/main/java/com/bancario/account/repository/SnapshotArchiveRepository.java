@@ -0,0 +1,12 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.repository.entity.SnapshotArchive;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Repositorio del archivo comprimido de resúmenes mensuales de snapshots (colección balance_snapshots_archive).
+ */
+@ApplicationScoped
+public class SnapshotArchiveRepository implements ReactivePanacheMongoRepositoryBase<SnapshotArchive, String> {
+}
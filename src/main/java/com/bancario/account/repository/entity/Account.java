@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -14,6 +15,7 @@ import java.util.List;
 @MongoEntity(collection = "accounts")
 public class Account {
     public ObjectId id;
+    public Long version; // Versión monótona: se incrementa en cada escritura (base del ETag)
     public String customerId;
     public String accountNumber;
     public ProductType productType; // Nuevo: Para diferenciar Pasivo/Activo
@@ -25,16 +27,32 @@ public class Account {
     public Integer monthlyMovements; // Opcional: Para cuentas de ahorro
     public LocalDateTime specificDepositDate; // Opcional: Para plazo fijo
     public AccountStatus status;
+    public CustomerType customerType; // Tipo de cliente al abrir la cuenta (segmenta el cálculo de cumplimiento VIP/PYME)
     public BigDecimal requiredDailyAverage; // <-- Requisito de Monitoreo VIP
     // CAMPO AÑADIDO: Monto de la comisión de mantenimiento (Cero para PYME)
     public BigDecimal maintenanceFeeAmount; // <-- Nuevo campo para el costo
     // Se recomienda usar Integer si solo quieres guardar el día del mes.
     private Integer paymentDayOfMonth;
     public BigDecimal overdueAmount = BigDecimal.ZERO; // Monto principal que está vencido (0 al inicio)
+    public LocalDate overdueSince; // Fecha desde la que hay deuda vencida (null si está al día). Indexado.
     // --- NUEVOS CAMPOS DE TRANSACCIÓN ---
     public Integer freeTransactionLimit;
     public BigDecimal transactionFeeAmount;
     public Integer currentMonthlyTransactions = 0;
+    public String transactionCounterPeriod; // Mes (YYYY-MM) de currentMonthlyTransactions; null en cuentas anteriores (mes en curso)
+    public Integer previousMonthTransactions; // Contador del mes anterior, guardado al pasar al mes siguiente
+    public String previousTransactionPeriod; // Mes (YYYY-MM) de previousMonthTransactions
+    public String lastFeePeriod; // Último mes (YYYY-MM) al que se aplicó el cierre de comisiones
+    // Abonos repartidos en account_balance_stripes: null = nunca distribuida, 0 = distribución desactivada, N = slots activos.
+    // Si no es null, el saldo informado es balance + suma de sus slots.
+    public Integer balanceStripes;
+    // Último cambio de balance / amountUsed: el Job EOD solo escribe snapshot de las cuentas que cambiaron desde su última ejecución.
+    public LocalDateTime lastBalanceChangeAt;
+    // Integral del saldo en el mes (saldo × segundos vigente) hasta lastBalanceChangeAt; base del SPD del mes en curso.
+    public BigDecimal balanceIntegralMonth;
+    public String integralPeriod; // Mes (YYYY-MM) al que corresponde balanceIntegralMonth
+    public Long ledgerSequence; // Mayor sequence de account_movements aplicada al documento
+    public List<Long> appliedSequences; // Últimas sequences aplicadas al documento (ventana acotada), en la misma escritura que el saldo
     // Campos corregidos para titulares y firmantes
     private List<String> holders;
     private List<String> signatories;
@@ -0,0 +1,32 @@
+package com.bancario.account.repository.entity;
+
+import com.bancario.account.enums.AccountChangeType;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Evento de cambio de cuenta persistido en la cola acotada del feed de cambios
+ * (colección con tope 'account_changes'). Cada instancia numera sus eventos en su propio espacio de offsets:
+ * el par (instanceId, offset) es único.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "account_changes")
+public class AccountChange {
+    public ObjectId id;
+    public String instanceId; // Instancia que publicó el evento (espacio de offsets)
+    public Long offset; // Offset monótono dentro de la instancia
+    public String accountId;
+    public String customerId;
+    public AccountChangeType type;
+    public BigDecimal balance;
+    public BigDecimal amountUsed;
+    public Integer currentMonthlyTransactions;
+    public Long version;
+    public LocalDateTime occurredAt;
+}
@@ -0,0 +1,33 @@
+package com.bancario.account.repository.entity;
+
+import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.CustomerType;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado del cálculo nocturno de cumplimiento del saldo promedio diario (SPD) de una cuenta VIP/PYME
+ * en el mes en curso. Un documento por cuenta (_id = ID de la cuenta), reemplazado en cada ejecución.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "account_compliance", clientName = "analytics")
+public class AccountCompliance {
+    public String id; // ID de la cuenta (hex del ObjectId)
+    public String customerId;
+    public CustomerType customerType;
+    public AccountType accountType;
+    public String period; // Mes evaluado (YYYY-MM)
+    public LocalDate asOfDate; // Último día incluido en el promedio
+    public Integer daysObserved;
+    public BigDecimal averageDailyBalance;
+    public BigDecimal minimumDailyBalance;
+    public BigDecimal requiredDailyAverage;
+    public BigDecimal shortfall; // Cuánto falta al promedio para alcanzar el requerido (0 si cumple)
+    public boolean breached;
+    public LocalDateTime computedAt;
+}
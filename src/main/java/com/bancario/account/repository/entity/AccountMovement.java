@@ -0,0 +1,41 @@
+package com.bancario.account.repository.entity;
+
+import com.bancario.account.enums.MovementType;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Asiento del libro de movimientos de saldo: colección de solo inserción ('account_movements'),
+ * un documento pequeño por cada cambio de balance.
+ * * Los asientos con balance guardan el valor resultante (anclas); los abonos y cargos guardan además el importe
+ * (amount) y, en cuentas con saldo distribuido, solo el importe. El saldo en un instante es el de la última
+ * ancla anterior más los importes posteriores a ella.
+ * * El asiento se inserta antes de escribir el saldo (preparado, projected = false) y se confirma
+ * (projected = true) o se anula (voided = true) según el resultado de la escritura; la escritura registra la
+ * sequence en appliedSequences del documento escrito, con la que se resuelven los que una caída dejó preparados.
+ * Los asientos diferidos
+ * (deferred = true, proyección asíncrona) quedan pendientes hasta que el job de proyección los aplica.
+ * sequence ordena los asientos de la cuenta y es única por accountId.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "account_movements")
+public class AccountMovement {
+    public ObjectId id;
+    public String accountId;
+    public String customerId;
+    public MovementType type;
+    public BigDecimal balance;
+    public BigDecimal amountUsed;
+    public BigDecimal amount; // Importe con signo de CREDIT / DEBIT / FEE
+    public String postingId; // FEE: ID del cargo en fee_postings (único: un asiento por cargo)
+    public Long sequence;
+    public Boolean projected; // true: el documento Account ya refleja el asiento
+    public Boolean deferred;  // true: asiento de la proyección asíncrona
+    public Boolean voided;    // true: la escritura de saldo falló y el asiento no tuvo efecto
+    public LocalDateTime occurredAt;
+}
@@ -1,12 +1,14 @@
 package com.bancario.account.repository.entity;
 
 import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.CustomerType;
 import io.quarkus.mongodb.panache.common.MongoEntity;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 /**
  * Entidad de Persistencia que almacena la foto (snapshot) del saldo y uso de un producto financiero
@@ -14,17 +16,20 @@ import java.time.LocalDate;
  * * Esta entidad es la fuente de datos para cálculos analíticos de promedios diarios.
  * * Se persiste en una colección separada ('balance_snapshots') para garantizar la escalabilidad
  * y separación del estado transaccional (Entidad Account).
+ * * Usa el cliente MongoDB 'analytics' (pool propio, lecturas secondaryPreferred) para aislar los reportes del camino transaccional.
  */
 @Data
 @NoArgsConstructor
-@MongoEntity(collection = "balance_snapshots")
+@MongoEntity(collection = "balance_snapshots", clientName = "analytics")
 public class BalanceSnapshot {
     public ObjectId id;
     public String customerId;
     public String productId;
     public AccountType accountType;
     public String productType;
+    public CustomerType customerType;
     public LocalDate date;
     public BigDecimal balanceEOD;
     public BigDecimal amountUsedEOD;
+    public LocalDateTime takenAt; // Fin de la lectura de la cuenta por el Job EOD (base de las consultas de saldo en un instante)
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.bancario.account.repository.entity;
+
+import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.CustomerType;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resumen mensual compactado de los snapshots EOD de un producto: un documento por producto y mes
+ * (_id = productId:YYYY-MM) en lugar de uno por día.
+ * * Conserva el valor de cada día observado (listas paralelas days / balanceEOD / amountUsedEOD),
+ * por lo que las consultas de historial y el cálculo del SPD sobre meses compactados son exactos.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "balance_snapshots_monthly", clientName = "analytics")
+public class BalanceSnapshotMonthly {
+    public String id;
+    public String customerId;
+    public String productId;
+    public AccountType accountType;
+    public String productType;
+    public CustomerType customerType;
+    public String month; // YYYY-MM
+    public LocalDate monthStart;
+    public List<Integer> days; // Días del mes con snapshot, en orden ascendente
+    public List<BigDecimal> balanceEOD;
+    public List<BigDecimal> amountUsedEOD;
+    public BigDecimal averageBalanceEOD; // Promedio ponderado por días: cada valor vale hasta el siguiente día con snapshot (resumen para reportes)
+}
@@ -0,0 +1,23 @@
+package com.bancario.account.repository.entity;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Slot de saldo de una cuenta con saldo distribuido (colección 'account_balance_stripes').
+ * * Los abonos se reparten entre los slots de la cuenta ($inc sobre documentos distintos), de modo que
+ * no se serializan en el documento Account. El ID es determinista (accountId:slot).
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "account_balance_stripes")
+public class BalanceStripe {
+    public String id;
+    public String accountId;
+    public Integer slot;
+    public BigDecimal amount; // Abonos acumulados aún no consolidados en Account.balance
+    public List<Long> appliedSequences; // Últimas sequences de account_movements abonadas en el slot (ventana acotada)
+}
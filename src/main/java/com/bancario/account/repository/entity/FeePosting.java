@@ -0,0 +1,27 @@
+package com.bancario.account.repository.entity;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cargo de comisiones aplicado a una cuenta pasiva en el cierre de mes.
+ * El ID es determinista (accountId:periodo) para que la reanudación del cierre no duplique cargos.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "fee_postings")
+public class FeePosting {
+    public String id;
+    public String accountId;
+    public String customerId;
+    public String period; // Mes cerrado (YYYY-MM)
+    public BigDecimal maintenanceFee;
+    public Integer excessTransactions; // Transacciones por encima del límite gratuito
+    public BigDecimal transactionFee;
+    public BigDecimal totalFee;
+    public BigDecimal chargedFee; // Importe descontado: totalFee limitado al saldo, que nunca queda negativo
+    public LocalDateTime postedAt;
+}
@@ -0,0 +1,24 @@
+package com.bancario.account.repository.entity;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Punto de control de un job por lotes, para poder reanudarlo desde la última partición confirmada.
+ * El ID identifica la ejecución (ej. "month-close:2025-09").
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "job_checkpoints")
+public class JobCheckpoint {
+    public String id;
+    public String lastProcessedId; // Último _id procesado (los cursores se recorren en orden de _id)
+    public long processedCount;
+    public boolean completed;
+    public LocalDate lastCompletedDate; // Jobs diarios: último día procesado por completo
+    public LocalDateTime watermark; // Jobs diarios: inicio de la última ejecución completa (los cambios posteriores van en la siguiente)
+    public LocalDateTime updatedAt;
+}
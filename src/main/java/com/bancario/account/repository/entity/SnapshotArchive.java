@@ -0,0 +1,25 @@
+package com.bancario.account.repository.entity;
+
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen mensual de snapshots que superó la ventana regulatoria de consulta, archivado comprimido.
+ * * El payload es el documento BalanceSnapshotMonthly original en JSON extendido comprimido con gzip;
+ * no participa en las consultas de historial.
+ */
+@Data
+@NoArgsConstructor
+@MongoEntity(collection = "balance_snapshots_archive", clientName = "analytics")
+public class SnapshotArchive {
+    public String id; // productId:YYYY-MM (mismo ID que el resumen mensual)
+    public String customerId;
+    public String productId;
+    public LocalDate monthStart;
+    public String encoding; // "gzip+extended-json"
+    public byte[] payload;
+    public LocalDateTime archivedAt;
+}
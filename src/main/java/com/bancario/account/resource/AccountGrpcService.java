@@ -0,0 +1,207 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.dto.AccountResponse;
+import com.bancario.account.dto.AccountTransactionStatus;
+import com.bancario.account.exception.BusinessException;
+import com.bancario.account.exception.ConcurrentUpdateException;
+import com.bancario.account.exception.CreditEligibilityCheckFailedException;
+import com.bancario.account.exception.CustomerNotFoundException;
+import com.bancario.account.exception.ServiceUnavailableException;
+import com.bancario.account.grpc.Account;
+import com.bancario.account.grpc.AccountIdRequest;
+import com.bancario.account.grpc.AccountNumberRequest;
+import com.bancario.account.grpc.AccountTransactions;
+import com.bancario.account.grpc.Decimal;
+import com.bancario.account.grpc.IncrementTransactionsReply;
+import com.bancario.account.grpc.IncrementTransactionsResult;
+import com.bancario.account.grpc.ItemError;
+import com.bancario.account.grpc.TransactionStatus;
+import com.bancario.account.grpc.UpdateBalanceRequest;
+import com.bancario.account.grpc.UpdateBalanceResult;
+import com.bancario.account.service.AccountService;
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.quarkus.grpc.GrpcService;
+import io.quarkus.grpc.RegisterInterceptor;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.BulkheadException;
+import org.eclipse.microprofile.faulttolerance.exceptions.CircuitBreakerOpenException;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.NoSuchElementException;
+
+/**
+ * Interfaz gRPC (src/main/proto/account.proto) de las operaciones que el Transaction-Service ejecuta en cada movimiento.
+ * * Comparte AccountService con AccountResource: mismas validaciones, Fault Tolerance y feed de cambios.
+ * Los errores se traducen al código gRPC equivalente al estado HTTP de la API REST, y las llamadas pasan por
+ * el mismo limitador de concurrencia (grupo TRANSACTIONAL) que la API REST.
+ * * Los RPC de lote procesan los elementos con concurrencia acotada y devuelven un resultado por elemento
+ * (no necesariamente en el orden de llegada).
+ */
+@Slf4j
+@GrpcService
+@RegisterInterceptor(GrpcConcurrencyLimitInterceptor.class)
+public class AccountGrpcService implements AccountTransactions {
+
+    @Inject
+    AccountService accountService;
+
+    @ConfigProperty(name = "account-service.grpc.batch-concurrency")
+    int batchConcurrency;
+
+    @Override
+    public Uni<Account> getAccountByNumber(AccountNumberRequest request) {
+        return accountService.getAccountByNumber(request.getAccountNumber())
+                .onItem().ifNull().failWith(() -> new NotFoundException("Account not found with number: " + request.getAccountNumber()))
+                .onItem().transform(AccountGrpcService::toAccount)
+                .onFailure().transform(AccountGrpcService::toStatus);
+    }
+
+    @Override
+    public Uni<TransactionStatus> getTransactionStatus(AccountIdRequest request) {
+        return accountService.getAccountTransactionStatus(request.getAccountId())
+                .onItem().transform(AccountGrpcService::toTransactionStatus)
+                .onFailure().transform(AccountGrpcService::toStatus);
+    }
+
+    @Override
+    public Uni<IncrementTransactionsReply> incrementTransactions(AccountIdRequest request) {
+        return accountService.incrementMonthlyTransactionCounter(request.getAccountId())
+                .onItem().transform(ignored -> IncrementTransactionsReply.getDefaultInstance())
+                .onFailure().transform(AccountGrpcService::toStatus);
+    }
+
+    @Override
+    public Uni<Account> updateBalance(UpdateBalanceRequest request) {
+        return updateBalanceOf(request)
+                .onItem().transform(AccountGrpcService::toAccount)
+                .onFailure().transform(AccountGrpcService::toStatus);
+    }
+
+    @Override
+    public Multi<IncrementTransactionsResult> incrementTransactionsBatch(Multi<AccountIdRequest> requests) {
+        return requests.onItem().transformToUni(request -> accountService.incrementMonthlyTransactionCounter(request.getAccountId())
+                        .onItem().transform(ignored -> IncrementTransactionsResult.newBuilder()
+                                .setAccountId(request.getAccountId())
+                                .build())
+                        .onFailure().recoverWithItem(failure -> IncrementTransactionsResult.newBuilder()
+                                .setAccountId(request.getAccountId())
+                                .setError(toItemError(failure))
+                                .build()))
+                .merge(batchConcurrency);
+    }
+
+    @Override
+    public Multi<UpdateBalanceResult> updateBalanceBatch(Multi<UpdateBalanceRequest> requests) {
+        return requests.onItem().transformToUni(request -> updateBalanceOf(request)
+                        .onItem().transform(account -> UpdateBalanceResult.newBuilder()
+                                .setAccountId(request.getAccountId())
+                                .setAccount(toAccount(account))
+                                .build())
+                        .onFailure().recoverWithItem(failure -> UpdateBalanceResult.newBuilder()
+                                .setAccountId(request.getAccountId())
+                                .setError(toItemError(failure))
+                                .build()))
+                .merge(batchConcurrency);
+    }
+
+    private Uni<AccountResponse> updateBalanceOf(UpdateBalanceRequest request) {
+        // update-balance reemplaza ambos valores: una petición parcial no debe escribir null en el campo ausente.
+        if (!request.hasBalance() || !request.hasAmountUsed()) {
+            return Uni.createFrom().failure(new IllegalArgumentException(
+                    "UpdateBalance requiere balance y amount_used (cuenta " + request.getAccountId() + ")."));
+        }
+        // Uni.createFrom().deferred: un Decimal mal formado falla el Uni (INVALID_ARGUMENT) en lugar de lanzar.
+        return Uni.createFrom().deferred(() -> accountService.updateAccountBalance(request.getAccountId(),
+                fromDecimal(request.getBalance()), fromDecimal(request.getAmountUsed())));
+    }
+
+    // --- Conversión DTO ↔ protobuf ---
+
+    private static Account toAccount(AccountResponse account) {
+        Account.Builder builder = Account.newBuilder().setId(account.id());
+        if (account.customerId() != null) builder.setCustomerId(account.customerId());
+        if (account.accountNumber() != null) builder.setAccountNumber(account.accountNumber());
+        if (account.productType() != null) builder.setProductType(account.productType().name());
+        if (account.accountType() != null) builder.setAccountType(account.accountType().name());
+        if (account.status() != null) builder.setStatus(account.status().name());
+        if (account.balance() != null) builder.setBalance(toDecimal(account.balance()));
+        if (account.amountUsed() != null) builder.setAmountUsed(toDecimal(account.amountUsed()));
+        if (account.overdueAmount() != null) builder.setOverdueAmount(toDecimal(account.overdueAmount()));
+        if (account.freeTransactionLimit() != null) builder.setFreeTransactionLimit(account.freeTransactionLimit());
+        if (account.transactionFeeAmount() != null) builder.setTransactionFeeAmount(toDecimal(account.transactionFeeAmount()));
+        if (account.currentMonthlyTransactions() != null) builder.setCurrentMonthlyTransactions(account.currentMonthlyTransactions());
+        if (account.version() != null) builder.setVersion(account.version());
+        return builder.build();
+    }
+
+    private static TransactionStatus toTransactionStatus(AccountTransactionStatus status) {
+        TransactionStatus.Builder builder = TransactionStatus.newBuilder();
+        if (status.freeTransactionLimit() != null) builder.setFreeTransactionLimit(status.freeTransactionLimit());
+        if (status.currentMonthlyTransactions() != null) builder.setCurrentMonthlyTransactions(status.currentMonthlyTransactions());
+        if (status.transactionFeeAmount() != null) builder.setTransactionFeeAmount(toDecimal(status.transactionFeeAmount()));
+        if (status.version() != null) builder.setVersion(status.version());
+        if (status.monthToDateAverageBalance() != null) builder.setMonthToDateAverageBalance(toDecimal(status.monthToDateAverageBalance()));
+        return builder.build();
+    }
+
+    private static Decimal toDecimal(BigDecimal value) {
+        return Decimal.newBuilder()
+                .setUnscaledValue(ByteString.copyFrom(value.unscaledValue().toByteArray()))
+                .setScale(value.scale())
+                .build();
+    }
+
+    private static BigDecimal fromDecimal(Decimal decimal) {
+        if (decimal.getUnscaledValue().isEmpty()) {
+            throw new IllegalArgumentException("Decimal sin valor: unscaled_value es obligatorio.");
+        }
+        return new BigDecimal(new BigInteger(decimal.getUnscaledValue().toByteArray()), decimal.getScale());
+    }
+
+    // --- Errores: mismo criterio que GlobalExceptionMapper y AccountResource ---
+
+    private static Status.Code toCode(Throwable failure) {
+        return switch (failure) {
+            case CustomerNotFoundException customerNotFoundException -> Status.Code.NOT_FOUND;
+            case NotFoundException notFoundException -> Status.Code.NOT_FOUND;
+            case NoSuchElementException noSuchElementException -> Status.Code.NOT_FOUND;
+            case CreditEligibilityCheckFailedException eligibilityCheckFailedException -> Status.Code.PERMISSION_DENIED;
+            case ServiceUnavailableException serviceUnavailableException -> Status.Code.UNAVAILABLE;
+            case CircuitBreakerOpenException circuitBreakerOpenException -> Status.Code.UNAVAILABLE;
+            case BulkheadException bulkheadException -> Status.Code.UNAVAILABLE;
+            case TimeoutException timeoutException -> Status.Code.DEADLINE_EXCEEDED;
+            case ConcurrentUpdateException concurrentUpdateException -> Status.Code.ABORTED;
+            case BusinessException businessException -> Status.Code.INVALID_ARGUMENT;
+            case IllegalArgumentException illegalArgumentException -> Status.Code.INVALID_ARGUMENT;
+            default -> Status.Code.INTERNAL;
+        };
+    }
+
+    private static StatusRuntimeException toStatus(Throwable failure) {
+        Status.Code code = toCode(failure);
+        if (code == Status.Code.INTERNAL) {
+            log.error("gRPC: fallo no controlado.", failure);
+        }
+        return code.toStatus().withDescription(failure.getMessage()).withCause(failure).asRuntimeException();
+    }
+
+    private static ItemError toItemError(Throwable failure) {
+        Status.Code code = toCode(failure);
+        if (code == Status.Code.INTERNAL) {
+            log.error("gRPC: fallo no controlado en un elemento de lote.", failure);
+        }
+        return ItemError.newBuilder()
+                .setCode(code.name())
+                .setMessage(failure.getMessage() == null ? "" : failure.getMessage())
+                .build();
+    }
+}
@@ -1,19 +1,43 @@
 package com.bancario.account.resource;
 
+import com.bancario.account.dto.AccountChangeEvent;
+import com.bancario.account.dto.AccountComplianceResponse;
+import com.bancario.account.dto.AccountLookupEntry;
+import com.bancario.account.dto.AccountLookupRequest;
 import com.bancario.account.dto.AccountRequest;
 import com.bancario.account.dto.AccountResponse;
-import com.bancario.account.dto.AccountTransactionStatus;
+import com.bancario.account.dto.BalanceAtResponse;
+import com.bancario.account.dto.BalanceMovementRequest;
+import com.bancario.account.dto.BalanceMovementResponse;
+import com.bancario.account.dto.BulkAccountResult;
 import com.bancario.account.dto.DailyBalanceHistoryDto;
+import com.bancario.account.dto.StripingRequest;
+import com.bancario.account.enums.EndpointGroup;
+import com.bancario.account.enums.ProductType;
+import com.bancario.account.exception.BusinessException;
+import com.bancario.account.exception.ConcurrentUpdateException;
 import com.bancario.account.service.AccountService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.vertx.http.Compressed;
+import io.smallrye.common.annotation.Blocking;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriInfo;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
@@ -21,10 +45,24 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.reactive.ResponseHeader;
+import org.jboss.resteasy.reactive.RestMediaType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Path("/accounts")
 @Produces(MediaType.APPLICATION_JSON)
@@ -33,9 +71,18 @@ import java.util.NoSuchElementException;
 @Tag(name = "Cuentas", description = "Endpoints para la gestión de cuentas bancarias.")
 public class AccountResource {
 
+    private static final String STALE_HEADER = "X-Account-Stale";
+
     @Inject
     AccountService accountService;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "account-service.bulk.max-items")
+    int bulkMaxItems;
+
+    @ConcurrencyGroup(EndpointGroup.ACQUISITION)
     @POST
     @Operation(summary = "Crea una nueva cuenta bancaria o de crédito")
     @APIResponse(responseCode = "201", description = "Cuenta creada exitosamente",
@@ -49,26 +96,130 @@ public class AccountResource {
                 });
     }
 
+    @ConcurrencyGroup(EndpointGroup.ACQUISITION)
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Crea cuentas de forma masiva",
+            description = "Para migraciones de cartera y onboarding corporativo. Devuelve un resultado por elemento, en el orden recibido.")
+    @APIResponse(responseCode = "200", description = "Resultado por elemento (CREATED, REJECTED o FAILED).")
+    @APIResponse(responseCode = "400", description = "Solicitud vacía o que excede el máximo permitido")
+    public Uni<List<BulkAccountResult>> createAccountsBulk(@RequestBody(required = true) List<AccountRequest> requests) {
+        return accountService.crearCuentasMasivo(requests);
+    }
+
+    /**
+     * Variante NDJSON de la creación masiva: un AccountRequest en JSON por línea.
+     * El cuerpo se lee línea a línea en un hilo worker (no en el event loop) y se rechaza en cuanto supera el
+     * máximo de elementos, sin terminar de leerlo ni de parsearlo.
+     */
+    @ConcurrencyGroup(EndpointGroup.ACQUISITION)
+    @POST
+    @Path("/bulk")
+    @Consumes(RestMediaType.APPLICATION_NDJSON)
+    @Blocking
+    @Operation(summary = "Crea cuentas de forma masiva a partir de un cuerpo NDJSON (un AccountRequest por línea)")
+    @APIResponse(responseCode = "200", description = "Resultado por elemento (CREATED, REJECTED o FAILED).")
+    @APIResponse(responseCode = "400", description = "Línea NDJSON inválida o solicitud que excede el máximo permitido")
+    public Uni<List<BulkAccountResult>> createAccountsBulkNdjson(InputStream body) throws IOException {
+        List<AccountRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (requests.size() == bulkMaxItems) {
+                    throw new BadRequestException("La solicitud masiva excede el máximo permitido de " + bulkMaxItems + " cuentas.");
+                }
+                try {
+                    requests.add(objectMapper.readValue(line, AccountRequest.class));
+                } catch (JsonProcessingException e) {
+                    throw new BadRequestException("Línea NDJSON inválida (" + lineNumber + "): " + e.getOriginalMessage());
+                }
+            }
+        }
+        return accountService.crearCuentasMasivo(requests);
+    }
+
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @GET
     @Path("/{accountId}")
     @Operation(summary = "Busca una cuenta por su ID")
     @APIResponse(responseCode = "200", description = "Cuenta encontrada",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = AccountResponse.class)))
     @APIResponse(responseCode = "404", description = "Cuenta no encontrada")
-    public Uni<AccountResponse> getAccountById(@PathParam("accountId") String accountId) {
-        return accountService.buscarPorCuentaId(accountId);
+    @APIResponse(responseCode = "304", description = "La cuenta no cambió desde el ETag indicado en If-None-Match")
+    @APIResponse(responseCode = "503", description = "MongoDB no disponible y sin copia de respaldo de la cuenta")
+    public Uni<Response> getAccountById(@PathParam("accountId") String accountId, @Context Request request,
+                                        @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+        return notModifiedOr(accountId, request, ifNoneMatch, version -> entityTag(accountId, version),
+                () -> accountService.buscarPorCuentaIdConRespaldo(accountId)
+                        .onItem().transform(result -> {
+                            AccountResponse account = result.account();
+                            Response.ResponseBuilder response = Response.ok(account);
+                            if (result.versioned()) {
+                                response.tag(entityTag(accountId, account.version()));
+                            }
+                            if (result.stale()) {
+                                // Copia de respaldo servida durante una caída de MongoDB.
+                                response.header("Age", result.staleness().toSeconds())
+                                        .header(STALE_HEADER, "true");
+                            }
+                            return response.build();
+                        }));
     }
 
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @GET
-    @Operation(summary = "Busca todas las cuentas de un cliente por su ID")
-    @APIResponse(responseCode = "200", description = "Lista de cuentas del cliente")
-    public Multi<AccountResponse> getAccountsByCustomerId(@QueryParam("customerId") String customerId) {
-        if (customerId == null || customerId.isEmpty()) {
-            throw new BadRequestException("El parámetro 'customerId' es obligatorio.");
+    @Operation(summary = "Busca todas las cuentas de un cliente por su ID, o varias cuentas por sus IDs",
+            description = "Con 'customerId' devuelve las cuentas del cliente. Con 'ids' (separados por coma o repetidos) "
+                    + "devuelve un resultado por ID en el orden solicitado, resuelto con una sola consulta.")
+    @APIResponse(responseCode = "200", description = "Lista de cuentas del cliente o resultados de la consulta múltiple")
+    @APIResponse(responseCode = "400", description = "Se debe indicar 'customerId' o 'ids' (no ambos)")
+    public Uni<Response> getAccounts(@QueryParam("customerId") String customerId,
+                                     @QueryParam("ids") List<String> ids) {
+        List<String> accountIds = ids == null ? List.of() : ids.stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .toList();
+        boolean byCustomer = customerId != null && !customerId.isEmpty();
+
+        if (byCustomer == !accountIds.isEmpty()) {
+            throw new BadRequestException("Se debe indicar el parámetro 'customerId' o el parámetro 'ids'.");
+        }
+        if (!byCustomer) {
+            return accountService.buscarPorCuentaIds(accountIds)
+                    .onItem().transform(entries -> Response.ok(entries).build());
+        }
+        return accountService.findByCustomerId(customerId)
+                .collect().asList()
+                .onItem().transform(accounts -> Response.ok(accounts).build());
+    }
+
+    /**
+     * Consulta múltiple para servicios internos (Transaction-Service, estados de cuenta).
+     */
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
+    @POST
+    @Path("/lookup")
+    @Operation(summary = "Consulta varias cuentas por ID o por número de cuenta en una sola llamada",
+            description = "Devuelve un resultado por clave en el orden solicitado; las claves no encontradas llevan un error.")
+    @APIResponse(responseCode = "200", description = "Resultados de la consulta múltiple")
+    @APIResponse(responseCode = "400", description = "Se debe indicar 'ids' o 'accountNumbers' (no ambos), hasta el máximo permitido")
+    public Uni<List<AccountLookupEntry>> lookupAccounts(@RequestBody(required = true) AccountLookupRequest request) {
+        boolean hasIds = request != null && request.ids() != null && !request.ids().isEmpty();
+        boolean hasNumbers = request != null && request.accountNumbers() != null && !request.accountNumbers().isEmpty();
+        if (hasIds == hasNumbers) {
+            throw new BadRequestException("Se debe indicar 'ids' o 'accountNumbers'.");
         }
-        return accountService.findByCustomerId(customerId);
+        return hasIds
+                ? accountService.buscarPorCuentaIds(request.ids())
+                : accountService.buscarPorNumerosDeCuenta(request.accountNumbers());
     }
 
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @DELETE
     @Path("/{accountId}")
     @Operation(summary = "Elimina una cuenta por su ID (cambia su estado a INACTIVO)")
@@ -80,8 +231,11 @@ public class AccountResource {
                 .onItem().transform(ignored -> Response.noContent().build());
     }
 
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @PUT
     @Path("/{accountId}/update-balance")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
     @Operation(summary = "Updates the balance of an account.")
     @APIResponse(
             responseCode = "200",
@@ -90,40 +244,170 @@ public class AccountResource {
     )
     @APIResponse(responseCode = "400", description = "Invalid account ID or request body.")
     @APIResponse(responseCode = "404", description = "Account not found.")
+    @APIResponse(responseCode = "409", description = "Account modified concurrently; retries exhausted.")
     public Uni<Response> updateAccountBalance(@PathParam("accountId") String accountId, AccountResponse request) {
         return accountService.updateAccountBalance(accountId, request)
                 .onItem().transform(account -> Response.ok(account).build())
-                .onFailure().recoverWithItem(e -> {
-                    if (e instanceof IllegalArgumentException) {
-                        return Response.status(Response.Status.BAD_REQUEST).build();
-                    } else if (e instanceof NoSuchElementException) {
-                        return Response.status(Response.Status.NOT_FOUND).build();
-                    }
-                    return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
-                });
+                .onFailure().recoverWithItem(AccountResource::toBalanceWriteFailure);
+    }
+
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
+    @POST
+    @Path("/{accountId}/credits")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
+    @Operation(summary = "Abona un importe en una cuenta pasiva.",
+            description = "Incremento atómico del saldo. Con saldo distribuido el abono va a un slot y 'balance' es null en la respuesta.")
+    @APIResponse(responseCode = "200", description = "Abono aplicado.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BalanceMovementResponse.class)))
+    @APIResponse(responseCode = "400", description = "Importe inválido, la cuenta no es pasiva o está inactiva.")
+    @APIResponse(responseCode = "404", description = "Cuenta no encontrada.")
+    public Uni<Response> creditAccount(@PathParam("accountId") String accountId, BalanceMovementRequest request) {
+        return Uni.createFrom().deferred(() -> accountService.creditAccount(accountId, request == null ? null : request.amount()))
+                .onItem().transform(movement -> Response.ok(movement).build())
+                .onFailure().recoverWithItem(AccountResource::toBalanceWriteFailure);
+    }
+
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
+    @POST
+    @Path("/{accountId}/debits")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
+    @Consumes({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
+    @Operation(summary = "Carga un importe en una cuenta pasiva si el saldo lo cubre.")
+    @APIResponse(responseCode = "200", description = "Cargo aplicado.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BalanceMovementResponse.class)))
+    @APIResponse(responseCode = "400", description = "Importe inválido, saldo insuficiente, la cuenta no es pasiva o está inactiva.")
+    @APIResponse(responseCode = "404", description = "Cuenta no encontrada.")
+    public Uni<Response> debitAccount(@PathParam("accountId") String accountId, BalanceMovementRequest request) {
+        return Uni.createFrom().deferred(() -> accountService.debitAccount(accountId, request == null ? null : request.amount()))
+                .onItem().transform(movement -> Response.ok(movement).build())
+                .onFailure().recoverWithItem(AccountResource::toBalanceWriteFailure);
+    }
+
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
+    @PUT
+    @Path("/{accountId}/striping")
+    @Operation(summary = "Activa, cambia o desactiva el saldo distribuido (slots) de una cuenta pasiva muy concurrida.",
+            description = "stripes = 0 desactiva y consolida los slots en el saldo base.")
+    @APIResponse(responseCode = "200", description = "Configuración aplicada; devuelve la cuenta con su saldo total.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = AccountResponse.class)))
+    @APIResponse(responseCode = "400", description = "Número de slots fuera de rango o la cuenta no es pasiva.")
+    @APIResponse(responseCode = "404", description = "Cuenta no encontrada.")
+    public Uni<Response> configureStriping(@PathParam("accountId") String accountId, StripingRequest request) {
+        return Uni.createFrom().deferred(() -> accountService.configureStriping(accountId, request == null ? null : request.stripes()))
+                .onItem().transform(account -> Response.ok(account).build())
+                .onFailure().recoverWithItem(AccountResource::toBalanceWriteFailure);
+    }
+
+    private static Response toBalanceWriteFailure(Throwable e) {
+        if (e instanceof IllegalArgumentException || e instanceof BusinessException) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        } else if (e instanceof NoSuchElementException) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        } else if (e instanceof ConcurrentUpdateException) {
+            return Response.status(Response.Status.CONFLICT).build();
+        }
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
     }
 
     /**
      * Endpoint consultado por el Transaction-Service para obtener límites y contador.
      */
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @GET
     @Path("/{accountId}/transaction-status")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
     @Operation(summary = "Consulta la configuración de límites de transacciones y el contador mensual.",
             description = "Usado por el Transaction-Service para determinar si se debe aplicar comisión.")
     @APIResponse(responseCode = "200", description = "Devuelve el estado actual del contador, límite y monto de la tarifa.")
     @APIResponse(responseCode = "404", description = "Cuenta no encontrada.")
     @APIResponse(responseCode = "400", description = "La cuenta no es de tipo transaccional (Pasivo).")
-    public Uni<AccountTransactionStatus> getTransactionStatus(
+    @APIResponse(responseCode = "304", description = "El estado no cambió desde el ETag indicado en If-None-Match")
+    public Uni<Response> getTransactionStatus(
+            @PathParam(value = "accountId") String accountId, @Context Request request,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+
+        // El ETag incluye el instante del saldo promedio del mes: solo se valida dentro del minuto en curso.
+        return notModifiedOr(accountId, request, ifNoneMatch,
+                version -> statusTag(accountId, version, LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES)),
+                () -> accountService.getAccountTransactionStatus(accountId)
+                        .onItem().transform(status -> status.version() == null
+                                // Sin versión (asientos diferidos pendientes): la respuesta no lleva ETag.
+                                ? Response.ok(status).build()
+                                : Response.ok(status).tag(statusTag(accountId, status.version(), status.monthToDateAverageAt())).build()));
+    }
+
+    /**
+     * Consulta el resultado de cumplimiento del Saldo Promedio Diario (SPD) de una cuenta VIP/PYME.
+     */
+    @ConcurrencyGroup(EndpointGroup.ANALYTIC)
+    @GET
+    @Path("/{accountId}/compliance")
+    @Operation(summary = "Consulta el cumplimiento del saldo promedio diario del mes en curso.",
+            description = "Devuelve el cálculo nocturno para cuentas pasivas VIP/PYME: promedio, requerido e incumplimiento.")
+    @APIResponse(responseCode = "200", description = "Resultado de cumplimiento de la cuenta.")
+    @APIResponse(responseCode = "404", description = "La cuenta no tiene cálculo de cumplimiento.")
+    public Uni<AccountComplianceResponse> getCompliance(
             @PathParam(value = "accountId") String accountId) {
 
-        return accountService.getAccountTransactionStatus(accountId);
+        return accountService.getAccountCompliance(accountId);
+    }
+
+    /**
+     * Saldo de una cuenta en un instante (disputas y auditoría), sin reconstruir el historial diario.
+     */
+    @ConcurrencyGroup(EndpointGroup.ANALYTIC)
+    @GET
+    @Path("/{accountId}/balance-at")
+    @Operation(summary = "Consulta el saldo de una cuenta en un instante.",
+            description = "Parte del último snapshot EOD o asiento con saldo anterior al instante y suma los abonos/cargos " +
+                    "registrados desde entonces. Incluye exactamente los movimientos del libro con occurredAt <= ts; " +
+                    "solo los abonos a slots de saldo distribuido simultáneos al Job EOD pueden quedar mal atribuidos. " +
+                    "Cubre el periodo aún no compactado por la retención de snapshots.")
+    @APIResponse(responseCode = "200", description = "Saldo en el instante indicado.",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BalanceAtResponse.class)))
+    @APIResponse(responseCode = "400", description = "ID inválido o instante ausente / futuro.")
+    @APIResponse(responseCode = "404", description = "No hay historial de la cuenta anterior al instante.")
+    public Uni<BalanceAtResponse> getBalanceAt(
+            @PathParam("accountId") String accountId,
+            @Parameter(description = "Instante consultado (YYYY-MM-DDTHH:MM:SS, hora local del servicio).")
+            @QueryParam("ts") LocalDateTime ts) {
+        return accountService.getBalanceAt(accountId, ts);
+    }
+
+    // Sin @ConcurrencyGroup: son conexiones de larga duración y ocuparían permanentemente cupos del limitador.
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @Operation(summary = "Feed de cambios de cuentas (Server-Sent Events).",
+            description = "Emite un evento por cada creación, cambio de saldo, incremento de contador o eliminación. " +
+                    "El id de cada evento es 'instancia:offset' (cada instancia numera sus eventos): al reconectar, " +
+                    "el cliente lo envía en Last-Event-ID (o en 'since') y recibe los cambios posteriores. " +
+                    "RESYNC_REQUIRED indica que el offset ya no está disponible o pertenece a otra instancia.")
+    @APIResponse(responseCode = "200", description = "Flujo de eventos abierto.")
+    @APIResponse(responseCode = "400", description = "Last-Event-ID o 'since' con formato inválido.")
+    public Multi<OutboundSseEvent> streamChanges(
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId,
+            @Parameter(description = "Último id recibido, 'instancia:offset' (alternativa a Last-Event-ID).")
+            @QueryParam("since") String since,
+            @Context Sse sse) {
+
+        return accountService.streamChanges(lastEventId != null ? lastEventId : since)
+                .onItem().transform(event -> sse.newEventBuilder()
+                        .id(event.instanceId() + ":" + event.offset())
+                        .name(event.type().name())
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(AccountChangeEvent.class, event)
+                        .build());
     }
 
     /**
      * Endpoint llamado por el Transaction-Service para incrementar el contador de forma atómica.
      */
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @PATCH // PATCH es el verbo más adecuado para actualizar una porción del recurso (el contador).
     @Path("/{accountId}/increment-transactions")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
     @Operation(summary = "Incrementa atómicamente el contador mensual de transacciones de la cuenta.",
             description = "Esta operación es atómica para garantizar la coherencia del contador bajo alta concurrencia.")
     @APIResponse(responseCode = "200", description = "Contador incrementado exitosamente.")
@@ -136,9 +420,10 @@ public class AccountResource {
                 .onItem().transform(ignored -> Response.ok().build());
     }
 
+    @ConcurrencyGroup(EndpointGroup.TRANSACTIONAL)
     @GET
     @Path("/by-number/{accountNumber}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
     @Operation(summary = "Obtiene una cuenta por su número.",
             description = "Endpoint utilizado internamente por el Transaction-Service.")
     @APIResponse(responseCode = "200", description = "Cuenta encontrada.")
@@ -152,8 +437,10 @@ public class AccountResource {
      * Endpoint reactivo para obtener el historial de saldos diarios (EOD) de un cliente.
      * La gestión de excepciones (400, 500) se delega a un Global Exception Mapper.
      */
+    @ConcurrencyGroup(EndpointGroup.ANALYTIC)
     @GET
     @Path("/daily-balances")
+    @Produces({MediaType.APPLICATION_JSON, CborMessageBodyHandler.APPLICATION_CBOR})
     @Operation(summary = "Obtiene el historial de saldos diarios (EOD) para un cliente.",
             description = "Utilizado para el cálculo analítico del Saldo Promedio Diario (SPD).")
     @APIResponse(responseCode = "200", description = "Lista de registros de saldo EOD.")
@@ -178,4 +465,72 @@ public class AccountResource {
                     log.debug("SPD Resource: Retornando {} registros. Delegando la respuesta final.", data.size());
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Exportación regulatoria: CSV en streaming de los saldos EOD de todos los clientes.
+     * El cuerpo se envía por bloques (chunked) y se comprime con gzip si el cliente lo acepta.
+     */
+    @ConcurrencyGroup(EndpointGroup.ANALYTIC)
+    @GET
+    @Path("/daily-balances/export")
+    @Produces("text/csv")
+    @Compressed
+    @ResponseHeader(name = "Content-Disposition", value = "attachment; filename=\"daily-balances.csv\"")
+    @Operation(summary = "Exporta en CSV los saldos diarios (EOD) de un rango de fechas.",
+            description = "Lee directamente del cursor de MongoDB con memoria constante. Admite Accept-Encoding: gzip. " +
+                    "Emite una fila por producto y día: los días sin snapshot repiten el último saldo del producto, " +
+                    "hasta el último día cerrado por el Job EOD. Con sparse=true solo se emiten los snapshots " +
+                    "almacenados (el día 1 de cada mes y los días con cambios de saldo).")
+    @APIResponse(responseCode = "200", description = "Archivo CSV (date,customerId,productId,productType,accountType,balanceEOD,amountUsedEOD).")
+    @APIResponse(responseCode = "400", description = "Rango de fechas inválido o superior al máximo permitido.")
+    public Multi<Buffer> exportDailyBalances(
+            @Parameter(description = "Fecha de inicio (YYYY-MM-DD).")
+            @QueryParam("startDate")
+            LocalDate startDate,
+            @Parameter(description = "Fecha de fin (YYYY-MM-DD).")
+            @QueryParam("endDate")
+            LocalDate endDate,
+            @Parameter(description = "Tipo de producto opcional (PASSIVE / ACTIVE).")
+            @QueryParam("productType")
+            ProductType productType,
+            @Parameter(description = "Opcional: true para exportar solo los días con snapshot almacenado (por defecto, false).")
+            @QueryParam("sparse")
+            boolean sparse
+    ) {
+        log.info("Exportación CSV: solicitud recibida para el rango [{} - {}]", startDate, endDate);
+        return accountService.exportarSaldosDiariosCsv(startDate, endDate, productType, sparse);
+    }
+
+    /**
+     * Responde 304 si el ETag de If-None-Match coincide con el ETag actual (calculado con 'currentTag' a partir
+     * de la versión de la cuenta), consultando solo la versión (proyección); en otro caso (o si la consulta de
+     * versión falla, o la cuenta no tiene versión validable) ejecuta la lectura completa.
+     */
+    private Uni<Response> notModifiedOr(String accountId, Request request, String ifNoneMatch,
+                                        Function<Long, EntityTag> currentTag, Supplier<Uni<Response>> fullRead) {
+        if (ifNoneMatch == null || !ObjectId.isValid(accountId)) {
+            return fullRead.get();
+        }
+        return accountService.getAccountVersion(accountId)
+                .onFailure().recoverWithNull()
+                .onItem().transformToUni(version -> {
+                    if (version != null) {
+                        EntityTag tag = currentTag.apply(version);
+                        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+                        if (notModified != null) {
+                            return Uni.createFrom().item(notModified.tag(tag).build());
+                        }
+                    }
+                    return fullRead.get();
+                });
+    }
+
+    private EntityTag entityTag(String accountId, Long version) {
+        return new EntityTag(accountId + "-" + (version != null ? version : 0L));
+    }
+
+    private EntityTag statusTag(String accountId, Long version, LocalDateTime averageAt) {
+        return averageAt == null ? entityTag(accountId, version)
+                : new EntityTag(entityTag(accountId, version).getValue() + "-" + averageAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+}
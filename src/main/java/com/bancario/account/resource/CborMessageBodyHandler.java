@@ -0,0 +1,73 @@
+package com.bancario.account.resource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Serialización binaria CBOR (RFC 8949) de los mismos DTOs que la API JSON, para las llamadas internas
+ * entre servicios que negocian 'application/cbor' (Accept / Content-Type).
+ * * El ObjectMapper CBOR es una copia del ObjectMapper de Quarkus: mismos módulos y configuración
+ * (fechas, propiedades desconocidas, etc.), de modo que ambos formatos son equivalentes.
+ * Los BigDecimal se codifican como fracción decimal exacta, sin pasar por texto.
+ */
+@Provider
+@Produces(CborMessageBodyHandler.APPLICATION_CBOR)
+@Consumes(CborMessageBodyHandler.APPLICATION_CBOR)
+public class CborMessageBodyHandler implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private final ObjectMapper cborMapper;
+
+    @Inject
+    public CborMessageBodyHandler(ObjectMapper objectMapper) {
+        this.cborMapper = objectMapper.copyWith(new CBORFactory())
+                // El contenedor gestiona el ciclo de vida de los streams de la petición y la respuesta.
+                .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+                .configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isCbor(mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        return cborMapper.readerFor(cborMapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isCbor(mediaType);
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        // Con Response.ok(entity) el tipo genérico es Object: se usa la clase real del valor.
+        Type serializedType = genericType == null || genericType == Object.class ? type : genericType;
+        cborMapper.writerFor(cborMapper.constructType(serializedType)).writeValue(entityStream, value);
+    }
+
+    private static boolean isCbor(MediaType mediaType) {
+        return mediaType != null && "application".equals(mediaType.getType()) && "cbor".equals(mediaType.getSubtype());
+    }
+}
@@ -0,0 +1,18 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Asigna un endpoint a un grupo del limitador de concurrencia adaptativo ({@link ConcurrencyLimitFilter}).
+ * Los endpoints sin esta anotación no se limitan.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConcurrencyGroup {
+    EndpointGroup value();
+}
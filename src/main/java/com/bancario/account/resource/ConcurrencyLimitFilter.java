@@ -0,0 +1,104 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+import com.bancario.account.exception.ApiError;
+import com.bancario.account.util.AdaptiveConcurrencyLimiter;
+import io.quarkus.vertx.http.runtime.CurrentVertxRequest;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+
+/**
+ * Limitación de concurrencia adaptativa y descarte de carga por grupo de endpoints.
+ * <p>
+ * Cada grupo ({@link EndpointGroup}) tiene su propio {@link AdaptiveConcurrencyLimiter}, compartido con la interfaz
+ * gRPC ({@link ConcurrencyLimiters}). Por encima del límite la petición se rechaza de inmediato con 503 y Retry-After,
+ * en lugar de encolarse hasta que salte el @Timeout.
+ * Cuando el grupo transaccional está saturado, también se descartan las peticiones analíticas y de alta,
+ * para que el Transaction-Service conserve la capacidad disponible.
+ * <p>
+ * El hueco se libera cuando termina de enviarse la respuesta (o se cierra la conexión), no al salir del método:
+ * una respuesta en streaming (Multi) lo ocupa mientras emite. Solo las respuestas de sobrecarga (503 por
+ * circuito abierto o falta de capacidad aguas abajo, 504 por timeout) reducen el límite; los errores de negocio no.
+ */
+@Slf4j
+@Provider
+public class ConcurrencyLimitFilter implements ContainerRequestFilter {
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Inject
+    CurrentVertxRequest currentVertxRequest;
+
+    @Inject
+    ConcurrencyLimiters limiters;
+
+    @ConfigProperty(name = "account-service.concurrency.retry-after-seconds")
+    int retryAfterSeconds;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!limiters.isEnabled() || resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+        ConcurrencyGroup annotation = resourceInfo.getResourceMethod().getAnnotation(ConcurrencyGroup.class);
+        if (annotation == null) {
+            return;
+        }
+        EndpointGroup group = annotation.value();
+
+        String rejection = limiters.admit(group);
+        if (rejection != null) {
+            reject(requestContext, group, rejection);
+            return;
+        }
+        AdaptiveConcurrencyLimiter limiter = limiters.limiter(group);
+        RoutingContext routingContext = currentVertxRequest.getCurrent();
+        long start = System.nanoTime();
+        routingContext.addEndHandler(result -> {
+            if (result.failed()) {
+                // Conexión cerrada antes de terminar (cliente que cancela un streaming): no es una muestra de latencia.
+                limiter.cancel();
+                return;
+            }
+            limiter.release(System.nanoTime() - start, isOverload(routingContext.response().getStatusCode()));
+        });
+    }
+
+    /**
+     * Respuestas que indican sobrecarga: 503 (circuito abierto / bulkhead) y 504 (timeout).
+     */
+    static boolean isOverload(int status) {
+        return status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()
+                || status == Response.Status.GATEWAY_TIMEOUT.getStatusCode();
+    }
+
+    private void reject(ContainerRequestContext requestContext, EndpointGroup group, String message) {
+        log.debug("Petición rechazada por el limitador de concurrencia ({}): {}", group, requestContext.getUriInfo().getPath());
+
+        ApiError apiError = ApiError.builder()
+                .timestamp(LocalDateTime.now())
+                .status(Response.Status.SERVICE_UNAVAILABLE.getStatusCode())
+                .error("Service Unavailable (Load Shedding)")
+                .message(message)
+                .path(requestContext.getUriInfo().getPath())
+                .build();
+        requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(apiError)
+                .build());
+    }
+}
@@ -0,0 +1,91 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+import com.bancario.account.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limitadores de concurrencia adaptativos por grupo de endpoints, compartidos por la API REST
+ * ({@link ConcurrencyLimitFilter}) y la interfaz gRPC ({@link GrpcConcurrencyLimitInterceptor}):
+ * ambas llegan al mismo AccountService, así que se reparten la misma capacidad.
+ */
+@ApplicationScoped
+public class ConcurrencyLimiters {
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @ConfigProperty(name = "account-service.concurrency.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "account-service.concurrency.initial-limit")
+    int initialLimit;
+
+    @ConfigProperty(name = "account-service.concurrency.min-limit")
+    int minLimit;
+
+    @ConfigProperty(name = "account-service.concurrency.max-limit")
+    int maxLimit;
+
+    @ConfigProperty(name = "account-service.concurrency.priority-threshold")
+    double priorityThreshold;
+
+    private final Map<EndpointGroup, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rejections = new EnumMap<>(EndpointGroup.class);
+
+    @PostConstruct
+    void init() {
+        for (EndpointGroup group : EndpointGroup.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+            limiters.put(group, limiter);
+            Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Límite de concurrencia adaptativo actual")
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+            Gauge.builder("concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Peticiones en curso")
+                    .tag("group", group.name())
+                    .register(meterRegistry);
+            rejections.put(group, Counter.builder("concurrency.rejected")
+                    .description("Peticiones rechazadas por el limitador (503 / UNAVAILABLE)")
+                    .tag("group", group.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide la admisión de una petición del grupo y, si se admite, reserva su hueco.
+     * @return null si la petición se admite; si no, el motivo del rechazo (ya contabilizado).
+     */
+    String admit(EndpointGroup group) {
+        String rejection = null;
+        // Prioridad: con el grupo transaccional saturado, los demás grupos ceden su capacidad.
+        if (group != EndpointGroup.TRANSACTIONAL
+                && limiters.get(EndpointGroup.TRANSACTIONAL).utilization() >= priorityThreshold) {
+            rejection = "Servicio saturado: se prioriza el tráfico transaccional.";
+        } else if (!limiters.get(group).tryAcquire()) {
+            rejection = "Límite de concurrencia alcanzado para el grupo " + group + ".";
+        }
+        if (rejection != null) {
+            rejections.get(group).increment();
+        }
+        return rejection;
+    }
+
+    AdaptiveConcurrencyLimiter limiter(EndpointGroup group) {
+        return limiters.get(group);
+    }
+}
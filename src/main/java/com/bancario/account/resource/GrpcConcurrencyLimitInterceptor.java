@@ -0,0 +1,88 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+import com.bancario.account.util.AdaptiveConcurrencyLimiter;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limitación de concurrencia de la interfaz gRPC: el equivalente de {@link ConcurrencyLimitFilter} para
+ * AccountGrpcService, con los mismos limitadores ({@link ConcurrencyLimiters}).
+ * <p>
+ * Todas las llamadas de AccountTransactions son del grupo TRANSACTIONAL. Por encima del límite la llamada se
+ * cierra de inmediato con UNAVAILABLE. El hueco se libera al cerrar la llamada (un RPC de lote en streaming lo
+ * ocupa mientras dura) o si el cliente la cancela; solo UNAVAILABLE y DEADLINE_EXCEEDED reducen el límite.
+ */
+@Slf4j
+@ApplicationScoped
+public class GrpcConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private static final EndpointGroup GROUP = EndpointGroup.TRANSACTIONAL;
+
+    @Inject
+    ConcurrencyLimiters limiters;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (!limiters.isEnabled()) {
+            return next.startCall(call, headers);
+        }
+        String rejection = limiters.admit(GROUP);
+        if (rejection != null) {
+            log.debug("Llamada gRPC rechazada por el limitador de concurrencia: {}", call.getMethodDescriptor().getFullMethodName());
+            call.close(Status.UNAVAILABLE.withDescription(rejection), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        AdaptiveConcurrencyLimiter limiter = limiters.limiter(GROUP);
+        AtomicBoolean released = new AtomicBoolean();
+        long start = System.nanoTime();
+        ServerCall<ReqT, RespT> releasingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                if (released.compareAndSet(false, true)) {
+                    limiter.release(System.nanoTime() - start, isOverload(status.getCode()));
+                }
+                super.close(status, trailers);
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(releasingCall, headers);
+        } catch (RuntimeException e) {
+            if (released.compareAndSet(false, true)) {
+                limiter.cancel();
+            }
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                // Cliente que cancela o conexión cerrada: no es una muestra de latencia.
+                if (released.compareAndSet(false, true)) {
+                    limiter.cancel();
+                }
+                super.onCancel();
+            }
+        };
+    }
+
+    /**
+     * Códigos que indican sobrecarga, como 503 y 504 en la API REST.
+     */
+    static boolean isOverload(Status.Code code) {
+        return code == Status.Code.UNAVAILABLE || code == Status.Code.DEADLINE_EXCEEDED;
+    }
+}
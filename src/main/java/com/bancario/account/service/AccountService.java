@@ -1,16 +1,27 @@
 package com.bancario.account.service;
 
+import com.bancario.account.dto.AccountChangeEvent;
+import com.bancario.account.dto.AccountComplianceResponse;
+import com.bancario.account.dto.AccountLookupEntry;
+import com.bancario.account.dto.AccountReadResult;
 import com.bancario.account.dto.AccountRequest;
 import com.bancario.account.dto.AccountResponse;
 import com.bancario.account.dto.AccountTransactionStatus;
+import com.bancario.account.dto.BalanceAtResponse;
+import com.bancario.account.dto.BalanceMovementResponse;
+import com.bancario.account.dto.BulkAccountResult;
 import com.bancario.account.dto.DailyBalanceHistoryDto;
+import com.bancario.account.enums.ProductType;
 import com.bancario.account.exception.CustomerNotFoundException;
 import com.bancario.account.exception.DataAccessException;
 import com.bancario.account.repository.entity.Account;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.Multi;
+import io.vertx.core.buffer.Buffer;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -26,6 +37,15 @@ public interface AccountService {
      */
     Uni<AccountResponse> crearCuenta(AccountRequest request);
 
+    /**
+     * Crea cuentas de forma masiva (migraciones de cartera, onboarding corporativo).
+     * Aplica las mismas reglas que crearCuenta consultando una sola vez a cada cliente y su cartera,
+     * y persiste las cuentas aceptadas por lotes.
+     * @param requests Solicitudes de creación; cada una se evalúa de forma independiente.
+     * @return Un objeto Uni que emite un resultado por solicitud, en el mismo orden recibido.
+     */
+    Uni<List<BulkAccountResult>> crearCuentasMasivo(List<AccountRequest> requests);
+
     /**
      * Busca un producto bancario por su identificador de cuenta.
      * @param accountId El ID único de la cuenta.
@@ -33,6 +53,28 @@ public interface AccountService {
      */
     Uni<AccountResponse> buscarPorCuentaId(String accountId);
 
+    /**
+     * Busca una cuenta por su ID y, si MongoDB no está disponible (timeout o circuito abierto),
+     * sirve la última copia leída correctamente indicando su antigüedad (stale-while-revalidate).
+     * @param accountId El ID único de la cuenta.
+     * @return Un objeto Uni que emite la cuenta y, si es una copia de respaldo, su antigüedad.
+     */
+    Uni<AccountReadResult> buscarPorCuentaIdConRespaldo(String accountId);
+
+    /**
+     * Busca varias cuentas por sus IDs con una sola consulta.
+     * @param accountIds IDs de cuenta (hasta el máximo configurado).
+     * @return Un objeto Uni que emite un resultado por ID, en el orden solicitado.
+     */
+    Uni<List<AccountLookupEntry>> buscarPorCuentaIds(List<String> accountIds);
+
+    /**
+     * Busca varias cuentas por sus números de cuenta con una sola consulta.
+     * @param accountNumbers Números de cuenta (hasta el máximo configurado).
+     * @return Un objeto Uni que emite un resultado por número, en el orden solicitado.
+     */
+    Uni<List<AccountLookupEntry>> buscarPorNumerosDeCuenta(List<String> accountNumbers);
+
     /**
      * Elimina (cancela) un producto bancario.
      * @param accountId El ID de la cuenta a cancelar.
@@ -56,6 +98,61 @@ public interface AccountService {
      */
     Uni<AccountResponse> updateAccountBalance(String accountId, AccountResponse updatedAccount);
 
+    /**
+     * Actualiza el balance y el monto utilizado de una cuenta sin pasar por el DTO completo
+     * (usado por la interfaz gRPC del Transaction-Service).
+     *
+     * @param accountId El ID de la cuenta.
+     * @param balance El nuevo balance (o límite de crédito).
+     * @param amountUsed El nuevo monto utilizado.
+     * @return Uni que emite la cuenta actualizada.
+     */
+    Uni<AccountResponse> updateAccountBalance(String accountId, BigDecimal balance, BigDecimal amountUsed);
+
+    /**
+     * Proyecta en los documentos Account los asientos diferidos del libro de movimientos (proyección asíncrona)
+     * y resuelve los asientos preparados que quedaron sin confirmar ni anular.
+     *
+     * @param limit Máximo de asientos pendientes examinados por ejecución.
+     * @return Uni con el número de cuentas proyectadas.
+     */
+    Uni<Integer> projectPendingMovements(int limit);
+
+    /**
+     * Abona un importe en una cuenta pasiva. Con saldo distribuido, el abono va a uno de sus slots
+     * y no escribe el documento de la cuenta.
+     *
+     * @param accountId El ID de la cuenta.
+     * @param amount Importe positivo.
+     * @return Uni con el resultado; balance es null si la cuenta tiene saldo distribuido.
+     * Falla con BusinessException si la cuenta está inactiva.
+     */
+    Uni<BalanceMovementResponse> creditAccount(String accountId, BigDecimal amount);
+
+    /**
+     * Carga un importe en una cuenta pasiva solo si el saldo total lo cubre. Con saldo distribuido,
+     * si el saldo base no alcanza se consolidan los slots en una transacción antes de decidir.
+     *
+     * @return Uni con el resultado; falla con BusinessException si el saldo es insuficiente o la cuenta está inactiva.
+     */
+    Uni<BalanceMovementResponse> debitAccount(String accountId, BigDecimal amount);
+
+    /**
+     * Activa (stripes > 0), cambia o desactiva (0) el saldo distribuido de una cuenta pasiva, en caliente.
+     *
+     * @return Uni con la cuenta y su saldo total.
+     */
+    Uni<AccountResponse> configureStriping(String accountId, Integer stripes);
+
+    /**
+     * Consulta solo la versión actual de la cuenta (sin leer ni mapear la entidad completa),
+     * para responder las consultas condicionales (If-None-Match) con 304.
+     * @param accountId El ID de la cuenta.
+     * @return Un objeto Uni que emite la versión, o null si la cuenta no existe, tiene saldo distribuido o asientos
+     * diferidos pendientes (sin validación condicional: los abonos a slots y los asientos diferidos no cambian la versión).
+     */
+    Uni<Long> getAccountVersion(String accountId);
+
     /**
      * Recupera la configuración de tarifas y el estado actual de transacciones
      * (límites y contador) para que el Transaction-Service pueda aplicar la regla de tarificación.
@@ -93,4 +190,47 @@ public interface AccountService {
             LocalDate startDate,
             LocalDate endDate
     ) throws CustomerNotFoundException, DataAccessException;
+
+    /**
+     * Exporta en CSV los saldos EOD de todos los clientes para un rango de fechas, leyendo
+     * directamente del cursor de MongoDB y emitiendo el archivo por bloques (memoria constante).
+     * Los días sin snapshot de un producto repiten su último valor hasta el último día cerrado por el Job EOD;
+     * solo se mantiene en memoria el último valor de los productos del mes en curso.
+     *
+     * @param startDate La fecha de inicio del periodo (inclusiva).
+     * @param endDate La fecha de fin del periodo (inclusiva).
+     * @param productType Filtro opcional por tipo de producto; null para todos.
+     * @param sparse Formato disperso: true emite solo los snapshots almacenados (día 1 de cada mes y días con cambios).
+     * @return Multi que emite los bloques del CSV, comenzando por la cabecera.
+     */
+    Multi<Buffer> exportarSaldosDiariosCsv(LocalDate startDate, LocalDate endDate, ProductType productType, boolean sparse);
+
+    /**
+     * Saldo de una cuenta en un instante: último snapshot EOD o asiento con saldo anterior al instante,
+     * más los importes registrados desde entonces (coste acotado por la actividad desde esa base).
+     *
+     * @param accountId El ID de la cuenta.
+     * @param instant Instante consultado (hora local del servicio); no puede ser futuro.
+     * @return Uni con el saldo; falla con NotFoundException si no hay historial anterior al instante.
+     */
+    Uni<BalanceAtResponse> getBalanceAt(String accountId, LocalDateTime instant);
+
+    /**
+     * Obtiene el último resultado de cumplimiento del Saldo Promedio Diario (SPD) del mes en curso
+     * para una cuenta VIP/PYME, precalculado por el job nocturno de cumplimiento.
+     *
+     * @param accountId El ID de la cuenta.
+     * @return Uni que emite el resultado de cumplimiento; falla con NotFoundException si la cuenta no tiene cálculo.
+     */
+    Uni<AccountComplianceResponse> getAccountCompliance(String accountId);
+
+    /**
+     * Flujo de cambios de cuentas (creación, saldo, contador, eliminación) con offsets monótonos por instancia.
+     *
+     * @param lastEventId Último id recibido por el consumidor ('instancia:offset'; un offset solo se interpreta
+     *                    como de esta instancia); null para recibir solo los nuevos cambios.
+     * @return Multi con los cambios posteriores al offset seguidos de los cambios en vivo;
+     * emite RESYNC_REQUIRED si el offset ya no está disponible o es de otra instancia.
+     */
+    Multi<AccountChangeEvent> streamChanges(String lastEventId);
 }
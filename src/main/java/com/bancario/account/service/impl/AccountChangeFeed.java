@@ -0,0 +1,212 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.dto.AccountChangeEvent;
+import com.bancario.account.enums.AccountChangeType;
+import com.bancario.account.mapper.AccountMapper;
+import com.bancario.account.repository.AccountChangeRepository;
+import com.bancario.account.repository.entity.Account;
+import com.bancario.account.repository.entity.AccountChange;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feed de cambios de cuentas: cada escritura publica un evento compacto con un offset monótono.
+ * <p>
+ * Los eventos recientes se guardan en un anillo en memoria (reanudación inmediata desde un offset) y se
+ * persisten de forma asíncrona en una colección con tope, que permite reanudar tras un reinicio o desde
+ * offsets que ya salieron del anillo. Si el offset pedido ya no está disponible, se emite RESYNC_REQUIRED.
+ * <p>
+ * Los offsets los asigna esta instancia en su propio espacio (instanceId): el feed refleja las escrituras hechas a
+ * través de ella, y varias instancias comparten la colección persistida sin pisarse. Un offset de otra instancia
+ * no es reanudable aquí y recibe RESYNC_REQUIRED.
+ * <p>
+ * Cada suscriptor tiene un buffer acotado (la reposición del anillo más 'subscriber-max-lag' eventos en vivo):
+ * un consumidor que no consume al ritmo del feed recibe un fallo de desbordamiento y debe reconectarse con su último offset.
+ */
+@Slf4j
+@ApplicationScoped
+public class AccountChangeFeed {
+
+    @Inject
+    AccountChangeRepository changeRepository;
+
+    @Inject
+    AccountMapper accountMapper;
+
+    @ConfigProperty(name = "account-service.change-feed.buffer-size")
+    int bufferSize;
+
+    @ConfigProperty(name = "account-service.change-feed.subscriber-max-lag")
+    int subscriberMaxLag;
+
+    @ConfigProperty(name = "account-service.change-feed.instance-id")
+    String instanceId;
+
+    @ConfigProperty(name = "account-service.change-feed.persisted-max-bytes")
+    long persistedMaxBytes;
+
+    @ConfigProperty(name = "account-service.change-feed.persisted-max-documents")
+    long persistedMaxDocuments;
+
+    private final Set<MultiEmitter<? super AccountChangeEvent>> subscribers = ConcurrentHashMap.newKeySet();
+    // Protegidos por 'this': el anillo, el siguiente offset y el primer offset cargado en el anillo.
+    private AccountChangeEvent[] ring;
+    private long nextOffset = 1;
+    private long ringFloor = 1;
+
+    @PostConstruct
+    void init() {
+        ring = new AccountChangeEvent[bufferSize];
+    }
+
+    /**
+     * Al arrancar, crea la colección con tope y carga su cola en el anillo para continuar la secuencia de offsets.
+     */
+    void onStart(@Observes StartupEvent event) {
+        try {
+            List<AccountChange> tail = changeRepository.ensureCappedCollection(persistedMaxBytes, persistedMaxDocuments)
+                    .chain(() -> changeRepository.findLatest(instanceId, bufferSize))
+                    .await().atMost(Duration.ofSeconds(30));
+            synchronized (this) {
+                for (AccountChange change : tail) {
+                    ring[index(change.offset)] = accountMapper.toChangeEvent(change);
+                }
+                if (!tail.isEmpty()) {
+                    ringFloor = tail.get(0).offset;
+                    nextOffset = tail.get(tail.size() - 1).offset + 1;
+                }
+            }
+            log.info("Feed de cambios de la instancia {} iniciado en el offset {} ({} eventos recuperados).",
+                    instanceId, nextOffset, tail.size());
+        } catch (RuntimeException e) {
+            // Sin la cola persistida, los offsets continúan desde el reloj para no repetir offsets ya emitidos.
+            synchronized (this) {
+                nextOffset = System.currentTimeMillis() * 1_000;
+                ringFloor = nextOffset;
+            }
+            log.error("No se pudo recuperar la cola del feed de cambios; se continúa en el offset {}.", nextOffset, e);
+        }
+    }
+
+    /**
+     * Publica el estado de la cuenta tras una escritura.
+     */
+    public void publish(AccountChangeType type, Account account) {
+        AccountChangeEvent event;
+        synchronized (this) {
+            event = new AccountChangeEvent(instanceId, nextOffset++, type, account.id.toHexString(), account.customerId,
+                    account.balance, account.amountUsed, account.currentMonthlyTransactions, account.version, LocalDateTime.now());
+            ring[index(event.offset())] = event;
+            for (MultiEmitter<? super AccountChangeEvent> subscriber : subscribers) {
+                subscriber.emit(event);
+            }
+        }
+        changeRepository.persist(toEntity(event)).subscribe().with(
+                ignored -> { },
+                failure -> log.warn("No se pudo persistir el evento {} del feed de cambios: {}", event.offset(), failure.getMessage()));
+    }
+
+    /**
+     * Flujo de eventos posteriores al offset indicado, seguido de los eventos en vivo.
+     * @param offsetInstanceId Instancia a la que pertenece afterOffset; null si es de esta instancia.
+     * @param afterOffset Último offset recibido por el consumidor; null para recibir solo los nuevos eventos.
+     */
+    public Multi<AccountChangeEvent> stream(String offsetInstanceId, Long afterOffset) {
+        if (afterOffset != null && offsetInstanceId != null && !offsetInstanceId.equals(instanceId)) {
+            log.info("Offset {} de la instancia {}: no es reanudable en {}, se solicita resincronización.",
+                    afterOffset, offsetInstanceId, instanceId);
+            return subscribe(null, true);
+        }
+        long ringStart;
+        synchronized (this) {
+            ringStart = oldestRingOffset();
+        }
+        if (afterOffset == null || afterOffset + 1 >= ringStart) {
+            return subscribe(afterOffset, false);
+        }
+        // Los eventos que ya salieron del anillo se leen de la colección con tope antes de pasar al anillo.
+        return changeRepository.findOldestOffset(instanceId)
+                .chain(oldestPersisted -> changeRepository.findRange(instanceId, afterOffset, ringStart - 1)
+                        .onItem().transform(changes -> {
+                            List<AccountChangeEvent> prefix = new ArrayList<>(changes.size() + 1);
+                            if (oldestPersisted == null || afterOffset + 1 < oldestPersisted) {
+                                prefix.add(resyncRequired(afterOffset));
+                            }
+                            changes.forEach(change -> prefix.add(accountMapper.toChangeEvent(change)));
+                            return prefix;
+                        }))
+                .onItem().transformToMulti(prefix -> Multi.createBy().concatenating().streams(
+                        Multi.createFrom().iterable(prefix),
+                        subscribe(ringStart - 1, false)));
+    }
+
+    private Multi<AccountChangeEvent> subscribe(Long afterOffset, boolean resync) {
+        Multi<AccountChangeEvent> events = Multi.createFrom().emitter(emitter -> {
+            // La reposición desde el anillo y el alta como suscriptor ocurren bajo el mismo bloqueo que publish:
+            // no se pierde ni se duplica ningún evento entre ambas.
+            synchronized (this) {
+                if (resync) {
+                    // El consumidor continúa desde el último offset de esta instancia tras resincronizarse.
+                    emitter.emit(resyncRequired(nextOffset - 1));
+                } else if (afterOffset != null) {
+                    long from = afterOffset + 1;
+                    long oldest = oldestRingOffset();
+                    if (from < oldest) {
+                        emitter.emit(resyncRequired(afterOffset));
+                        from = oldest;
+                    }
+                    for (long offset = from; offset < nextOffset; offset++) {
+                        emitter.emit(ring[index(offset)]);
+                    }
+                }
+                subscribers.add(emitter);
+            }
+            emitter.onTermination(() -> subscribers.remove(emitter));
+        });
+        // Buffer acotado por suscriptor: al desbordarse, el flujo falla (BackPressureFailure), el emisor queda
+        // cancelado y se da de baja; el consumidor se reconecta con su último offset.
+        return events.onOverflow().buffer(bufferSize + subscriberMaxLag);
+    }
+
+    private long oldestRingOffset() {
+        return Math.max(ringFloor, nextOffset - bufferSize);
+    }
+
+    private int index(long offset) {
+        return (int) Math.floorMod(offset, (long) bufferSize);
+    }
+
+    private AccountChangeEvent resyncRequired(long afterOffset) {
+        return new AccountChangeEvent(instanceId, afterOffset, AccountChangeType.RESYNC_REQUIRED,
+                null, null, null, null, null, null, LocalDateTime.now());
+    }
+
+    private AccountChange toEntity(AccountChangeEvent event) {
+        AccountChange change = new AccountChange();
+        change.instanceId = event.instanceId();
+        change.offset = event.offset();
+        change.accountId = event.accountId();
+        change.customerId = event.customerId();
+        change.type = event.type();
+        change.balance = event.balance();
+        change.amountUsed = event.amountUsed();
+        change.currentMonthlyTransactions = event.currentMonthlyTransactions();
+        change.version = event.version();
+        change.occurredAt = event.occurredAt();
+        return change;
+    }
+}
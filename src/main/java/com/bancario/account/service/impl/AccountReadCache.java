@@ -0,0 +1,108 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.dto.AccountResponse;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotada (LRU) de la última lectura correcta de cada cuenta, usada solo como respaldo
+ * (stale-while-revalidate) cuando la lectura desde MongoDB no está disponible.
+ * Nunca se consulta en el camino normal de lectura.
+ * * Toda escritura de la cuenta en esta instancia actualiza su copia o la descarta (evict), y los jobs que
+ * escriben cuentas en bloque descartan las copias afectadas. Las escrituras de otras instancias no se
+ * reflejan: por eso la copia servida siempre indica su antigüedad.
+ */
+@ApplicationScoped
+public class AccountReadCache {
+
+    /**
+     * Copia cacheada de una cuenta y el instante (System.nanoTime) en que se leyó.
+     */
+    public record Entry(AccountResponse account, long storedAtNanos) {
+        public Duration age() {
+            return Duration.ofNanos(System.nanoTime() - storedAtNanos);
+        }
+    }
+
+    @ConfigProperty(name = "account-service.stale-cache.enabled")
+    boolean enabled;
+
+    @ConfigProperty(name = "account-service.stale-cache.max-entries")
+    int maxEntries;
+
+    @ConfigProperty(name = "account-service.stale-cache.refresh-interval-millis")
+    long refreshIntervalMillis;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, Long> lastRefreshAttempt = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra la última lectura correcta de la cuenta.
+     */
+    public void put(AccountResponse account) {
+        if (!enabled || account == null || account.id() == null) {
+            return;
+        }
+        synchronized (this) {
+            entries.put(account.id(), new Entry(account, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Descarta la copia de la cuenta: se escribió sin un documento completo con el que actualizarla.
+     */
+    public void evict(String accountId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            entries.remove(accountId);
+        }
+    }
+
+    /**
+     * Descarta todas las copias (escrituras en bloque sobre un conjunto de cuentas desconocido).
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return La última copia de la cuenta, o null si no está en caché.
+     */
+    public synchronized Entry get(String accountId) {
+        return enabled ? entries.get(accountId) : null;
+    }
+
+    /**
+     * Limita los refrescos en segundo plano a uno por cuenta y por intervalo.
+     * @return true si se puede lanzar un refresco de la cuenta ahora.
+     */
+    public synchronized boolean tryStartRefresh(String accountId) {
+        long now = System.nanoTime();
+        Long last = lastRefreshAttempt.get(accountId);
+        if (last != null && now - last < Duration.ofMillis(refreshIntervalMillis).toNanos()) {
+            return false;
+        }
+        lastRefreshAttempt.put(accountId, now);
+        return true;
+    }
+}
@@ -1,37 +1,78 @@
 package com.bancario.account.service.impl;
 
-import com.bancario.account.client.CustomerServiceRestClient;
+import com.bancario.account.client.CustomerLookup;
+import com.bancario.account.dto.AccountChangeEvent;
+import com.bancario.account.dto.AccountComplianceResponse;
+import com.bancario.account.dto.AccountLookupEntry;
+import com.bancario.account.dto.AccountReadResult;
 import com.bancario.account.dto.AccountRequest;
 import com.bancario.account.dto.AccountResponse;
 import com.bancario.account.dto.AccountTransactionStatus;
+import com.bancario.account.dto.BalanceAtResponse;
+import com.bancario.account.dto.BalanceMovementResponse;
+import com.bancario.account.dto.BulkAccountResult;
+import com.bancario.account.dto.CustomerResponse;
 import com.bancario.account.dto.DailyBalanceHistoryDto;
+import com.bancario.account.enums.AccountChangeType;
 import com.bancario.account.enums.AccountStatus;
 import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.BalanceBasis;
+import com.bancario.account.enums.BulkItemStatus;
 import com.bancario.account.enums.ProductType;
 import com.bancario.account.enums.CustomerType;
+import com.bancario.account.enums.MovementType;
 import com.bancario.account.exception.*;
 import com.bancario.account.mapper.AccountMapper;
 import com.bancario.account.mapper.BalanceSnapshotMapper;
+import com.bancario.account.repository.AccountComplianceRepository;
+import com.bancario.account.repository.AccountMovementRepository;
+import com.bancario.account.repository.AccountReadCoalescer;
 import com.bancario.account.repository.AccountRepository;
 import com.bancario.account.repository.BalanceSnapshotRepository;
+import com.bancario.account.repository.BalanceStripeRepository;
+import com.bancario.account.repository.ColumnarBalanceStore;
+import com.bancario.account.repository.JobCheckpointRepository;
 import com.bancario.account.repository.entity.Account;
+import com.bancario.account.repository.entity.AccountMovement;
+import com.bancario.account.repository.entity.BalanceSnapshot;
 import com.bancario.account.service.AccountService;
 import com.bancario.account.util.Constants;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import io.opentelemetry.instrumentation.annotations.SpanAttribute;
+import io.opentelemetry.instrumentation.annotations.WithSpan;
+import io.smallrye.faulttolerance.api.CircuitBreakerName;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.NotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Timeout;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
 
@@ -42,9 +83,33 @@ public class AccountServiceImpl implements AccountService {
     @Inject
     AccountRepository accountRepository;
 
+    @Inject
+    AccountReadCoalescer accountReadCoalescer;
+
     @Inject
     BalanceSnapshotRepository snapshotRepository;
 
+    @Inject
+    AccountComplianceRepository complianceRepository;
+
+    @Inject
+    ColumnarBalanceStore columnarStore;
+
+    @Inject
+    AccountMovementRepository movementRepository;
+
+    @Inject
+    BalanceStripeRepository stripeRepository;
+
+    @Inject
+    JobCheckpointRepository checkpointRepository;
+
+    @Inject
+    AccountReadCache accountReadCache;
+
+    @Inject
+    AccountChangeFeed changeFeed;
+
     @Inject
     AccountMapper accountMapper;
 
@@ -52,63 +117,218 @@ public class AccountServiceImpl implements AccountService {
     BalanceSnapshotMapper snapshotMapper;
 
     @Inject
-    @RestClient
-    CustomerServiceRestClient customerServiceRestClient;
+    CustomerLookup customerLookup;
+
+    @ConfigProperty(name = "account-service.export.rows-per-chunk")
+    int exportRowsPerChunk;
+
+    @ConfigProperty(name = "account-service.export.max-days")
+    int exportMaxDays;
+
+    @ConfigProperty(name = "account-service.lookup.max-keys")
+    int lookupMaxKeys;
+
+    @ConfigProperty(name = "account-service.bulk.max-items")
+    int bulkMaxItems;
+
+    @ConfigProperty(name = "account-service.bulk.insert-batch-size")
+    int bulkInsertBatchSize;
+
+    @ConfigProperty(name = "account-service.bulk.customer-concurrency")
+    int bulkCustomerConcurrency;
+
+    @ConfigProperty(name = "account-service.ledger.async-projection")
+    boolean ledgerAsyncProjection;
+
+    @ConfigProperty(name = "account-service.striping.max-stripes")
+    int stripingMaxStripes;
 
     @Override
     //@Timeout
     //@CircuitBreaker
     //@Fallback(fallbackMethod = "fallbackCrearCuenta")
+    @WithSpan("crearCuenta")
     public Uni<AccountResponse> crearCuenta(AccountRequest request) {
         log.info("Creating a new account for customer with ID: {}", request.customerId());
         // 1. Realiza las validaciones síncronas primero.
         try {
-            validateSynchronousAccountCreation(request);
-            // 🔑 CORRECCIÓN 1: Usar request.paymentDayOfMonth() y actualizar el mensaje.
-            if (request.productType() == ProductType.ACTIVE && request.paymentDayOfMonth() == null) {
-                return Uni.createFrom().failure(new IllegalArgumentException("El campo paymentDayOfMonth es obligatorio para productos de crédito (ACTIVE)."));
-            }
+            validateRequest(request);
         } catch (IllegalArgumentException e) {
             return Uni.createFrom().failure(e);
         }
-        // 2. Ejecutar la validación de riesgo JIT (Fail-Safe CRÍTICO)
-        // El flujo solo continúa si validateOverdueDebt (que retorna Uni<Void>) pasa sin errores.
-        return validateOverdueDebt(request.customerId())
-                .chain(() -> {
-                    // 3. Encadenar las validaciones asíncronas de tipo de producto.
-                    Uni<Void> validationUni;
-                    if (request.productType() == ProductType.ACTIVE) {
-                        validationUni = validateActiveAccountCreation(request);
-                    } else if (request.productType() == ProductType.PASSIVE) {
-                        validationUni = validatePassiveAccountCreation(request);
-                    } else {
-                        return Uni.createFrom().failure(new IllegalArgumentException("Invalid product type."));
-                    }
-                    // 4. Si todas las validaciones asíncronas pasan, proceder a la persistencia.
-                    return validationUni.chain(() -> assignSpecialAttributesAndPersist(request));
+        // 2. Las tres dependencias de I/O son independientes entre sí y se ejecutan en paralelo:
+        //    - Validación de riesgo JIT (deuda vencida, Fail-Safe CRÍTICO).
+        //    - Consulta del cliente al customer-service.
+        //    - Conteos de la cartera del cliente en MongoDB.
+        // Si cualquiera falla, Uni.combine() cancela las restantes y propaga el primer error.
+        return Uni.combine().all().unis(
+                        validateOverdueDebt(request.customerId()),
+                        customerLookup.getCustomerById(request.customerId()),
+                        loadCustomerPortfolio(request))
+                .with((overdueCheck, customerResponse, portfolio) -> {
+                    // 3. Reglas de elegibilidad por tipo de producto (síncronas, sobre los datos ya obtenidos).
+                    validateEligibility(request, customerResponse, portfolio);
+                    return customerResponse;
+                })
+                // 4. Si todas las validaciones pasan, se persiste reutilizando el CustomerResponse obtenido.
+                .chain(customerResponse -> assignSpecialAttributesAndPersist(request, customerResponse));
+    }
+
+    @Override
+    @WithSpan("crearCuentasMasivo")
+    public Uni<List<BulkAccountResult>> crearCuentasMasivo(List<AccountRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return Uni.createFrom().failure(new IllegalArgumentException("La solicitud masiva debe contener al menos una cuenta."));
+        }
+        if (requests.size() > bulkMaxItems) {
+            return Uni.createFrom().failure(new IllegalArgumentException(
+                    "La solicitud masiva excede el máximo permitido de " + bulkMaxItems + " cuentas."));
+        }
+        log.info("Bulk account creation requested for {} items", requests.size());
+
+        // 1. Validaciones síncronas por elemento y agrupación por cliente (se conserva el orden de llegada).
+        List<BulkItem> rejected = new ArrayList<>();
+        Map<String, List<BulkItem>> itemsByCustomer = new LinkedHashMap<>();
+        for (int index = 0; index < requests.size(); index++) {
+            AccountRequest request = requests.get(index);
+            try {
+                if (request == null || request.customerId() == null || request.customerId().isBlank()) {
+                    throw new IllegalArgumentException("El customerId no puede estar en blanco");
+                }
+                validateRequest(request);
+                itemsByCustomer.computeIfAbsent(request.customerId(), key -> new ArrayList<>())
+                        .add(BulkItem.pending(index, request));
+            } catch (IllegalArgumentException e) {
+                rejected.add(BulkItem.rejected(index, e.getMessage()));
+            }
+        }
+
+        // 2. Evaluación por cliente (una consulta de cliente y una de cartera por customerId),
+        // 3. Persistencia por lotes con insertMany.
+        return Multi.createFrom().iterable(itemsByCustomer.entrySet())
+                .onItem().transformToUni(entry -> evaluateCustomerBatch(entry.getKey(), entry.getValue()))
+                .merge(bulkCustomerConcurrency)
+                .collect().in(() -> new ArrayList<BulkItem>(), List::addAll)
+                .chain(this::persistBulkItems)
+                .onItem().transform(processed -> {
+                    processed.addAll(rejected);
+                    return processed.stream()
+                            .sorted(Comparator.comparingInt(BulkItem::index))
+                            .map(item -> new BulkAccountResult(
+                                    item.index(),
+                                    item.status(),
+                                    item.status() == BulkItemStatus.CREATED ? accountMapper.toResponse(item.account()) : null,
+                                    item.error()))
+                            .toList();
                 });
     }
 
     @Override
     @Timeout
-    @CircuitBreaker
-    @Fallback(fallbackMethod = "fallbackBuscarPorCuentaId")
+    // Una cuenta inexistente (o un ID inválido) es un 4xx: no abre el circuito ni pasa por el fallback (503),
+    // que el limitador de concurrencia contaría como sobrecarga.
+    @CircuitBreaker(skipOn = IllegalArgumentException.class)
+    @CircuitBreakerName("account-by-id")
+    @Fallback(fallbackMethod = "fallbackBuscarPorCuentaId", skipOn = IllegalArgumentException.class)
     public Uni<AccountResponse> buscarPorCuentaId(String accountId) {
         log.info("Finding account with ID: {}", accountId);
 
-        return accountRepository.findById(toObjectId(accountId))
+        return readAccountById(accountId);
+    }
+
+    @Override
+    @Timeout
+    @CircuitBreaker(skipOn = IllegalArgumentException.class)
+    @CircuitBreakerName("account-by-id") // Comparte el estado del circuito con buscarPorCuentaId
+    @Fallback(fallbackMethod = "fallbackBuscarPorCuentaIdConRespaldo", skipOn = IllegalArgumentException.class)
+    public Uni<AccountReadResult> buscarPorCuentaIdConRespaldo(String accountId) {
+        log.info("Finding account with ID: {} (con respaldo en caché)", accountId);
+
+        return findAccountForRead(accountId)
+                .onItem().transformToUni(account -> isStriped(account)
+                        ? withStripedBalance(account).onItem().transform(AccountReadResult::unversioned)
+                        : cachedResponse(account).onItem().transform(response -> response.version() != null
+                                ? AccountReadResult.fresh(response) : AccountReadResult.unversioned(response)));
+    }
+
+    private Uni<AccountResponse> readAccountById(String accountId) {
+        return findAccountForRead(accountId)
+                .onItem().transformToUni(account -> isStriped(account) ? withStripedBalance(account) : cachedResponse(account));
+    }
+
+    private Uni<Account> findAccountForRead(String accountId) {
+        return accountReadCoalescer.findById(toObjectId(accountId))
                 .onItem().ifNull().failWith(() -> new IllegalArgumentException("Account not found with ID: " + accountId))
-                .onItem().transform(account -> accountMapper.toResponse(account));
+                .onItem().transformToUni(this::withPendingBalance);
+    }
+
+    /**
+     * Última lectura correcta: respaldo para cuando MongoDB no esté disponible. Las cuentas con saldo distribuido
+     * no se cachean (los abonos a slots no pasan por el documento de la cuenta).
+     */
+    private Uni<AccountResponse> cachedResponse(Account account) {
+        return Uni.createFrom().item(accountMapper.toResponse(account))
+                .onItem().invoke(accountReadCache::put);
+    }
+
+    @Override
+    public Uni<List<AccountLookupEntry>> buscarPorCuentaIds(List<String> accountIds) {
+        try {
+            validateLookupKeys(accountIds);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().failure(e);
+        }
+        log.info("Multi-get de {} cuentas por ID", accountIds.size());
+
+        Set<ObjectId> validIds = accountIds.stream()
+                .filter(ObjectId::isValid)
+                .map(ObjectId::new)
+                .collect(Collectors.toSet());
+
+        return accountRepository.findByIds(validIds)
+                .chain(this::withPendingBalances)
+                .chain(this::withStripedBalances)
+                .onItem().transform(accounts -> {
+                    Map<String, Account> byId = accounts.stream()
+                            .collect(Collectors.toMap(account -> account.id.toHexString(), account -> account));
+                    return accountIds.stream()
+                            .map(id -> ObjectId.isValid(id)
+                                    ? toLookupEntry(id, byId.get(new ObjectId(id).toHexString()))
+                                    : new AccountLookupEntry(id, null, "INVALID_ID"))
+                            .toList();
+                });
+    }
+
+    @Override
+    public Uni<List<AccountLookupEntry>> buscarPorNumerosDeCuenta(List<String> accountNumbers) {
+        try {
+            validateLookupKeys(accountNumbers);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().failure(e);
+        }
+        log.info("Multi-get de {} cuentas por número", accountNumbers.size());
+
+        return accountRepository.findByAccountNumbers(Set.copyOf(accountNumbers))
+                .chain(this::withPendingBalances)
+                .chain(this::withStripedBalances)
+                .onItem().transform(accounts -> {
+                    Map<String, Account> byNumber = accounts.stream()
+                            .collect(Collectors.toMap(Account::getAccountNumber, account -> account, (first, second) -> first));
+                    return accountNumbers.stream()
+                            .map(number -> toLookupEntry(number, byNumber.get(number)))
+                            .toList();
+                });
     }
 
     @Override
     public Uni<Void> eliminarCuenta(String accountId) {
         log.info("Eliminating account with ID: {}", accountId);
 
-        return accountRepository.findById(toObjectId(accountId))
-                .onItem().ifNull().failWith(() -> new IllegalArgumentException("Account not found with ID: " + accountId))
-                .onItem().invoke(this::validateAccountStatusChange)
-                .onItem().transformToUni(account -> accountRepository.update(account))
+        return writeWithVersionCheck(toObjectId(accountId),
+                        () -> new IllegalArgumentException("Account not found with ID: " + accountId),
+                        this::validateAccountStatusChange)
+                .onItem().invoke(account -> changeFeed.publish(AccountChangeType.DELETED, account))
+                .onItem().invoke(this::refreshReadCache)
                 .onItem().ignore().andContinueWithNull();
     }
 
@@ -118,44 +338,176 @@ public class AccountServiceImpl implements AccountService {
 
         return accountRepository.find("customerId", customerId)
                 .stream()
-                .onItem().transform(account -> accountMapper.toResponse(account));
+                .onItem().transformToUniAndConcatenate(account -> withPendingBalance(account).chain(this::withStripedBalance));
     }
 
     @Override
     public Uni<AccountResponse> updateAccountBalance(String accountId, AccountResponse updatedAccount) {
-        return accountRepository.findById(new ObjectId(accountId))
+        return updateAccountBalance(accountId, updatedAccount.balance(), updatedAccount.amountUsed());
+    }
+
+    @Override
+    public Uni<AccountResponse> updateAccountBalance(String accountId, BigDecimal balance, BigDecimal amountUsed) {
+        if (ledgerAsyncProjection) {
+            return recordPendingBalance(accountId, balance, amountUsed);
+        }
+        AccountMovement movement = newMovement(MovementType.BALANCE_UPDATE, accountId);
+        movement.balance = balance;
+        movement.amountUsed = amountUsed;
+        return writeWithMovement(movement,
+                        sequence -> applyBalance(new ObjectId(accountId), balance, amountUsed, sequence),
+                        (account, recorded) -> recorded.customerId = account.customerId)
+                // 2. Después de la persistencia exitosa, transformar la entidad a una respuesta.
+                .onItem().transform(accountMapper::toResponse)
+                .onItem().invoke(accountReadCache::put);
+    }
+
+    @Override
+    public Uni<BalanceMovementResponse> creditAccount(String accountId, BigDecimal amount) {
+        try {
+            validateMovementAmount(amount);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().failure(e);
+        }
+        ObjectId id = toObjectId(accountId);
+        return findActivePassiveAccount(id)
+                .call(() -> projectBeforeMovement(accountId))
+                .chain(account -> {
+                    AccountMovement movement = newMovement(MovementType.CREDIT, accountId);
+                    movement.amount = amount;
+                    if (isStriped(account)) {
+                        // El abono va a un slot aleatorio: los abonos concurrentes se reparten entre documentos distintos.
+                        int slot = ThreadLocalRandom.current().nextInt(account.balanceStripes);
+                        return writeWithMovement(movement,
+                                        sequence -> stripeRepository.credit(accountId, slot, amount, sequence),
+                                        (ignored, recorded) -> recorded.customerId = account.customerId)
+                                .onItem().invoke(() -> accountReadCache.evict(accountId))
+                                .replaceWith(() -> toMovementResponse(movement));
+                    }
+                    return writeWithMovement(movement,
+                                    sequence -> accountRepository.incrementBalance(id, amount, sequence)
+                                            .onItem().ifNull().failWith(() -> new NoSuchElementException("Account with ID " + accountId + " not found.")),
+                                    this::completeBaseBalanceMovement)
+                            .onItem().invoke(this::afterBaseBalanceWrite)
+                            .replaceWith(() -> toMovementResponse(movement));
+                });
+    }
+
+    @Override
+    public Uni<BalanceMovementResponse> debitAccount(String accountId, BigDecimal amount) {
+        try {
+            validateMovementAmount(amount);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().failure(e);
+        }
+        ObjectId id = toObjectId(accountId);
+        return findActivePassiveAccount(id)
+                .call(() -> projectBeforeMovement(accountId))
+                .chain(account -> {
+                    AccountMovement movement = newMovement(MovementType.DEBIT, accountId);
+                    movement.amount = amount.negate();
+                    return writeWithMovement(movement,
+                                    sequence -> accountRepository.decrementBalanceIfCovered(id, amount, sequence)
+                                            // Si el saldo base no cubre el cargo, se consolidan los slots (transacción) y se reintenta una vez.
+                                            .onItem().ifNull().switchTo(() -> account.balanceStripes == null
+                                                    ? Uni.createFrom().<Account>nullItem()
+                                                    : stripeRepository.foldIntoBalance(id)
+                                                            .chain(() -> accountRepository.decrementBalanceIfCovered(id, amount, sequence)))
+                                            .onItem().ifNull().failWith(() -> new BusinessException(
+                                                    "Saldo insuficiente en la cuenta " + accountId + " para un cargo de " + amount + ".")),
+                                    this::completeBaseBalanceMovement)
+                            .onItem().invoke(this::afterBaseBalanceWrite)
+                            .replaceWith(() -> toMovementResponse(movement));
+                });
+    }
+
+    @Override
+    public Uni<AccountResponse> configureStriping(String accountId, Integer stripes) {
+        if (stripes == null || stripes < 0 || stripes > stripingMaxStripes) {
+            return Uni.createFrom().failure(new IllegalArgumentException(
+                    "El número de slots debe estar entre 0 y " + stripingMaxStripes + "."));
+        }
+        ObjectId id = toObjectId(accountId);
+        log.info("Saldo distribuido de la cuenta {}: {} slots", accountId, stripes);
+        return findPassiveAccount(id)
+                .chain(() -> accountRepository.setBalanceStripes(id, stripes))
                 .onItem().ifNull().failWith(() -> new NoSuchElementException("Account with ID " + accountId + " not found."))
-                .onItem().transformToUni(account -> {
-                    // Actualiza el balance o el amountUsed
-                    account.setBalance(updatedAccount.balance());
-                    account.setAmountUsed(updatedAccount.amountUsed());
-
-                    return accountRepository.persistOrUpdate(account)
-                            .chain(() -> {
-                                // 2. Después de la persistencia exitosa, transformar la entidad a una respuesta.
-                                return Uni.createFrom().item(accountMapper.toResponse(account));
-                            });
+                // Al desactivar, los slots se consolidan en el saldo base; los abonos tardíos siguen sumándose al leer.
+                .call(() -> stripes == 0 ? stripeRepository.foldIntoBalance(id) : Uni.createFrom().voidItem())
+                .chain(() -> accountRepository.findById(id))
+                .onItem().invoke(this::refreshReadCache)
+                .chain(this::withStripedBalance);
+    }
+
+    @Override
+    public Uni<Integer> projectPendingMovements(int limit) {
+        LocalDateTime preparedBefore = LocalDateTime.now().minus(Constants.LEDGER_PREPARED_GRACE);
+        return movementRepository.findPending(limit)
+                .call(movements -> Multi.createFrom().iterable(movements.stream()
+                                // Asientos preparados cuya operación terminó sin confirmarlos ni anularlos (caída del proceso).
+                                .filter(movement -> !Boolean.TRUE.equals(movement.deferred) && movement.occurredAt.isBefore(preparedBefore))
+                                .toList())
+                        .onItem().transformToUniAndConcatenate(this::resolvePreparedMovement)
+                        .collect().last())
+                .chain(movements -> {
+                    List<String> accountIds = movements.stream()
+                            .filter(movement -> Boolean.TRUE.equals(movement.deferred))
+                            .map(movement -> movement.accountId)
+                            .distinct()
+                            .toList();
+                    return Multi.createFrom().iterable(accountIds)
+                            .onItem().transformToUniAndConcatenate(this::projectAccountMovements)
+                            .collect().last()
+                            .replaceWith(accountIds.size());
                 });
     }
 
+    @Override
+    public Uni<Long> getAccountVersion(String accountId) {
+        Uni<Long> version = accountRepository.findVersion(toObjectId(accountId));
+        if (!ledgerAsyncProjection) {
+            return version;
+        }
+        // Con asientos diferidos pendientes la versión no identifica el saldo servido: sin validación condicional.
+        return version.onItem().ifNotNull().transformToUni(current -> movementRepository.hasDeferred(accountId)
+                .onItem().transform(pending -> pending ? null : current));
+    }
+
     @Override
     public Uni<AccountTransactionStatus> getAccountTransactionStatus(String accountId) {
-        return accountRepository.findById(new ObjectId(accountId))
+        return accountReadCoalescer.findById(new ObjectId(accountId))
+                .onItem().ifNotNull().transformToUni(this::withPendingBalance)
                 .onItem().ifNotNull().transform(account -> {
                     // 1. Validación de Producto: La regla aplica a cuentas pasivas.
                     if (account.productType != ProductType.PASSIVE) {
                         throw new BusinessException("Solo las cuentas pasivas (Ahorro/Corriente) tienen límites de transacciones.");
                     }
                     // 2. Mapeo al DTO de estado de transacción
+                    // Lectura O(1) de la integral del documento; los abonos a slots no la actualizan.
+                    LocalDateTime averageAt = account.balanceStripes == null ? monthToDateAverageInstant(account) : null;
+                    // Hasta el primer incremento del mes (o el cierre), el contador almacenado es del mes anterior.
                     return new AccountTransactionStatus(
                             account.freeTransactionLimit,
-                            account.currentMonthlyTransactions,
-                            account.transactionFeeAmount
+                            AccountRepository.transactionsIn(account, YearMonth.now()),
+                            account.transactionFeeAmount,
+                            account.version,
+                            averageAt != null ? BalanceIntegral.monthToDateAverage(account, averageAt) : null,
+                            averageAt
                     );
                 })
                 .onItem().ifNull().failWith(() -> new NotFoundException("Cuenta con ID " + accountId + " no encontrada."));
     }
 
+    /**
+     * Instante del saldo promedio del mes: el minuto en curso, para que el valor (y el ETag que lo incluye) sea
+     * estable dentro del minuto; si el último cambio de saldo es posterior, ese cambio.
+     */
+    private LocalDateTime monthToDateAverageInstant(Account account) {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        return account.lastBalanceChangeAt != null && account.lastBalanceChangeAt.isAfter(minute)
+                ? account.lastBalanceChangeAt : minute;
+    }
+
     /**
      * Obtiene una cuenta por su número de cuenta.
      * @param accountNumber El número de cuenta a buscar.
@@ -163,12 +515,13 @@ public class AccountServiceImpl implements AccountService {
      */
     public Uni<AccountResponse> getAccountByNumber(String accountNumber) {
         log.info("Buscando cuenta por número: {}", accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber)
+        return accountReadCoalescer.findByAccountNumber(accountNumber)
                 .onItem().ifNull().failWith(() -> {
                     log.warn("Cuenta con número {} no encontrada.", accountNumber);
                     return new NotFoundException("Account not found with number: " + accountNumber);
                 })
-                .onItem().transform(account -> accountMapper.toResponse(account));
+                .onItem().transformToUni(this::withPendingBalance)
+                .onItem().transformToUni(this::withStripedBalance);
     }
 
     /**
@@ -190,8 +543,8 @@ public class AccountServiceImpl implements AccountService {
      */
     @Override
     @Timeout
-    @CircuitBreaker
-    @Fallback(fallbackMethod = "fallbackDailyBalances")
+    @CircuitBreaker(skipOn = IllegalArgumentException.class)
+    @Fallback(fallbackMethod = "fallbackDailyBalances", skipOn = IllegalArgumentException.class)
     public Uni<List<DailyBalanceHistoryDto>> getDailyBalancesByCustomer(
             String customerId,
             LocalDate startDate,
@@ -204,8 +557,26 @@ public class AccountServiceImpl implements AccountService {
             log.warn("Se intentó consultar saldos con customerId inválido.");
             return Uni.createFrom().failure(new IllegalArgumentException("El ID de cliente es obligatorio."));
         }
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            return Uni.createFrom().failure(new IllegalArgumentException("Se requiere un rango de fechas válido (startDate <= endDate)."));
+        }
         // 2. Orquestación y Flujo Reactivo
-        return snapshotRepository.findByCustomerAndDateRange(customerId, startDate, endDate)
+        // Los snapshots solo existen para los días en que el saldo cambió: se lee desde el día 1 del mes
+        // (snapshot completo del Job EOD) para conocer el valor vigente al inicio del rango.
+        LocalDate seedDate = startDate.withDayOfMonth(1);
+        Uni<List<BalanceSnapshot>> snapshotsInRange = checkpointRepository.findById(Constants.EOD_SNAPSHOT_CHECKPOINT)
+                .onItem().transform(checkpoint -> checkpoint != null ? checkpoint.lastCompletedDate : null)
+                .chain(closedThrough -> {
+                    // Si el almacén columnar local tiene completos todos los días ya cerrados del rango, se lee de él
+                    // sin pasar por MongoDB; los días posteriores al último cierre no tienen snapshots en ningún lado.
+                    LocalDate storedThrough = closedThrough != null && closedThrough.isBefore(endDate) ? closedThrough : endDate;
+                    Uni<List<BalanceSnapshot>> stored = closedThrough != null && columnarStore.covers(seedDate, storedThrough)
+                            ? Uni.createFrom().item(() -> columnarStore.findByCustomerAndDateRange(customerId, seedDate, storedThrough))
+                            : snapshotRepository.findByCustomerAndDateRange(customerId, seedDate, endDate);
+                    // Los días sin snapshot arrastran el último valor conocido, hasta el último día cerrado por el Job EOD.
+                    return stored.onItem().transform(snapshots -> SnapshotCarryForward.fill(snapshots, startDate, endDate, closedThrough));
+                });
+        return snapshotsInRange
                 // 3. Manejo de Fallos de Persistencia
                 // Usamos invoke para registrar el error y transform para lanzar la excepción de negocio
                 .onFailure().invoke(failure -> {
@@ -230,86 +601,330 @@ public class AccountServiceImpl implements AccountService {
                 });
     }
 
+    @Override
+    public Multi<Buffer> exportarSaldosDiariosCsv(LocalDate startDate, LocalDate endDate, ProductType productType, boolean sparse) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            return Multi.createFrom().failure(new IllegalArgumentException("Se requiere un rango de fechas válido (startDate <= endDate)."));
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= exportMaxDays) {
+            return Multi.createFrom().failure(new IllegalArgumentException(
+                    "El rango de exportación no puede exceder " + exportMaxDays + " días."));
+        }
+        log.info("Exportación CSV de saldos EOD, rango: [{} - {}], productType: {}, sparse: {}",
+                startDate, endDate, productType, sparse);
+
+        BalanceSnapshotCsvWriter writer = new BalanceSnapshotCsvWriter(exportRowsPerChunk * 128);
+        String productTypeName = productType != null ? productType.name() : null;
+        // Los snapshots EOD solo se escriben para los productos con cambios: salvo sparse=true, los días sin snapshot
+        // arrastran el último valor del producto hasta el último día cerrado por el Job EOD (misma regla que la consulta
+        // por cliente), para mantener una fila por producto y día.
+        Multi<Buffer> rows = checkpointRepository.findById(Constants.EOD_SNAPSHOT_CHECKPOINT)
+                .onItem().transformToMulti(checkpoint -> {
+                    LocalDate closedThrough = checkpoint != null ? checkpoint.lastCompletedDate : null;
+                    LocalDate fillThrough = sparse || closedThrough == null ? null
+                            : closedThrough.isBefore(endDate) ? closedThrough : endDate;
+                    return snapshotRepository.streamByDateRange(startDate, endDate, productTypeName, exportRowsPerChunk, fillThrough);
+                })
+                .group().intoLists().of(exportRowsPerChunk)
+                .onItem().transform(writer::write)
+                .onFailure().invoke(failure -> log.error("Exportación CSV interrumpida. Causa: {}", failure.getMessage(), failure));
+
+        return Multi.createBy().concatenating().streams(
+                Multi.createFrom().item(Buffer.buffer(BalanceSnapshotCsvWriter.HEADER)),
+                rows);
+    }
+
+    @Override
+    public Uni<BalanceAtResponse> getBalanceAt(String accountId, LocalDateTime instant) {
+        if (instant == null || instant.isAfter(LocalDateTime.now())) {
+            return Uni.createFrom().failure(new IllegalArgumentException("El parámetro ts es obligatorio y no puede ser futuro."));
+        }
+        try {
+            toObjectId(accountId);
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().failure(e);
+        }
+        // Dos lecturas indexadas en paralelo: último snapshot EOD y última ancla del libro anteriores al instante.
+        return Uni.combine().all().unis(
+                        snapshotRepository.findLatestTakenAtOrBefore(accountId, instant),
+                        movementRepository.findLatestAnchor(accountId, instant))
+                .withUni((snapshot, anchor) -> {
+                    if (anchor != null && (snapshot == null || anchor.occurredAt.isAfter(snapshot.takenAt))) {
+                        return applyAmountsSince(accountId, instant, BalanceBasis.MOVEMENT, anchor.occurredAt,
+                                anchor.balance, anchor.amountUsed);
+                    }
+                    if (snapshot != null) {
+                        return applyAmountsSince(accountId, instant, BalanceBasis.SNAPSHOT, snapshot.takenAt,
+                                snapshot.balanceEOD, snapshot.amountUsedEOD);
+                    }
+                    return Uni.createFrom().<BalanceAtResponse>failure(new NotFoundException(
+                            "No hay historial de saldo de la cuenta con ID " + accountId + " anterior a " + instant + "."));
+                });
+    }
+
+    /**
+     * Suma a la base los importes (abonos, cargos y comisiones del cierre de mes, sin saldo resultante)
+     * registrados entre la base y el instante.
+     */
+    private Uni<BalanceAtResponse> applyAmountsSince(String accountId, LocalDateTime instant, BalanceBasis basis,
+                                                     LocalDateTime basisAt, BigDecimal balance, BigDecimal amountUsed) {
+        return movementRepository.findAmountsBetween(accountId, basisAt, instant)
+                .onItem().transform(movements -> {
+                    BigDecimal total = balance != null ? balance : BigDecimal.ZERO;
+                    for (AccountMovement movement : movements) {
+                        total = total.add(movement.amount);
+                    }
+                    return new BalanceAtResponse(accountId, instant, total, amountUsed, basis, basisAt, movements.size());
+                });
+    }
+
+    @Override
+    public Uni<AccountComplianceResponse> getAccountCompliance(String accountId) {
+        // Lectura por _id del documento precalculado: no recorre el historial de snapshots.
+        return complianceRepository.findById(accountId)
+                .onItem().ifNull().failWith(() -> new NotFoundException(
+                        "No hay cálculo de cumplimiento SPD para la cuenta con ID " + accountId + "."))
+                .onItem().transform(snapshotMapper::toComplianceResponse);
+    }
+
+    @Override
+    public Multi<AccountChangeEvent> streamChanges(String lastEventId) {
+        log.info("Nueva suscripción al feed de cambios desde el id {}", lastEventId);
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return changeFeed.stream(null, null);
+        }
+        int separator = lastEventId.lastIndexOf(':');
+        String offsetInstanceId = separator < 0 ? null : lastEventId.substring(0, separator);
+        try {
+            return changeFeed.stream(offsetInstanceId, Long.parseLong(lastEventId.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return Multi.createFrom().failure(new IllegalArgumentException(
+                    "El id del último evento debe tener el formato 'instancia:offset': " + lastEventId));
+        }
+    }
+
     @Override
     @Timeout
-    @CircuitBreaker
-    @Fallback(fallbackMethod = "fallbackIncrementCounter")
+    @CircuitBreaker(skipOn = {NotFoundException.class, IllegalArgumentException.class})
+    @Fallback(fallbackMethod = "fallbackIncrementCounter", skipOn = {NotFoundException.class, IllegalArgumentException.class})
     public Uni<Void> incrementMonthlyTransactionCounter(String accountId) {
-        // Llama al repositorio, que usa el comando atómico y devuelve Uni<Long> (el conteo).
-        return accountRepository.incrementMonthlyTransactionCounter(accountId)
-                // Usamos transformToUni para inspeccionar el resultado del conteo
-                .onItem().transformToUni(updatedCount -> {
-                    // Si el conteo es 0, significa que la cuenta no se encontró para actualizar.
-                    if (updatedCount == Constants.UPDATE_COUNTER) {
-                        // Lanzar una excepción que el Controller mapeará a HTTP 404
-                        return Uni.createFrom().failure(new NotFoundException("Account not found with ID: " + accountId));
-                    }
-                    // Si el conteo es > 0 (normalmente 1), la operación fue exitosa.
-                    // Retornamos Uni<Void> como lo requiere el contrato del Service.
-                    return Uni.createFrom().voidItem();
-                })
+        // Llama al repositorio, que usa el comando atómico y devuelve la cuenta actualizada (null si no existe).
+        return accountRepository.incrementMonthlyTransactionCounter(accountId, YearMonth.now())
+                // Lanzar una excepción que el Controller mapeará a HTTP 404
+                .onItem().ifNull().failWith(() -> new NotFoundException("Account not found with ID: " + accountId))
+                .onItem().invoke(account -> changeFeed.publish(AccountChangeType.COUNTER_INCREMENTED, account))
+                // El resultado solo trae los campos del feed: la copia de respaldo se descarta.
+                .onItem().invoke(() -> accountReadCache.evict(accountId))
+                .replaceWithVoid()
                 // Opcional: Manejo de errores de base de datos.
                 .onFailure().invoke(e -> log.error("Error al incrementar el contador atómico: {}", e.getMessage()));
     }
 
-    // Método para la validación de cuentas activas (créditos)
-    private Uni<Void> validateActiveAccountCreation(AccountRequest request) {
-        return customerServiceRestClient.getCustomerById(request.customerId())
-                .onItem().transformToUni(customerResponse -> {
-                    if (customerResponse.type() == CustomerType.PERSONAL) {
-                        return accountRepository.countActiveProducts(request.customerId())
-                                .onItem().transformToUni(count -> {
-                                    if (count >= 1) {
-                                        return Uni.createFrom().failure(new IllegalArgumentException("A personal customer cannot have more than one active credit."));
-                                    }
-                                    return Uni.createFrom().voidItem();
-                                });
-                    }
-                    return Uni.createFrom().voidItem();
-                });
+    /**
+     * Obtiene en paralelo los conteos de la cartera del cliente que pueden necesitar las reglas de
+     * elegibilidad. Se consultan sin esperar al tipo de cliente para no serializar con el customer-service.
+     */
+    // Los métodos de cada etapa no son privados para que el interceptor de @WithSpan los intercepte.
+    @WithSpan("crearCuenta.loadCustomerPortfolio")
+    Uni<CustomerPortfolio> loadCustomerPortfolio(AccountRequest request) {
+        String customerId = request.customerId();
+
+        if (request.productType() == ProductType.ACTIVE) {
+            return accountRepository.countActiveProducts(customerId)
+                    .onItem().transform(count -> new CustomerPortfolio(count, 0L, false));
+        }
+
+        // La tarjeta de crédito activa solo es requisito para Ahorro VIP y Corriente PYME.
+        boolean creditCardMayBeRequired = request.accountType() == AccountType.SAVINGS_ACCOUNT
+                || request.accountType() == AccountType.CURRENT_ACCOUNT;
+        Uni<Boolean> hasCreditCardUni = creditCardMayBeRequired
+                ? accountRepository.hasActiveCreditCard(customerId)
+                : Uni.createFrom().item(Boolean.FALSE);
+
+        return Uni.combine().all().unis(
+                        accountRepository.countAccountsByType(customerId, request.accountType()),
+                        hasCreditCardUni)
+                .with((sameTypeCount, hasCreditCard) -> new CustomerPortfolio(0L, sameTypeCount, hasCreditCard));
     }
 
-    private Uni<Void> validatePassiveAccountCreation(AccountRequest request) {
-        return customerServiceRestClient.getCustomerById(request.customerId())
-                .onItem().transformToUni(customerResponse -> {
+    /**
+     * Aplica las reglas de elegibilidad del producto solicitado según el tipo de cliente y su cartera.
+     * @throws IllegalArgumentException si alguna regla de negocio no se cumple.
+     */
+    void validateEligibility(AccountRequest request, CustomerResponse customerResponse, CustomerPortfolio portfolio) {
+        CustomerType customerType = customerResponse.type();
 
-                    CustomerType customerType = customerResponse.type();
+        // Validación de cuentas activas (créditos)
+        if (request.productType() == ProductType.ACTIVE) {
+            if (customerType == CustomerType.PERSONAL && portfolio.activeProducts() >= 1) {
+                throw new IllegalArgumentException("A personal customer cannot have more than one active credit.");
+            }
+            return;
+        }
 
-                    // --- VALIDACIÓN DE PERFILES ESPECIALES (VIP / PYME) ---
-                    if (customerType == CustomerType.VIP) {
-                        // El VIP es un tipo de cliente PERSONAL.
-                        return validateVipEligibility(request);
-                    }
+        // --- VALIDACIÓN DE PERFILES ESPECIALES (VIP / PYME) ---
+        if (customerType == CustomerType.VIP) {
+            // El VIP es un tipo de cliente PERSONAL.
+            validateVipEligibility(request, portfolio);
+            return;
+        }
 
-                    if (customerType == CustomerType.PYME) {
-                        // El PYME es un tipo de cliente EMPRESARIAL.
-                        return validatePymeEligibility(request);
-                    }
+        if (customerType == CustomerType.PYME) {
+            // El PYME es un tipo de cliente EMPRESARIAL.
+            validatePymeEligibility(request, portfolio);
+            return;
+        }
 
-                    if (customerResponse.type() == CustomerType.PERSONAL) {
-                        return accountRepository.countAccountsByType(request.customerId(), request.accountType())
-                                .onItem().transformToUni(count -> {
-                                    if (count >= 1) {
-                                        return Uni.createFrom().failure(new IllegalArgumentException("A personal customer can only have one " + request.accountType() + " account."));
-                                    }
-                                    return Uni.createFrom().voidItem();
-                                });
-                    }
+        if (customerType == CustomerType.PERSONAL && portfolio.sameTypeAccounts() >= 1) {
+            throw new IllegalArgumentException("A personal customer can only have one " + request.accountType() + " account.");
+        }
+
+        if (customerType == CustomerType.EMPRESARIAL) {
+            // Validación corregida para la lista de titulares.
+            if (request.holders() == null || request.holders().isEmpty()) {
+                throw new IllegalArgumentException("A business account must have at least one holder.");
+            }
+            // Un cliente empresarial no puede tener una cuenta de ahorro o de plazo fijo, pero sí múltiples cuentas corrientes.
+            if (request.accountType() == AccountType.SAVINGS_ACCOUNT || request.accountType() == AccountType.FIXED_TERM_DEPOSIT) {
+                throw new IllegalArgumentException("A business customer cannot have savings or fixed-term deposit accounts.");
+            }
+        }
+    }
 
-                    if (customerResponse.type() == CustomerType.EMPRESARIAL) {
-                        // Validación corregida para la lista de titulares.
-                        if (request.holders() == null || request.holders().isEmpty()) {
-                            return Uni.createFrom().failure(new IllegalArgumentException("A business account must have at least one holder."));
+    /**
+     * Evalúa todas las solicitudes de un mismo cliente contra una única foto de su cartera.
+     * Las cuentas aceptadas se agregan a la cartera en memoria para que las siguientes solicitudes
+     * del lote apliquen las reglas de unicidad considerando las cuentas creadas en el mismo lote.
+     */
+    @WithSpan("crearCuentasMasivo.evaluateCustomerBatch")
+    Uni<List<BulkItem>> evaluateCustomerBatch(@SpanAttribute("customer.id") String customerId, List<BulkItem> items) {
+        return Uni.combine().all().unis(
+                        customerLookup.getCustomerById(customerId),
+                        accountRepository.list("customerId", customerId))
+                .with((customerResponse, accounts) -> {
+                    List<Account> portfolio = new ArrayList<>(accounts);
+                    Account overdueAccount = findOverdueAccount(portfolio, LocalDate.now().getDayOfMonth());
+                    List<BulkItem> evaluated = new ArrayList<>(items.size());
+
+                    for (BulkItem item : items) {
+                        if (overdueAccount != null) {
+                            evaluated.add(BulkItem.rejected(item.index(), overdueDebtMessage(overdueAccount)));
+                            continue;
                         }
-                        // Un cliente empresarial no puede tener una cuenta de ahorro o de plazo fijo, pero sí múltiples cuentas corrientes.
-                        if (request.accountType() == AccountType.SAVINGS_ACCOUNT || request.accountType() == AccountType.FIXED_TERM_DEPOSIT) {
-                            return Uni.createFrom().failure(new IllegalArgumentException("A business customer cannot have savings or fixed-term deposit accounts."));
+                        try {
+                            validateEligibility(item.request(), customerResponse, CustomerPortfolio.from(portfolio, item.request()));
+                            Account newAccount = buildNewAccount(item.request(), customerResponse);
+                            portfolio.add(newAccount);
+                            evaluated.add(BulkItem.accepted(item.index(), newAccount));
+                        } catch (IllegalArgumentException e) {
+                            evaluated.add(BulkItem.rejected(item.index(), e.getMessage()));
                         }
                     }
-                    return Uni.createFrom().voidItem();
+                    return evaluated;
+                })
+                .onFailure().recoverWithItem(failure -> {
+                    log.error("Bulk: no se pudo evaluar al cliente {}. Causa: {}", customerId, failure.getMessage());
+                    return items.stream()
+                            .map(item -> BulkItem.failed(item.index(), "No se pudo evaluar al cliente: " + failure.getMessage()))
+                            .toList();
+                });
+    }
+
+    /**
+     * Persiste las cuentas aceptadas en lotes de insertMany no ordenados, secuencialmente,
+     * y devuelve todos los elementos con su estado final.
+     */
+    private Uni<List<BulkItem>> persistBulkItems(List<BulkItem> evaluated) {
+        List<BulkItem> processed = new ArrayList<>(evaluated.size());
+        List<BulkItem> accepted = new ArrayList<>();
+        for (BulkItem item : evaluated) {
+            if (item.account() != null) {
+                accepted.add(item);
+            } else {
+                processed.add(item);
+            }
+        }
+
+        List<List<BulkItem>> batches = new ArrayList<>();
+        for (int from = 0; from < accepted.size(); from += bulkInsertBatchSize) {
+            batches.add(accepted.subList(from, Math.min(from + bulkInsertBatchSize, accepted.size())));
+        }
+
+        return Multi.createFrom().iterable(batches)
+                .onItem().transformToUniAndConcatenate(this::insertBulkBatch)
+                .collect().in(() -> processed, List::addAll);
+    }
+
+    @WithSpan("crearCuentasMasivo.insertBulkBatch")
+    Uni<List<BulkItem>> insertBulkBatch(List<BulkItem> batch) {
+        List<Account> accounts = batch.stream().map(BulkItem::account).toList();
+        // Libro primero: los asientos de apertura se insertan preparados y se confirman o anulan según el insertMany.
+        List<AccountMovement> openings = accounts.stream().map(this::openingMovement).toList();
+        return movementRepository.initSequences(openings.stream().map(movement -> movement.accountId).toList())
+                .chain(() -> movementRepository.appendAll(openings))
+                .onFailure().invoke(failure ->
+                        log.error("Bulk: no se pudieron registrar los asientos de apertura de un lote de {} cuentas: {}", batch.size(), failure.getMessage()))
+                .chain(() -> insertAccounts(batch, accounts))
+                .onFailure().recoverWithItem(failure -> batch.stream()
+                        .map(item -> BulkItem.failed(item.index(), "Error de persistencia: " + failure.getMessage()))
+                        .toList())
+                .call(items -> {
+                    Set<String> createdIds = items.stream()
+                            .filter(item -> item.status() == BulkItemStatus.CREATED)
+                            .map(item -> item.account().id.toHexString())
+                            .collect(Collectors.toSet());
+                    accounts.stream()
+                            .filter(account -> createdIds.contains(account.id.toHexString()))
+                            .forEach(account -> changeFeed.publish(AccountChangeType.CREATED, account));
+                    Map<Boolean, List<ObjectId>> byOutcome = openings.stream()
+                            .collect(Collectors.partitioningBy(movement -> createdIds.contains(movement.accountId),
+                                    Collectors.mapping(movement -> movement.id, Collectors.toList())));
+                    return Uni.combine().all().unis(
+                                    byOutcome.get(true).isEmpty() ? Uni.createFrom().item(0L) : movementRepository.markProjected(byOutcome.get(true)),
+                                    byOutcome.get(false).isEmpty() ? Uni.createFrom().item(0L) : movementRepository.markVoided(byOutcome.get(false)))
+                            .discardItems()
+                            // Los asientos que queden preparados los resuelve el job de proyección.
+                            .onFailure().invoke(failure ->
+                                    log.warn("Ledger: no se pudieron resolver los asientos de apertura del lote: {}", failure.getMessage()))
+                            .onFailure().recoverWithNull();
+                });
+    }
+
+    private Uni<List<BulkItem>> insertAccounts(List<BulkItem> batch, List<Account> accounts) {
+        return accountRepository.mongoCollection()
+                .insertMany(accounts, new InsertManyOptions().ordered(false))
+                .onItem().transform(result -> batch.stream().map(BulkItem::created).toList())
+                .onFailure().recoverWithItem(failure -> {
+                    log.error("Bulk: fallo al insertar un lote de {} cuentas. Causa: {}", batch.size(), failure.getMessage());
+                    // Con insertMany no ordenado, solo los documentos reportados en writeErrors no se insertaron.
+                    Set<Integer> failedPositions = failure instanceof MongoBulkWriteException bulkWriteException
+                            ? bulkWriteException.getWriteErrors().stream().map(BulkWriteError::getIndex).collect(Collectors.toSet())
+                            : null;
+                    List<BulkItem> result = new ArrayList<>(batch.size());
+                    for (int position = 0; position < batch.size(); position++) {
+                        BulkItem item = batch.get(position);
+                        boolean failed = failedPositions == null || failedPositions.contains(position);
+                        result.add(failed ? BulkItem.failed(item.index(), "Error de persistencia: " + failure.getMessage()) : item.created());
+                    }
+                    return result;
                 });
     }
 
+    /**
+     * Validaciones síncronas comunes a la creación individual y masiva.
+     * @throws IllegalArgumentException si la solicitud es inválida.
+     */
+    private void validateRequest(AccountRequest request) {
+        validateSynchronousAccountCreation(request);
+        // 🔑 CORRECCIÓN 1: Usar request.paymentDayOfMonth() y actualizar el mensaje.
+        if (request.productType() == ProductType.ACTIVE && request.paymentDayOfMonth() == null) {
+            throw new IllegalArgumentException("El campo paymentDayOfMonth es obligatorio para productos de crédito (ACTIVE).");
+        }
+        if (request.productType() != ProductType.ACTIVE && request.productType() != ProductType.PASSIVE) {
+            throw new IllegalArgumentException("Invalid product type.");
+        }
+    }
+
     // Método para validaciones síncronas de la solicitud
     private void validateSynchronousAccountCreation(AccountRequest request) {
 
@@ -336,6 +951,405 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
+    private void validateLookupKeys(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una cuenta a consultar.");
+        }
+        if (keys.size() > lookupMaxKeys) {
+            throw new IllegalArgumentException("La consulta múltiple admite como máximo " + lookupMaxKeys + " cuentas.");
+        }
+        if (keys.stream().anyMatch(key -> key == null || key.isBlank())) {
+            throw new IllegalArgumentException("Las claves de la consulta múltiple no pueden estar en blanco.");
+        }
+    }
+
+    private AccountLookupEntry toLookupEntry(String key, Account account) {
+        return account != null
+                ? new AccountLookupEntry(key, accountMapper.toResponse(account), null)
+                : new AccountLookupEntry(key, null, "NOT_FOUND");
+    }
+
+    /**
+     * Cuenta pasiva por ID: los abonos, cargos y el saldo distribuido solo aplican a cuentas de depósito.
+     */
+    private Uni<Account> findPassiveAccount(ObjectId id) {
+        return accountRepository.findById(id)
+                .onItem().ifNull().failWith(() -> new NoSuchElementException("Account with ID " + id.toHexString() + " not found."))
+                .onItem().invoke(account -> {
+                    if (account.productType != ProductType.PASSIVE) {
+                        throw new BusinessException("Los abonos, cargos y el saldo distribuido solo aplican a cuentas pasivas.");
+                    }
+                });
+    }
+
+    /**
+     * Cuenta pasiva habilitada para abonos y cargos: una cuenta eliminada (INACTIVE) los rechaza.
+     */
+    private Uni<Account> findActivePassiveAccount(ObjectId id) {
+        return findPassiveAccount(id)
+                .onItem().invoke(account -> {
+                    if (account.status == AccountStatus.INACTIVE) {
+                        throw new BusinessException("La cuenta " + id.toHexString() + " está inactiva: no admite abonos ni cargos.");
+                    }
+                });
+    }
+
+    /**
+     * Publica y cachea un abono o cargo aplicado sobre el saldo base.
+     */
+    private void afterBaseBalanceWrite(Account account) {
+        changeFeed.publish(AccountChangeType.BALANCE_UPDATED, account);
+        refreshReadCache(account);
+    }
+
+    /**
+     * Actualiza la copia de respaldo con el documento escrito. Con slots, el saldo base no es el total:
+     * la copia se descarta.
+     */
+    private void refreshReadCache(Account account) {
+        if (account.balanceStripes == null) {
+            accountReadCache.put(accountMapper.toResponse(account));
+        } else {
+            accountReadCache.evict(account.id.toHexString());
+        }
+    }
+
+    /**
+     * Completa el asiento de un abono o cargo sobre el saldo base con el saldo total resultante, si se conoce.
+     */
+    private void completeBaseBalanceMovement(Account account, AccountMovement movement) {
+        movement.customerId = account.customerId;
+        // Con slots, el saldo base no es el total: no se informa como saldo resultante.
+        movement.balance = account.balanceStripes == null ? account.balance : null;
+    }
+
+    private BalanceMovementResponse toMovementResponse(AccountMovement movement) {
+        return new BalanceMovementResponse(movement.accountId, movement.type, movement.amount.abs(),
+                movement.balance, movement.occurredAt);
+    }
+
+    /**
+     * Respuesta de la cuenta con el saldo total (saldo base + slots) si tiene saldo distribuido.
+     */
+    private Uni<AccountResponse> withStripedBalance(Account account) {
+        AccountResponse response = accountMapper.toResponse(account);
+        if (account.balanceStripes == null) {
+            return Uni.createFrom().item(response);
+        }
+        return stripeRepository.sumByAccount(account.id.toHexString())
+                .onItem().transform(striped -> response.withBalance(
+                        account.balance == null ? striped : account.balance.add(striped)));
+    }
+
+    /**
+     * Suma los slots al saldo de las cuentas con saldo distribuido (modifica las entidades recibidas).
+     */
+    private Uni<List<Account>> withStripedBalances(List<Account> accounts) {
+        List<String> stripedIds = accounts.stream()
+                .filter(account -> account.balanceStripes != null)
+                .map(account -> account.id.toHexString())
+                .toList();
+        return stripeRepository.sumByAccounts(stripedIds)
+                .onItem().transform(totals -> {
+                    for (Account account : accounts) {
+                        BigDecimal striped = totals.get(account.id.toHexString());
+                        if (striped != null) {
+                            account.balance = account.balance == null ? striped : account.balance.add(striped);
+                        }
+                    }
+                    return accounts;
+                });
+    }
+
+    /**
+     * Un balance absoluto pisaría los abonos acumulados en los slots: con saldo distribuido se usan abonos y cargos.
+     */
+    private void rejectIfStriped(Account account) {
+        if (isStriped(account)) {
+            throw new BusinessException("La cuenta " + account.id.toHexString()
+                    + " tiene saldo distribuido: use los endpoints de abono y cargo en lugar de update-balance.");
+        }
+    }
+
+    private boolean isStriped(Account account) {
+        return account.balanceStripes != null && account.balanceStripes > 0;
+    }
+
+    private void validateMovementAmount(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("El importe debe ser mayor que cero.");
+        }
+    }
+
+    /**
+     * Escribe el nuevo balance / monto utilizado en el documento Account (con control de versión), junto con la
+     * sequence de su asiento, y publica el cambio en el feed.
+     */
+    private Uni<Account> applyBalance(ObjectId id, BigDecimal balance, BigDecimal amountUsed, long ledgerSequence) {
+        return writeWithVersionCheck(id,
+                        () -> new NoSuchElementException("Account with ID " + id.toHexString() + " not found."),
+                        account -> {
+                            rejectIfStriped(account);
+                            // Actualiza el balance o el amountUsed
+                            // La integral del mes acumula el saldo anterior en la misma escritura con versión.
+                            BalanceIntegral.accrue(account, LocalDateTime.now());
+                            account.setBalance(balance);
+                            account.setAmountUsed(amountUsed);
+                            AccountRepository.recordLedgerSequence(account, ledgerSequence);
+                            // La marca de mora se recalcula en la misma escritura que el amountUsed.
+                            applyOverdueState(account, LocalDate.now());
+                        })
+                .onItem().invoke(account -> changeFeed.publish(AccountChangeType.BALANCE_UPDATED, account));
+    }
+
+    /**
+     * Proyección asíncrona: solo inserta el asiento diferido (sin reescribir el documento Account, que es el punto de contención).
+     * La validación y la respuesta parten de la cuenta con sus asientos pendientes; el documento Account
+     * lo incorpora en la siguiente ejecución de la proyección.
+     */
+    private Uni<AccountResponse> recordPendingBalance(String accountId, BigDecimal balance, BigDecimal amountUsed) {
+        return accountRepository.findById(new ObjectId(accountId))
+                .onItem().ifNull().failWith(() -> new NoSuchElementException("Account with ID " + accountId + " not found."))
+                .onItem().transformToUni(this::withPendingBalance)
+                .chain(account -> {
+                    rejectIfStriped(account);
+                    AccountMovement movement = newMovement(MovementType.BALANCE_UPDATE, accountId);
+                    movement.customerId = account.customerId;
+                    movement.balance = balance;
+                    movement.amountUsed = amountUsed;
+                    movement.deferred = true;
+                    return movementRepository.nextSequence(accountId)
+                            .onItem().invoke(sequence -> movement.sequence = sequence)
+                            .chain(() -> movementRepository.persist(movement))
+                            .replaceWith(() -> withoutVersion(applyPending(account, movement, BigDecimal.ZERO)));
+                })
+                .onItem().transform(accountMapper::toResponse)
+                .onItem().invoke(accountReadCache::put);
+    }
+
+    /**
+     * Con la proyección asíncrona, los abonos y cargos parten del documento Account con los asientos diferidos
+     * ya aplicados (el saldo resultante que informan incluye el último update-balance).
+     */
+    private Uni<Void> projectBeforeMovement(String accountId) {
+        return ledgerAsyncProjection ? projectAccountMovements(accountId) : Uni.createFrom().voidItem();
+    }
+
+    /**
+     * Aplica al documento Account los asientos diferidos de la cuenta en orden de sequence: el último fija el saldo
+     * absoluto, al que se suman los abonos y cargos con sequence posterior ya escritos en el documento.
+     * La escritura es condicionada por versión; después los asientos se marcan como proyectados
+     * (o como anulados si la cuenta ya no existe o no admite el cambio).
+     */
+    private Uni<Void> projectAccountMovements(String accountId) {
+        ObjectId id = new ObjectId(accountId);
+        return movementRepository.findDeferredByAccount(accountId)
+                .chain(pending -> {
+                    if (pending.isEmpty()) {
+                        return Uni.createFrom().voidItem();
+                    }
+                    AccountMovement latest = pending.get(pending.size() - 1);
+                    List<ObjectId> ids = pending.stream().map(movement -> movement.id).toList();
+                    return accountRepository.findById(id)
+                            .onItem().ifNull().failWith(() -> new NoSuchElementException("Account with ID " + accountId + " not found."))
+                            .chain(account -> {
+                                rejectIfStriped(account);
+                                return movementRepository.sumAmountsBetween(accountId, latest.sequence, ledgerSequenceOf(account), account.appliedSequences)
+                                        .chain(appliedAfter -> {
+                                            pending.forEach(movement ->
+                                                    applyPending(account, movement, movement == latest ? appliedAfter : BigDecimal.ZERO));
+                                            return accountRepository.replaceIfVersion(account);
+                                        })
+                                        .onItem().transform(applied -> {
+                                            if (!applied) {
+                                                throw new ConcurrentUpdateException("La cuenta " + accountId + " fue modificada concurrentemente.");
+                                            }
+                                            return account;
+                                        });
+                            })
+                            .onFailure(ConcurrentUpdateException.class).retry().atMost(Constants.VERSION_CONFLICT_RETRIES)
+                            .onItem().invoke(account -> {
+                                changeFeed.publish(AccountChangeType.BALANCE_UPDATED, account);
+                                accountReadCache.put(accountMapper.toResponse(account));
+                            })
+                            .chain(() -> movementRepository.markProjected(ids))
+                            .onFailure(failure -> failure instanceof NoSuchElementException || failure instanceof BusinessException)
+                            .recoverWithUni(failure -> {
+                                log.warn("Ledger: se anulan {} asientos pendientes de la cuenta {}: {}",
+                                        pending.size(), accountId, failure.getMessage());
+                                return movementRepository.markVoided(ids);
+                            })
+                            .replaceWithVoid();
+                })
+                .onFailure().invoke(failure ->
+                        log.error("Ledger: fallo al proyectar los asientos de la cuenta {}: {}", accountId, failure.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    /**
+     * Resuelve un asiento preparado que quedó sin confirmar ni anular: se confirma si su sequence figura entre las
+     * aplicadas al documento Account (o a un slot, en abonos distribuidos), que cada escritura de saldo registra en
+     * la misma actualización atómica, y se anula en caso contrario: un asiento posterior aplicado no dice nada de
+     * uno anterior cuya escritura no llegó a hacerse.
+     */
+    private Uni<Void> resolvePreparedMovement(AccountMovement movement) {
+        if (movement.sequence == null) {
+            return movementRepository.markVoided(List.of(movement.id)).replaceWithVoid();
+        }
+        return Uni.combine().all().unis(
+                        accountRepository.findById(new ObjectId(movement.accountId)),
+                        stripeRepository.hasApplied(movement.accountId, movement.sequence))
+                .with((account, appliedToStripe) -> account != null
+                        && (appliedToStripe || AccountRepository.hasApplied(account, movement.sequence)))
+                .chain(applied -> {
+                    log.warn("Ledger: asiento {} de la cuenta {} sin resolver; se {}.",
+                            movement.sequence, movement.accountId, applied ? "confirma" : "anula");
+                    return applied
+                            ? movementRepository.markProjected(List.of(movement.id))
+                            : movementRepository.markVoided(List.of(movement.id));
+                })
+                .replaceWithVoid()
+                .onFailure().invoke(failure -> log.error("Ledger: no se pudo resolver el asiento {} de la cuenta {}: {}",
+                        movement.sequence, movement.accountId, failure.getMessage()))
+                .onFailure().recoverWithNull();
+    }
+
+    /**
+     * Libro primero: inserta el asiento preparado (con su sequence) antes de la escritura de saldo y, según el
+     * resultado, lo confirma o lo anula. Si el asiento no se puede insertar, la escritura no se hace y la operación
+     * falla; un asiento que quede preparado por una caída lo resuelve el job de proyección.
+     *
+     * @param write Escritura de saldo, que recibe la sequence del asiento.
+     * @param complete Completa el asiento con el resultado de la escritura antes de confirmarlo.
+     */
+    private <T> Uni<T> writeWithMovement(AccountMovement movement, Function<Long, Uni<T>> write,
+                                         BiConsumer<T, AccountMovement> complete) {
+        Uni<Long> sequence = movement.sequence != null
+                ? Uni.createFrom().item(movement.sequence)
+                : movementRepository.nextSequence(movement.accountId);
+        return sequence
+                .onItem().invoke(allocated -> movement.sequence = allocated)
+                .chain(allocated -> movementRepository.persist(movement))
+                .chain(() -> write.apply(movement.sequence)
+                        .onFailure().call(() -> movementRepository.markVoided(List.of(movement.id))
+                                .onFailure().invoke(failure -> log.error("Ledger: no se pudo anular el asiento {} de la cuenta {}: {}",
+                                        movement.sequence, movement.accountId, failure.getMessage()))
+                                .onFailure().recoverWithNull()))
+                .call(result -> {
+                    complete.accept(result, movement);
+                    movement.projected = true;
+                    return movementRepository.confirm(movement)
+                            .onFailure().invoke(failure -> log.warn("Ledger: asiento {} de la cuenta {} aplicado sin confirmar: {}",
+                                    movement.sequence, movement.accountId, failure.getMessage()))
+                            .onFailure().recoverWithNull();
+                });
+    }
+
+    /**
+     * Cuenta con sus asientos diferidos pendientes (proyección asíncrona); sin pendientes, la misma entidad.
+     */
+    private Uni<Account> withPendingBalance(Account account) {
+        return withPendingBalances(List.of(account))
+                .onItem().transform(accounts -> accounts.get(0));
+    }
+
+    /**
+     * Aplica a las cuentas su último asiento diferido pendiente, sobre copias de las entidades leídas
+     * (pueden estar compartidas por el coalescedor de lecturas).
+     */
+    private Uni<List<Account>> withPendingBalances(List<Account> accounts) {
+        if (!ledgerAsyncProjection || accounts.isEmpty()) {
+            return Uni.createFrom().item(accounts);
+        }
+        return movementRepository.findLatestDeferredByAccounts(accounts.stream().map(account -> account.id.toHexString()).toList())
+                .chain(latest -> latest.isEmpty()
+                        ? Uni.createFrom().item(accounts)
+                        : Multi.createFrom().iterable(accounts)
+                                .onItem().transformToUniAndConcatenate(account -> {
+                                    AccountMovement pending = latest.get(account.id.toHexString());
+                                    if (pending == null) {
+                                        return Uni.createFrom().item(account);
+                                    }
+                                    return movementRepository.sumAmountsBetween(pending.accountId, pending.sequence,
+                                                    ledgerSequenceOf(account), account.appliedSequences)
+                                            .onItem().transform(appliedAfter ->
+                                                    withoutVersion(applyPending(accountMapper.copy(account), pending, appliedAfter)));
+                                })
+                                .collect().asList());
+    }
+
+    /**
+     * Con asientos diferidos pendientes la versión del documento no cambia hasta la proyección y no identifica el
+     * saldo servido: la lectura va sin versión (sin ETag), igual que con saldo distribuido.
+     */
+    private Account withoutVersion(Account account) {
+        account.version = null;
+        return account;
+    }
+
+    /**
+     * Aplica un asiento diferido sobre la entidad: su saldo absoluto más los importes escritos después en el documento.
+     */
+    private Account applyPending(Account account, AccountMovement pending, BigDecimal appliedAfter) {
+        // La integral no retrocede si el documento ya registra un cambio posterior al asiento.
+        LocalDateTime changedAt = account.lastBalanceChangeAt != null && account.lastBalanceChangeAt.isAfter(pending.occurredAt)
+                ? account.lastBalanceChangeAt : pending.occurredAt;
+        BalanceIntegral.accrue(account, changedAt);
+        account.setBalance(pending.balance == null && appliedAfter.signum() == 0
+                ? null
+                : Objects.requireNonNullElse(pending.balance, BigDecimal.ZERO).add(appliedAfter));
+        account.setAmountUsed(pending.amountUsed);
+        account.setLedgerSequence(Math.max(ledgerSequenceOf(account), pending.sequence));
+        applyOverdueState(account, LocalDate.now());
+        return account;
+    }
+
+    private long ledgerSequenceOf(Account account) {
+        return account.ledgerSequence != null ? account.ledgerSequence : 0L;
+    }
+
+    private AccountMovement newMovement(MovementType type, String accountId) {
+        AccountMovement movement = new AccountMovement();
+        movement.accountId = accountId;
+        movement.type = type;
+        movement.projected = false;
+        movement.occurredAt = LocalDateTime.now();
+        return movement;
+    }
+
+    /**
+     * Asiento de apertura de una cuenta nueva (sequence inicial del contador de la cuenta).
+     */
+    private AccountMovement openingMovement(Account account) {
+        AccountMovement movement = newMovement(MovementType.OPENING, account.id.toHexString());
+        movement.id = new ObjectId(); // Asignado antes de insertar: el lote lo confirma o lo anula por cuenta
+        movement.customerId = account.customerId;
+        movement.sequence = AccountMovementRepository.OPENING_SEQUENCE;
+        movement.balance = account.balance;
+        movement.amountUsed = account.amountUsed;
+        return movement;
+    }
+
+    /**
+     * Lee la cuenta, aplica la modificación y la reemplaza condicionada a la versión leída (incrementándola).
+     * Si otra escritura se adelantó, se vuelve a leer y aplicar; agotados los reintentos falla con ConcurrentUpdateException.
+     */
+    private Uni<Account> writeWithVersionCheck(ObjectId id, Supplier<? extends Throwable> notFound, Consumer<Account> mutation) {
+        return accountRepository.findById(id)
+                .onItem().ifNull().failWith(notFound)
+                .onItem().transformToUni(account -> {
+                    mutation.accept(account);
+                    return accountRepository.replaceIfVersion(account)
+                            .onItem().transform(applied -> {
+                                if (!applied) {
+                                    throw new ConcurrentUpdateException("La cuenta " + id.toHexString() + " fue modificada concurrentemente.");
+                                }
+                                return account;
+                            });
+                })
+                .onFailure(ConcurrentUpdateException.class).retry().atMost(Constants.VERSION_CONFLICT_RETRIES);
+    }
+
     // Método para convertir String a ObjectId
     private ObjectId toObjectId(String id) {
         return new ObjectId(id);
@@ -368,76 +1382,57 @@ public class AccountServiceImpl implements AccountService {
                 type == AccountType.FIXED_TERM_DEPOSIT;
     }
 
-    private Uni<Void> validateVipEligibility(AccountRequest request) {
+    private void validateVipEligibility(AccountRequest request, CustomerPortfolio portfolio) {
         // El tipo de cuenta que se está creando.
         AccountType requestedType = request.accountType();
-        String customerId = request.customerId();
 
         // --- LÓGICA PARA CUENTAS NO-AHORRO (Hereda regla de Unicidad de PERSONAL) ---
         if (requestedType != AccountType.SAVINGS_ACCOUNT) {
-
             // REGLA: Un cliente VIP (Personal) solo puede tener UNA cuenta de cada tipo (Corriente, Plazo Fijo, etc.).
-            // Sustituido: find("customerId = ?1 and accountType = ?2", ...).count()
-            return accountRepository.countAccountsByType(customerId, requestedType)
-                    .onItem().transformToUni(count -> {
-                        if (count >= 1) {
-                            return Uni.createFrom().failure(new IllegalArgumentException(
-                                    "A VIP customer can only have one " + requestedType + " account (excluding Savings)."
-                            ));
-                        }
-                        return Uni.createFrom().voidItem();
-                    });
+            if (portfolio.sameTypeAccounts() >= 1) {
+                throw new IllegalArgumentException(
+                        "A VIP customer can only have one " + requestedType + " account (excluding Savings)."
+                );
+            }
+            return;
         }
 
         // --- LÓGICA PARA CUENTA DE AHORRO VIP (Reglas Especiales) ---
-        // REGLA 1: Debe tener una Tarjeta de Crédito activa (ASÍNCRONO - LÓGICA LOCAL)
-        return accountRepository.hasActiveCreditCard(customerId)
-                .onItem().transformToUni(hasCreditCard -> {
-                    if (Boolean.FALSE.equals(hasCreditCard)) {
-                        return Uni.createFrom().failure(new IllegalArgumentException(
-                                "El cliente VIP debe tener una tarjeta de crédito activa para abrir una Cuenta de Ahorro VIP."
-                        ));
-                    }
+        // REGLA 1: Debe tener una Tarjeta de Crédito activa.
+        if (!portfolio.hasActiveCreditCard()) {
+            throw new IllegalArgumentException(
+                    "El cliente VIP debe tener una tarjeta de crédito activa para abrir una Cuenta de Ahorro VIP."
+            );
+        }
 
-                    // REGLA 2: No debe tener ya una cuenta de ahorro VIP.
-                    // Sustituido: find("customerId = ?1 and accountType = ?2", ...).count()
-                    return accountRepository.countAccountsByType(customerId, requestedType) // <-- USO CLEAN CODE
-                            .onItem().transformToUni(count -> {
-                                if (count >= 1) {
-                                    return Uni.createFrom().failure(new IllegalArgumentException("Un cliente VIP solo puede tener una cuenta de ahorro VIP."));
-                                }
-                                return Uni.createFrom().voidItem();
-                            });
-                });
+        // REGLA 2: No debe tener ya una cuenta de ahorro VIP.
+        if (portfolio.sameTypeAccounts() >= 1) {
+            throw new IllegalArgumentException("Un cliente VIP solo puede tener una cuenta de ahorro VIP.");
+        }
     }
 
-    private Uni<Void> validatePymeEligibility(AccountRequest request) {
+    private void validatePymeEligibility(AccountRequest request, CustomerPortfolio portfolio) {
 
         // REGLA CLAVE 1: El perfil PYME solo aplica sus reglas a la CUENTA CORRIENTE.
         if (request.accountType() != AccountType.CURRENT_ACCOUNT) {
             // Un cliente PYME no puede tener cuentas de Ahorro o Plazo Fijo.
             if (request.accountType() == AccountType.SAVINGS_ACCOUNT || request.accountType() == AccountType.FIXED_TERM_DEPOSIT) {
-                return Uni.createFrom().failure(new IllegalArgumentException("A PYME customer cannot have savings or fixed-term deposit accounts."));
+                throw new IllegalArgumentException("A PYME customer cannot have savings or fixed-term deposit accounts.");
             }
-            return Uni.createFrom().voidItem();
+            return;
         }
 
-        // REGLA CLAVE 2: Debe tener una Tarjeta de Crédito activa (ASÍNCRONO - LÓGICA LOCAL)
-        return accountRepository.hasActiveCreditCard(request.customerId())
-                .onItem().transformToUni(hasCreditCard -> {
-                    if (Boolean.FALSE.equals(hasCreditCard)) {
-                        return Uni.createFrom().failure(new IllegalArgumentException(
-                                "El cliente PYME debe tener una tarjeta de crédito activa para abrir una Cuenta Corriente PYME."
-                        ));
-                    }
-
-                    // REGLA 3 (Heredada): Debe tener al menos un titular.
-                    if (request.holders() == null || request.holders().isEmpty()) {
-                        return Uni.createFrom().failure(new IllegalArgumentException("A business account must have at least one holder."));
-                    }
+        // REGLA CLAVE 2: Debe tener una Tarjeta de Crédito activa.
+        if (!portfolio.hasActiveCreditCard()) {
+            throw new IllegalArgumentException(
+                    "El cliente PYME debe tener una tarjeta de crédito activa para abrir una Cuenta Corriente PYME."
+            );
+        }
 
-                    return Uni.createFrom().voidItem();
-                });
+        // REGLA 3 (Heredada): Debe tener al menos un titular.
+        if (request.holders() == null || request.holders().isEmpty()) {
+            throw new IllegalArgumentException("A business account must have at least one holder.");
+        }
     }
 
     /**
@@ -446,108 +1441,152 @@ public class AccountServiceImpl implements AccountService {
      * @param customerId ID del cliente.
      * @return Uni<Void> vacío si está limpio, Uni<Exception> si tiene deuda o si la verificación falla.
      */
-    private Uni<Void> validateOverdueDebt(String customerId) {
+    @WithSpan("crearCuenta.validateOverdueDebt")
+    Uni<Void> validateOverdueDebt(@SpanAttribute("customer.id") String customerId) {
         final int todayDay = LocalDate.now().getDayOfMonth(); // Obtener solo el día (ej. 18)
-        log.info("Iniciando chequeo JIT de deuda vencida para cliente: {}", customerId);
-
-        return accountRepository.findActiveAccountsByCustomerId(customerId)
-                .onItem().transformToUni(activeAccounts -> {
+        log.info("Iniciando chequeo de deuda vencida para cliente: {}", customerId);
 
-                    Account overdueAccount = activeAccounts.stream()
-                            .filter(account ->
-                                    account.getAmountUsed() != null &&
-                                            account.getAmountUsed().compareTo(BigDecimal.ZERO) > 0 &&
-                                            account.getPaymentDayOfMonth() != null &&
-
-                                            // 🔑 LÓGICA CLAVE: ¿El día de pago ya pasó en este mes?
-                                            // (Ejemplo: Hoy es 18, y paymentDayOfMonth es 17)
-                                            account.getPaymentDayOfMonth() < todayDay
-                            )
-                            .findFirst()
-                            .orElse(null);
-
-                    // ... [El resto de la lógica de bloqueo y mensajes se mantiene igual] ...
+        // Consulta indexada sobre la marca precalculada (overdueSince): no se cargan los créditos del cliente.
+        return accountRepository.findFirstOverdueAccount(customerId, todayDay)
+                .onItem().transformToUni(overdueAccount -> {
                     if (overdueAccount != null) {
-
-                        BigDecimal currentOverdueAmount = overdueAccount.getAmountUsed();
-
                         // Denegación por Regla de Negocio
-                        return Uni.createFrom().failure(new BusinessException(
-                                "El cliente posee productos de crédito con deuda vencida. El día de pago (" + overdueAccount.getPaymentDayOfMonth() + ") ha pasado en el mes actual. Monto vencido (base JIT): " + currentOverdueAmount + "."
-                        ));
+                        return Uni.createFrom().failure(new BusinessException(overdueDebtMessage(overdueAccount)));
                     }
 
-                    log.info("Cliente {} limpio de deuda vencida (JIT OK).", customerId);
+                    log.info("Cliente {} limpio de deuda vencida.", customerId);
                     return Uni.createFrom().voidItem();
                 });
     }
 
-    // --- Nuevo Método: Asignar Atributos y Persistir ---
-    private Uni<AccountResponse> assignSpecialAttributesAndPersist(AccountRequest request) {
-        return customerServiceRestClient.getCustomerById(request.customerId())
-                .onItem().transformToUni(customerResponse -> {
+    /**
+     * Busca el primer producto de crédito con saldo utilizado cuyo día de pago ya pasó en el mes actual.
+     * @return La cuenta vencida, o null si el cliente está limpio.
+     */
+    private Account findOverdueAccount(List<Account> accounts, int todayDay) {
+        return accounts.stream()
+                .filter(account -> isOverdue(account, todayDay))
+                .findFirst()
+                .orElse(null);
+    }
 
-                    Account newAccount = accountMapper.toEntity(request);
-                    CustomerType customerType = customerResponse.type();
+    /**
+     * Regla de deuda vencida: producto de crédito con saldo utilizado cuyo día de pago ya pasó en el mes actual.
+     * Es la misma regla que aplica el job diario de mora sobre toda la colección.
+     */
+    private boolean isOverdue(Account account, int todayDay) {
+        return account.getProductType() == ProductType.ACTIVE &&
+                account.getAmountUsed() != null &&
+                account.getAmountUsed().compareTo(BigDecimal.ZERO) > 0 &&
+                account.getPaymentDayOfMonth() != null &&
+
+                // 🔑 LÓGICA CLAVE: ¿El día de pago ya pasó en este mes?
+                // (Ejemplo: Hoy es 18, y paymentDayOfMonth es 17)
+                account.getPaymentDayOfMonth() < todayDay;
+    }
 
-                    // --- LÓGICA DE INICIALIZACIÓN BÁSICA ---
-                    newAccount.setAccountNumber(
-                            generateAccountNumber(request.productType(), request.accountType())
-                    );
-                    newAccount.setOpeningDate(LocalDateTime.now());
-                    newAccount.setStatus(AccountStatus.ACTIVE);
-                    // 1. INICIALIZACIÓN DE COMISIÓN DE MANTENIMIENTO (DEFAULT)
-                    newAccount.maintenanceFeeAmount = Constants.DEFAULT_MAINTENANCE_FEE;
-                    newAccount.requiredDailyAverage = Constants.INITIAL_BALANCE;
-
-                    // 2. INICIALIZACIÓN DE LÍMITES DE TRANSACCIÓN (DEFAULT: PERSONAL/EMPRESARIAL)
-                    if (request.productType() == ProductType.PASSIVE) {
-                        newAccount.freeTransactionLimit = Constants.DEFAULT_FREE_TXN_LIMIT; // 4 transacciones gratuitas por defecto
-                        newAccount.transactionFeeAmount = Constants.DEFAULT_TXN_FEE_AMOUNT; // Comisión de $0.50 por excedente
-                        newAccount.currentMonthlyTransactions = Constants.INITIAL_MONTHLY_TRANSACTIONS; // Contador inicia en cero
-                        // Campos de crédito a null o default para pasivos
-                        newAccount.setPaymentDayOfMonth(null);
-                        newAccount.setOverdueAmount(Constants.INITIAL_BALANCE);
-                    } else {
-                        // Para productos ACTIVE (TC/Préstamos), estos campos no aplican
-                        newAccount.freeTransactionLimit = null;
-                        newAccount.transactionFeeAmount = null;
-                        newAccount.currentMonthlyTransactions = null;
-                        // **INICIALIZACIÓN CRÍTICA DE RIESGO**
-                        // 1. Amount Used: Se inicializa a 0 si no vino en el request (o se usa el valor mapeado).
-                        newAccount.setAmountUsed((newAccount.getAmountUsed() != null) ? newAccount.getAmountUsed() : Constants.INITIAL_BALANCE);
-                        // 2. Payment Due Date: Se toma del Request (ya validamos que no sea nulo en el servicio).
-                        newAccount.setPaymentDayOfMonth(request.paymentDayOfMonth());
-                        // 3. Overdue Amount: La mora al crear la cuenta es SIEMPRE 0.
-                        newAccount.setOverdueAmount(Constants.INITIAL_BALANCE);
-                    }
+    /**
+     * Actualiza la marca de mora (overdueSince / overdueAmount) de la cuenta según su amountUsed actual.
+     * Una marca existente conserva su fecha original.
+     */
+    private void applyOverdueState(Account account, LocalDate today) {
+        if (isOverdue(account, today.getDayOfMonth())) {
+            if (account.getOverdueSince() == null) {
+                account.setOverdueSince(today.withDayOfMonth(account.getPaymentDayOfMonth()).plusDays(1));
+            }
+            account.setOverdueAmount(account.getAmountUsed());
+        } else {
+            account.setOverdueSince(null);
+            account.setOverdueAmount(Constants.INITIAL_BALANCE);
+        }
+    }
 
-                    // LÓGICA DE ASIGNACIÓN VIP (Ahorro)
-                    if (customerResponse.type() == CustomerType.VIP &&
-                            request.accountType() == AccountType.SAVINGS_ACCOUNT) {
-
-                        // Requisito de Monitoreo
-                        newAccount.requiredDailyAverage = Constants.VIP_REQUIRED_AVERAGE;
-                        // Comisión Cero (sin comisión)
-                        newAccount.maintenanceFeeAmount = Constants.INITIAL_BALANCE;
-                        newAccount.freeTransactionLimit = Constants.VIP_FREE_TXN_LIMIT; // Prácticamente ilimitado
-                        newAccount.transactionFeeAmount = Constants.INITIAL_BALANCE; // Comisión de transacción Cero
-                        log.info("Assigned VIP attributes to account ID {}: Avg. ${}, Fee ${}, Txn Limit {}",
-                                newAccount.id, Constants.VIP_REQUIRED_AVERAGE, Constants.INITIAL_BALANCE, Constants.VIP_FREE_TXN_LIMIT);
-                    }
-                    // LÓGICA DE ASIGNACIÓN PYME (Cuenta Corriente)
-                    else if (customerResponse.type() == CustomerType.PYME &&
-                            request.accountType() == AccountType.CURRENT_ACCOUNT) {
-                        // Regla Especial PYME: Limite moderado con comisión baja
-                        newAccount.freeTransactionLimit = Constants.PYME_FREE_TXN_LIMIT; // Límite más alto que el estándar
-                        newAccount.transactionFeeAmount = Constants.PYME_TXN_FEE_AMOUNT; // Comisión baja por excedente
-
-                        log.info("Assigned PYME attributes to account ID {}: Txn Limit {}, Txn Fee ${}",
-                                newAccount.id, Constants.PYME_FREE_TXN_LIMIT, Constants.PYME_TXN_FEE_AMOUNT);
-                    }
-                    return accountRepository.persist(newAccount)
-                            .onItem().transform(accountMapper::toResponse);
-                });
+    private String overdueDebtMessage(Account overdueAccount) {
+        return "El cliente posee productos de crédito con deuda vencida. El día de pago (" + overdueAccount.getPaymentDayOfMonth()
+                + ") ha pasado en el mes actual. Monto vencido (base JIT): " + overdueAccount.getAmountUsed() + ".";
+    }
+
+    // --- Nuevo Método: Asignar Atributos y Persistir ---
+    @WithSpan("crearCuenta.assignSpecialAttributesAndPersist")
+    Uni<AccountResponse> assignSpecialAttributesAndPersist(AccountRequest request, CustomerResponse customerResponse) {
+        Account newAccount = buildNewAccount(request, customerResponse);
+        AccountMovement opening = openingMovement(newAccount);
+        return movementRepository.initSequences(List.of(opening.accountId))
+                .chain(() -> writeWithMovement(opening, sequence -> accountRepository.persist(newAccount), (account, recorded) -> { }))
+                .onItem().invoke(account -> changeFeed.publish(AccountChangeType.CREATED, account))
+                .onItem().transform(accountMapper::toResponse);
+    }
+
+    /**
+     * Construye la entidad de la nueva cuenta e inicializa sus atributos especiales
+     * (comisiones, límites de transacción, riesgo) según el producto y el tipo de cliente.
+     */
+    private Account buildNewAccount(AccountRequest request, CustomerResponse customerResponse) {
+        Account newAccount = accountMapper.toEntity(request);
+        CustomerType customerType = customerResponse.type();
+
+        // --- LÓGICA DE INICIALIZACIÓN BÁSICA ---
+        newAccount.setAccountNumber(
+                generateAccountNumber(request.productType(), request.accountType())
+        );
+        // El ID se asigna antes de persistir: lo usan el asiento de apertura y el resultado por elemento del alta masiva.
+        newAccount.id = new ObjectId();
+        newAccount.setOpeningDate(LocalDateTime.now());
+        BalanceIntegral.start(newAccount, newAccount.getOpeningDate());
+        newAccount.setStatus(AccountStatus.ACTIVE);
+        newAccount.setVersion(Constants.INITIAL_VERSION);
+        AccountRepository.recordLedgerSequence(newAccount, AccountMovementRepository.OPENING_SEQUENCE);
+        newAccount.setCustomerType(customerType);
+        // 1. INICIALIZACIÓN DE COMISIÓN DE MANTENIMIENTO (DEFAULT)
+        newAccount.maintenanceFeeAmount = Constants.DEFAULT_MAINTENANCE_FEE;
+        newAccount.requiredDailyAverage = Constants.INITIAL_BALANCE;
+
+        // 2. INICIALIZACIÓN DE LÍMITES DE TRANSACCIÓN (DEFAULT: PERSONAL/EMPRESARIAL)
+        if (request.productType() == ProductType.PASSIVE) {
+            newAccount.freeTransactionLimit = Constants.DEFAULT_FREE_TXN_LIMIT; // 4 transacciones gratuitas por defecto
+            newAccount.transactionFeeAmount = Constants.DEFAULT_TXN_FEE_AMOUNT; // Comisión de $0.50 por excedente
+            newAccount.currentMonthlyTransactions = Constants.INITIAL_MONTHLY_TRANSACTIONS; // Contador inicia en cero
+            // Campos de crédito a null o default para pasivos
+            newAccount.setPaymentDayOfMonth(null);
+            newAccount.setOverdueAmount(Constants.INITIAL_BALANCE);
+        } else {
+            // Para productos ACTIVE (TC/Préstamos), estos campos no aplican
+            newAccount.freeTransactionLimit = null;
+            newAccount.transactionFeeAmount = null;
+            newAccount.currentMonthlyTransactions = null;
+            // **INICIALIZACIÓN CRÍTICA DE RIESGO**
+            // 1. Amount Used: Se inicializa a 0 si no vino en el request (o se usa el valor mapeado).
+            newAccount.setAmountUsed((newAccount.getAmountUsed() != null) ? newAccount.getAmountUsed() : Constants.INITIAL_BALANCE);
+            // 2. Payment Due Date: Se toma del Request (ya validamos que no sea nulo en el servicio).
+            newAccount.setPaymentDayOfMonth(request.paymentDayOfMonth());
+            // 3. Mora: se marca ya al crear si el crédito nace con saldo utilizado y su día de pago pasó.
+            applyOverdueState(newAccount, LocalDate.now());
+        }
+
+        // LÓGICA DE ASIGNACIÓN VIP (Ahorro)
+        if (customerResponse.type() == CustomerType.VIP &&
+                request.accountType() == AccountType.SAVINGS_ACCOUNT) {
+
+            // Requisito de Monitoreo
+            newAccount.requiredDailyAverage = Constants.VIP_REQUIRED_AVERAGE;
+            // Comisión Cero (sin comisión)
+            newAccount.maintenanceFeeAmount = Constants.INITIAL_BALANCE;
+            newAccount.freeTransactionLimit = Constants.VIP_FREE_TXN_LIMIT; // Prácticamente ilimitado
+            newAccount.transactionFeeAmount = Constants.INITIAL_BALANCE; // Comisión de transacción Cero
+            log.info("Assigned VIP attributes to account ID {}: Avg. ${}, Fee ${}, Txn Limit {}",
+                    newAccount.id, Constants.VIP_REQUIRED_AVERAGE, Constants.INITIAL_BALANCE, Constants.VIP_FREE_TXN_LIMIT);
+        }
+        // LÓGICA DE ASIGNACIÓN PYME (Cuenta Corriente)
+        else if (customerResponse.type() == CustomerType.PYME &&
+                request.accountType() == AccountType.CURRENT_ACCOUNT) {
+            // Regla Especial PYME: Limite moderado con comisión baja
+            newAccount.freeTransactionLimit = Constants.PYME_FREE_TXN_LIMIT; // Límite más alto que el estándar
+            newAccount.transactionFeeAmount = Constants.PYME_TXN_FEE_AMOUNT; // Comisión baja por excedente
+
+            log.info("Assigned PYME attributes to account ID {}: Txn Limit {}, Txn Fee ${}",
+                    newAccount.id, Constants.PYME_FREE_TXN_LIMIT, Constants.PYME_TXN_FEE_AMOUNT);
+        }
+        return newAccount;
     }
 
     /**
@@ -626,6 +1665,30 @@ public class AccountServiceImpl implements AccountService {
         return Uni.createFrom().failure(new ServiceUnavailableException(errorMessage));
     }
 
+    /**
+     * Fallback con respaldo (stale-while-revalidate): si la cuenta se leyó correctamente antes, se sirve
+     * la última copia indicando su antigüedad, y se lanza un refresco en segundo plano a través del
+     * Circuit Breaker compartido (cuando el circuito pase a HALF_OPEN, ese refresco es la llamada de prueba).
+     * Sin copia en caché se comporta como fallbackBuscarPorCuentaId (una cuenta inexistente no llega al fallback).
+     */
+    public Uni<AccountReadResult> fallbackBuscarPorCuentaIdConRespaldo(String accountId, Throwable failure) {
+        AccountReadCache.Entry cached = accountReadCache.get(accountId);
+        if (cached == null) {
+            return fallbackBuscarPorCuentaId(accountId, failure)
+                    .onItem().transform(AccountReadResult::fresh);
+        }
+        log.warn("FALLBACK CON RESPALDO en buscarPorCuentaId para ID {} (copia de hace {} ms). Causa: {}",
+                accountId, cached.age().toMillis(), failure.getMessage());
+
+        if (accountReadCache.tryStartRefresh(accountId)) {
+            // ArC intercepta también las llamadas internas: el refresco pasa por el Timeout y el Circuit Breaker.
+            buscarPorCuentaId(accountId).subscribe().with(
+                    refreshed -> log.info("Cuenta {} refrescada en caché tras el fallback.", accountId),
+                    refreshFailure -> log.debug("Refresco de la cuenta {} fallido: {}", accountId, refreshFailure.getMessage()));
+        }
+        return Uni.createFrom().item(new AccountReadResult(cached.account(), cached.age(), cached.account().version() != null));
+    }
+
     /**
      * Provee una excepción de servicio no disponible cuando falla la operación crítica.
      */
@@ -661,4 +1724,30 @@ public class AccountServiceImpl implements AccountService {
                 "Fallo del sistema de adquisición. La solicitud de cuenta ha sido denegada temporalmente (FT/Timeout). Intente más tarde."
         ));
     }
+
+    /**
+     * Estado interno de un elemento durante la creación masiva.
+     */
+    record BulkItem(int index, AccountRequest request, Account account, BulkItemStatus status, String error) {
+
+        static BulkItem pending(int index, AccountRequest request) {
+            return new BulkItem(index, request, null, null, null);
+        }
+
+        static BulkItem accepted(int index, Account account) {
+            return new BulkItem(index, null, account, null, null);
+        }
+
+        static BulkItem rejected(int index, String error) {
+            return new BulkItem(index, null, null, BulkItemStatus.REJECTED, error);
+        }
+
+        static BulkItem failed(int index, String error) {
+            return new BulkItem(index, null, null, BulkItemStatus.FAILED, error);
+        }
+
+        BulkItem created() {
+            return new BulkItem(index, null, account, BulkItemStatus.CREATED, null);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.repository.entity.Account;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Integral del saldo del mes en curso (saldo × segundos) que cada cuenta mantiene en su propio documento,
+ * para leer el saldo promedio del mes sin recorrer snapshots.
+ * * Misma regla que AccountRepository.balanceChangeUpdate (abonos y cargos atómicos): una integral de otro mes
+ * cuenta como cero y el saldo vigente se toma desde el inicio del mes (o la apertura, si es posterior).
+ */
+final class BalanceIntegral {
+
+    private BalanceIntegral() {
+    }
+
+    /**
+     * Acumula el saldo actual hasta 'now' y marca el cambio; se llama justo antes de escribir el nuevo saldo.
+     */
+    static void accrue(Account account, LocalDateTime now) {
+        account.balanceIntegralMonth = integralAt(account, now);
+        account.integralPeriod = YearMonth.from(now).toString();
+        account.lastBalanceChangeAt = now;
+    }
+
+    /**
+     * Estado inicial de una cuenta nueva: integral cero desde su apertura.
+     */
+    static void start(Account account, LocalDateTime openedAt) {
+        account.balanceIntegralMonth = BigDecimal.ZERO;
+        account.integralPeriod = YearMonth.from(openedAt).toString();
+        account.lastBalanceChangeAt = openedAt;
+    }
+
+    /**
+     * Saldo promedio ponderado por tiempo desde el inicio del mes (o la apertura, si es posterior) hasta 'now'.
+     */
+    static BigDecimal monthToDateAverage(Account account, LocalDateTime now) {
+        LocalDateTime from = periodStart(account, now);
+        long seconds = Duration.between(from, now).getSeconds();
+        if (seconds <= 0) {
+            return account.balance;
+        }
+        return integralAt(account, now).divide(BigDecimal.valueOf(seconds), 2, RoundingMode.HALF_EVEN);
+    }
+
+    private static BigDecimal integralAt(Account account, LocalDateTime now) {
+        boolean samePeriod = YearMonth.from(now).toString().equals(account.integralPeriod)
+                && account.balanceIntegralMonth != null
+                && account.lastBalanceChangeAt != null;
+        BigDecimal accrued = samePeriod ? account.balanceIntegralMonth : BigDecimal.ZERO;
+        // Sin integral del mes, el saldo se toma desde el inicio del mes o, si abrió después, desde la apertura.
+        LocalDateTime heldSince = samePeriod ? account.lastBalanceChangeAt : periodStart(account, now);
+        BigDecimal balance = account.balance != null ? account.balance : BigDecimal.ZERO;
+        long heldSeconds = Math.max(0, Duration.between(heldSince, now).getSeconds());
+        return accrued.add(balance.multiply(BigDecimal.valueOf(heldSeconds)));
+    }
+
+    private static LocalDateTime periodStart(Account account, LocalDateTime now) {
+        LocalDateTime monthStart = monthStart(now);
+        return account.openingDate != null && account.openingDate.isAfter(monthStart) ? account.openingDate : monthStart;
+    }
+
+    private static LocalDateTime monthStart(LocalDateTime now) {
+        return now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,87 @@
+package com.bancario.account.service.impl;
+
+import io.vertx.core.buffer.Buffer;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Serializa documentos de balance_snapshots a CSV por bloques.
+ * Cada exportación usa su propia instancia: el StringBuilder se reutiliza entre bloques,
+ * así no se crean DTOs ni árboles JSON por fila. El Multi de origen entrega los bloques en
+ * secuencia, por lo que no hay acceso concurrente al buffer.
+ */
+class BalanceSnapshotCsvWriter {
+
+    static final String HEADER = "date,customerId,productId,productType,accountType,balanceEOD,amountUsedEOD\n";
+
+    private final StringBuilder buffer;
+
+    BalanceSnapshotCsvWriter(int initialCapacity) {
+        this.buffer = new StringBuilder(initialCapacity);
+    }
+
+    /**
+     * Escribe un bloque de filas y devuelve su contenido como Buffer listo para enviar.
+     */
+    Buffer write(List<Document> rows) {
+        buffer.setLength(0);
+        for (Document row : rows) {
+            appendDate(row.get("date"));
+            buffer.append(',');
+            appendText(row.get("customerId"));
+            buffer.append(',');
+            appendText(row.get("productId"));
+            buffer.append(',');
+            appendText(row.get("productType"));
+            buffer.append(',');
+            appendText(row.get("accountType"));
+            buffer.append(',');
+            appendDecimal(row.get("balanceEOD"));
+            buffer.append(',');
+            appendDecimal(row.get("amountUsedEOD"));
+            buffer.append('\n');
+        }
+        return Buffer.buffer(buffer.toString());
+    }
+
+    private void appendDate(Object value) {
+        if (value instanceof Date date) {
+            // LocalDate se almacena como fecha UTC a medianoche.
+            buffer.append(date.toInstant().atOffset(ZoneOffset.UTC).toLocalDate());
+        } else if (value != null) {
+            buffer.append(value);
+        }
+    }
+
+    private void appendDecimal(Object value) {
+        if (value instanceof Decimal128 decimal) {
+            buffer.append(decimal.bigDecimalValue().toPlainString());
+        } else if (value != null) {
+            buffer.append(value);
+        }
+    }
+
+    private void appendText(Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+            buffer.append(text);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,42 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.dto.AccountRequest;
+import com.bancario.account.enums.AccountStatus;
+import com.bancario.account.enums.CreditType;
+import com.bancario.account.enums.ProductType;
+import com.bancario.account.repository.entity.Account;
+
+import java.util.List;
+
+/**
+ * Resumen de la cartera de un cliente con los datos que necesitan las reglas de elegibilidad
+ * al crear una cuenta. Solo se completan los valores relevantes para el producto solicitado.
+ *
+ * @param activeProducts Número de productos de crédito (ACTIVE) del cliente.
+ * @param sameTypeAccounts Número de cuentas del mismo AccountType que la solicitada.
+ * @param hasActiveCreditCard Si el cliente posee una tarjeta de crédito activa.
+ */
+record CustomerPortfolio(
+        long activeProducts,
+        long sameTypeAccounts,
+        boolean hasActiveCreditCard
+) {
+
+    /**
+     * Calcula el resumen a partir de la cartera completa del cliente ya cargada en memoria,
+     * con la misma semántica que los conteos de AccountRepository.
+     */
+    static CustomerPortfolio from(List<Account> accounts, AccountRequest request) {
+        long activeProducts = accounts.stream()
+                .filter(account -> account.productType == ProductType.ACTIVE)
+                .count();
+        long sameTypeAccounts = accounts.stream()
+                .filter(account -> account.accountType == request.accountType())
+                .count();
+        boolean hasActiveCreditCard = accounts.stream()
+                .anyMatch(account -> account.productType == ProductType.ACTIVE
+                        && account.creditType == CreditType.CREDIT_CARD
+                        && account.status == AccountStatus.ACTIVE);
+        return new CustomerPortfolio(activeProducts, sameTypeAccounts, hasActiveCreditCard);
+    }
+}
@@ -0,0 +1,77 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.repository.entity.BalanceSnapshot;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reconstruye la serie diaria de saldos EOD a partir de los snapshots almacenados, que el Job EOD solo escribe
+ * para las cuentas que cambiaron: cada snapshot vale desde su fecha hasta el siguiente snapshot del producto.
+ * * Los snapshots deben incluir el valor vigente al inicio del rango (el Job EOD escribe todas las cuentas en la
+ * primera ejecución de cada mes, por lo que basta con leer desde el día 1 del mes de inicio).
+ */
+final class SnapshotCarryForward {
+
+    private SnapshotCarryForward() {
+    }
+
+    /**
+     * @param stored Snapshots almacenados desde el día 1 del mes de startDate hasta endDate, en cualquier orden.
+     * @param startDate Primer día devuelto (inclusivo).
+     * @param endDate Último día devuelto (inclusivo).
+     * @param filledThrough Último día cerrado por el Job EOD; los días posteriores no se rellenan.
+     *                      Si es null (sin punto de control), solo se devuelven los snapshots almacenados.
+     * @return Un snapshot por producto y día dentro del rango, ordenados por fecha.
+     */
+    static List<BalanceSnapshot> fill(List<BalanceSnapshot> stored, LocalDate startDate, LocalDate endDate, LocalDate filledThrough) {
+        Map<String, List<BalanceSnapshot>> byProduct = stored.stream()
+                // Con la misma fecha (reejecución del job), el último leído (takenAt) queda al final.
+                .sorted(Comparator.comparing((BalanceSnapshot snapshot) -> snapshot.date)
+                        .thenComparing(snapshot -> snapshot.takenAt, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.groupingBy(snapshot -> snapshot.productId, LinkedHashMap::new, Collectors.toList()));
+
+        List<BalanceSnapshot> daily = new ArrayList<>();
+        for (List<BalanceSnapshot> snapshots : byProduct.values()) {
+            for (int i = 0; i < snapshots.size(); i++) {
+                BalanceSnapshot current = snapshots.get(i);
+                // Un snapshot repetido en la misma fecha queda sustituido por el siguiente (el más reciente).
+                LocalDate until = i + 1 < snapshots.size()
+                        ? snapshots.get(i + 1).date
+                        : lastFilledDay(current.date, endDate, filledThrough).plusDays(1);
+                for (LocalDate date = current.date; date.isBefore(until); date = date.plusDays(1)) {
+                    if (!date.isBefore(startDate) && !date.isAfter(endDate)) {
+                        daily.add(date.equals(current.date) ? current : carriedTo(current, date));
+                    }
+                }
+            }
+        }
+        daily.sort(Comparator.comparing(snapshot -> snapshot.date));
+        return daily;
+    }
+
+    private static LocalDate lastFilledDay(LocalDate lastStored, LocalDate endDate, LocalDate filledThrough) {
+        if (filledThrough == null || !filledThrough.isAfter(lastStored)) {
+            return lastStored;
+        }
+        return filledThrough.isBefore(endDate) ? filledThrough : endDate;
+    }
+
+    private static BalanceSnapshot carriedTo(BalanceSnapshot source, LocalDate date) {
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.customerId = source.customerId;
+        snapshot.productId = source.productId;
+        snapshot.accountType = source.accountType;
+        snapshot.productType = source.productType;
+        snapshot.customerType = source.customerType;
+        snapshot.date = date;
+        snapshot.balanceEOD = source.balanceEOD;
+        snapshot.amountUsedEOD = source.amountUsedEOD;
+        return snapshot;
+    }
+}
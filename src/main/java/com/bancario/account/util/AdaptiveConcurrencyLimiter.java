@@ -0,0 +1,118 @@
+package com.bancario.account.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limitador de concurrencia adaptativo basado en latencia (estilo gradiente / TCP Vegas).
+ * <p>
+ * Compara la latencia reciente (media exponencial corta) con la latencia de referencia (media larga):
+ * mientras coinciden, el límite crece en una cola de √límite; cuando la latencia reciente se aleja de
+ * la referencia (se forma cola en MongoDB o en el event loop), el límite baja en proporción.
+ * Las peticiones fallidas por sobrecarga (timeout, 503) reducen el límite multiplicativamente.
+ * <p>
+ * {@link #tryAcquire()} no bloquea: por encima del límite devuelve false y la petición se rechaza de inmediato.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    /**
+     * @param initialLimit Límite inicial de peticiones concurrentes.
+     * @param minLimit Límite mínimo (nunca se rechaza por debajo de esta concurrencia).
+     * @param maxLimit Límite máximo.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Reserva un hueco de concurrencia si hay capacidad bajo el límite actual.
+     * @return true si la petición puede continuar; en ese caso debe llamarse a {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) estimatedLimit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco reservado y ajusta el límite con la latencia observada.
+     * @param rttNanos Duración de la petición.
+     * @param dropped true si la petición falló por sobrecarga (timeout, 503...).
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtCompletion, dropped);
+    }
+
+    /**
+     * Libera el hueco reservado sin ajustar el límite (petición cancelada: su duración no es una muestra válida).
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtCompletion, boolean dropped) {
+        double limit = estimatedLimit;
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+        longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+
+        // Si la latencia bajó de forma sostenida, la referencia converge más rápido hacia ella.
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // Con poca concurrencia la latencia no dice nada sobre el límite: no se hace crecer.
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / shortRttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Fracción del límite actualmente ocupada (1.0 = saturado).
+     */
+    public double utilization() {
+        return inFlight.get() / estimatedLimit;
+    }
+}
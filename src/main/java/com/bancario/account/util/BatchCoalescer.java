@@ -0,0 +1,148 @@
+package com.bancario.account.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Agrupador de consultas estilo DataLoader: las claves solicitadas dentro de una ventana corta
+ * (o hasta completar el tamaño máximo de lote) se resuelven con una única llamada al cargador por lotes,
+ * y cada Uni solicitante se completa con su valor de la respuesta compartida.
+ * <p>
+ * Si se configura un cargador directo, una consulta que llega sin ninguna otra en curso (sistema ocioso)
+ * se envía directamente, sin esperar la ventana.
+ * Las claves ausentes en la respuesta se emiten como null; si el lote falla, fallan todos sus solicitantes.
+ *
+ * @param <K> Tipo de la clave de búsqueda.
+ * @param <V> Tipo del valor resuelto.
+ */
+public class BatchCoalescer<K, V> {
+
+    private final Function<List<K>, Uni<Map<K, V>>> batchLoader;
+    private final Function<K, Uni<V>> directLoader;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final DistributionSummary batchSizes;
+    private final Counter directLoads;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object lock = new Object();
+    // Cada solicitante tiene su propio future, así la cancelación de uno no afecta a los demás.
+    private Map<K, List<CompletableFuture<V>>> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * @param name Nombre del agrupador, usado como tag de las métricas.
+     * @param batchLoader Resuelve un lote de claves en una sola operación.
+     * @param directLoader Resuelve una clave individual cuando no hay otras consultas en curso; null para agrupar siempre.
+     * @param windowMicros Ventana de acumulación en microsegundos.
+     * @param maxBatchSize Tamaño de lote que fuerza el envío inmediato.
+     * @param registry Registro de métricas.
+     */
+    public BatchCoalescer(String name,
+                          Function<List<K>, Uni<Map<K, V>>> batchLoader,
+                          Function<K, Uni<V>> directLoader,
+                          long windowMicros,
+                          int maxBatchSize,
+                          MeterRegistry registry) {
+        this.batchLoader = batchLoader;
+        this.directLoader = directLoader;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Infrastructure.getDefaultWorkerPool();
+        this.batchSizes = DistributionSummary.builder("coalescer.batch.size")
+                .description("Claves resueltas por cada lote enviado")
+                .tag("name", name)
+                .register(registry);
+        this.directLoads = Counter.builder("coalescer.direct.loads")
+                .description("Consultas enviadas directamente por no haber otras en curso")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Encola la clave en el lote en curso (o la envía directamente si el sistema está ocioso)
+     * y emite su valor cuando se resuelve.
+     */
+    public Uni<V> load(K key) {
+        return Uni.createFrom().deferred(() -> {
+            if (directLoader != null && inFlight.compareAndSet(0, 1)) {
+                directLoads.increment();
+                return directLoader.apply(key)
+                        .onTermination().invoke(inFlight::decrementAndGet);
+            }
+            inFlight.incrementAndGet();
+            return Uni.createFrom().completionStage(enqueue(key))
+                    .onTermination().invoke(inFlight::decrementAndGet);
+        });
+    }
+
+    private CompletableFuture<V> enqueue(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        Map<K, List<CompletableFuture<V>>> fullBatch = null;
+
+        synchronized (lock) {
+            pending.computeIfAbsent(key, k -> new ArrayList<>()).add(future);
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<K, List<CompletableFuture<V>>> batch;
+        synchronized (lock) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    // Debe invocarse con el lock tomado.
+    private Map<K, List<CompletableFuture<V>>> drain() {
+        Map<K, List<CompletableFuture<V>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(Map<K, List<CompletableFuture<V>>> batch) {
+        List<K> keys = new ArrayList<>(batch.keySet());
+        batchSizes.record(keys.size());
+        Uni.createFrom().deferred(() -> batchLoader.apply(keys))
+                .subscribe().with(
+                        results -> batch.forEach((key, futures) -> {
+                            V value = results.get(key);
+                            futures.forEach(future -> future.complete(value));
+                        }),
+                        failure -> batch.values().forEach(futures ->
+                                futures.forEach(future -> future.completeExceptionally(failure)))
+                );
+    }
+}
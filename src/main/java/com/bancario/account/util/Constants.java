@@ -3,6 +3,7 @@ package com.bancario.account.util;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
+import java.time.Duration;
 
 /**
  * Contiene todas las constantes de negocio para inicialización de cuentas y tarificación.
@@ -47,4 +48,26 @@ public final class Constants {
 
     //updte contador 0
     public static final int UPDATE_COUNTER = 0;
+
+    // --- CONTROL DE CONCURRENCIA ---
+
+    // Versión asignada a una cuenta nueva.
+    public static final long INITIAL_VERSION = 1L;
+
+    // Reintentos de una escritura condicionada por versión ante modificaciones concurrentes.
+    public static final int VERSION_CONFLICT_RETRIES = 3;
+
+    // --- LIBRO DE MOVIMIENTOS ---
+
+    // Antigüedad a partir de la cual el job de proyección resuelve un asiento preparado que sigue sin confirmar ni anular.
+    public static final Duration LEDGER_PREPARED_GRACE = Duration.ofMinutes(1);
+
+    // Últimas sequences de asientos aplicadas que conserva cada documento de saldo (Account o slot): el job de
+    // proyección confirma un asiento preparado solo si su sequence figura en ellas.
+    public static final int LEDGER_APPLIED_WINDOW = 256;
+
+    // --- SNAPSHOTS EOD ---
+
+    // Punto de control del Job EOD: último día completo y marca de agua de los cambios de saldo ya fotografiados.
+    public static final String EOD_SNAPSHOT_CHECKPOINT = "eod-snapshot";
 }
\ No newline at end of file
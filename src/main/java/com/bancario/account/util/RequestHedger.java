@@ -0,0 +1,142 @@
+package com.bancario.account.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta llamadas remotas con cobertura (hedging): si la primera llamada no ha respondido tras un retardo
+ * igual a un percentil de la latencia observada, se lanza una segunda llamada idéntica y gana la primera
+ * respuesta; la otra se cancela.
+ * <p>
+ * La carga extra está acotada por un presupuesto: cada llamada suma {@code maxHedgeRatio} créditos
+ * (hasta un máximo) y cada cobertura consume uno, de modo que las coberturas no superan esa fracción
+ * del tráfico ni siquiera cuando el servicio remoto está lento para todos.
+ * Solo debe usarse con llamadas idempotentes (lecturas).
+ */
+public class RequestHedger {
+
+    private static final long CREDIT = 1_000;
+    private static final long MAX_CREDITS = 10 * CREDIT;
+    private static final int RECOMPUTE_EVERY = 100;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long creditPerCall;
+    private final long[] latencies;
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong credits = new AtomicLong();
+
+    private volatile long hedgeDelayNanos;
+
+    private final Counter calls;
+    private final Counter hedgesFired;
+    private final Counter hedgeWins;
+
+    /**
+     * @param name Nombre del destino, usado como tag de las métricas.
+     * @param percentile Percentil de latencia (0-1) usado como retardo antes de cubrir.
+     * @param initialDelay Retardo usado hasta reunir suficientes muestras.
+     * @param minDelay Retardo mínimo.
+     * @param maxHedgeRatio Fracción máxima de llamadas que pueden generar una cobertura.
+     * @param windowSize Número de latencias recientes que se conservan.
+     * @param registry Registro de métricas.
+     */
+    public RequestHedger(String name, double percentile, Duration initialDelay, Duration minDelay,
+                         double maxHedgeRatio, int windowSize, MeterRegistry registry) {
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.creditPerCall = (long) (maxHedgeRatio * CREDIT);
+        this.latencies = new long[windowSize];
+        this.hedgeDelayNanos = Math.max(minDelayNanos, initialDelay.toNanos());
+
+        this.calls = Counter.builder("hedge.calls")
+                .description("Llamadas ejecutadas a través del hedger")
+                .tag("name", name)
+                .register(registry);
+        this.hedgesFired = Counter.builder("hedge.fired")
+                .description("Llamadas de cobertura lanzadas")
+                .tag("name", name)
+                .register(registry);
+        this.hedgeWins = Counter.builder("hedge.wins")
+                .description("Coberturas que respondieron antes que la llamada original")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("hedge.delay.ms", this, hedger -> hedger.hedgeDelayNanos / 1_000_000.0)
+                .description("Retardo actual antes de lanzar una cobertura")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Ejecuta la llamada con cobertura.
+     * @param call Crea una nueva llamada en cada invocación (se invoca una o dos veces).
+     * @return Uni con la primera respuesta recibida.
+     */
+    public <T> Uni<T> execute(Supplier<Uni<T>> call) {
+        calls.increment();
+        addCredit();
+
+        Uni<T> primary = timed(call);
+        Uni<T> hedge = Uni.createFrom().voidItem()
+                .onItem().delayIt().by(Duration.ofNanos(hedgeDelayNanos))
+                .onItem().transformToUni(ignored -> {
+                    if (!tryConsumeCredit()) {
+                        // Sin presupuesto: no se cubre y se espera a la llamada original.
+                        return Uni.createFrom().<T>nothing();
+                    }
+                    hedgesFired.increment();
+                    return timed(call)
+                            .onItem().invoke(() -> hedgeWins.increment())
+                            // Si la cobertura falla, decide la llamada original.
+                            .onFailure().recoverWithUni(Uni.createFrom().nothing());
+                });
+
+        // La primera señal gana y la otra suscripción se cancela (la petición HTTP pendiente se aborta).
+        return Uni.combine().any().of(primary, hedge);
+    }
+
+    private <T> Uni<T> timed(Supplier<Uni<T>> call) {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return call.get().onItem().invoke(() -> record(System.nanoTime() - start));
+        });
+    }
+
+    private void record(long latencyNanos) {
+        long sample = samples.getAndIncrement();
+        latencies[(int) (sample % latencies.length)] = latencyNanos;
+        if (sample > 0 && sample % RECOMPUTE_EVERY == 0) {
+            recomputeDelay(Math.min(sample + 1, latencies.length));
+        }
+    }
+
+    private void recomputeDelay(long filled) {
+        long[] window = Arrays.copyOf(latencies, (int) filled);
+        Arrays.sort(window);
+        long value = window[(int) Math.min(filled - 1, (long) Math.ceil(percentile * filled) - 1)];
+        hedgeDelayNanos = Math.max(minDelayNanos, value);
+    }
+
+    private void addCredit() {
+        credits.getAndUpdate(current -> Math.min(MAX_CREDITS, current + creditPerCall));
+    }
+
+    private boolean tryConsumeCredit() {
+        while (true) {
+            long current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - CREDIT)) {
+                return true;
+            }
+        }
+    }
+}
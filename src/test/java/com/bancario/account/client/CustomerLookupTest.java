@@ -0,0 +1,167 @@
+package com.bancario.account.client;
+
+import com.bancario.account.dto.CustomerResponse;
+import com.bancario.account.enums.CustomerType;
+import com.bancario.account.exception.CustomerNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerLookupTest {
+
+    private StubCustomerService customerService;
+    private CustomerLookup lookup;
+
+    @BeforeEach
+    void setUp() {
+        customerService = new StubCustomerService(Map.of(
+                "c1", customer("c1", CustomerType.PERSONAL),
+                "c2", customer("c2", CustomerType.VIP),
+                "c3", customer("c3", CustomerType.PYME)));
+        lookup = new CustomerLookup();
+        lookup.customerServiceRestClient = customerService;
+        lookup.meterRegistry = new SimpleMeterRegistry();
+        lookup.batchingEnabled = true;
+        lookup.windowMicros = TimeUnit.MILLISECONDS.toMicros(50);
+        lookup.maxBatchSize = 50;
+        lookup.hedgingEnabled = false;
+        lookup.hedgePercentile = 0.95;
+        lookup.hedgeInitialDelayMillis = 200;
+        lookup.hedgeMinDelayMillis = 20;
+        lookup.hedgeMaxRatio = 0.1;
+        lookup.hedgeWindowSize = 100;
+        lookup.init();
+    }
+
+    @Test
+    void lasConsultasConcurrentesSeCombinanEnUnaLlamadaAlBatch() throws Exception {
+        CompletableFuture<CustomerResponse> first = get("c1");
+        CompletableFuture<CustomerResponse> second = get("c2");
+        CompletableFuture<CustomerResponse> third = get("c3");
+
+        assertEquals(CustomerType.PERSONAL, await(first).type());
+        assertEquals(CustomerType.VIP, await(second).type());
+        assertEquals(CustomerType.PYME, await(third).type());
+        assertEquals(List.of(List.of("c1", "c2", "c3")), customerService.batchCalls);
+        assertTrue(customerService.singleCalls.isEmpty());
+    }
+
+    @Test
+    void alCompletarElTamanoMaximoSeEnvianVariosLotes() throws Exception {
+        lookup.maxBatchSize = 2;
+        lookup.init();
+
+        CompletableFuture<CustomerResponse> first = get("c1");
+        CompletableFuture<CustomerResponse> second = get("c2");
+        CompletableFuture<CustomerResponse> third = get("c3");
+
+        assertEquals("c1", await(first).id());
+        assertEquals("c2", await(second).id());
+        assertEquals("c3", await(third).id());
+        assertEquals(List.of(List.of("c1", "c2"), List.of("c3")), customerService.batchCalls);
+    }
+
+    @Test
+    void unClienteQueElBatchOmiteFallaConCustomerNotFound() throws Exception {
+        CompletableFuture<CustomerResponse> found = get("c1");
+        CompletableFuture<CustomerResponse> missing = get("missing");
+
+        assertEquals("c1", await(found).id());
+        assertInstanceOf(CustomerNotFoundException.class,
+                assertThrows(ExecutionException.class, () -> await(missing)).getCause());
+    }
+
+    @Test
+    void siElBatchFallaFallanTodasLasConsultasDelLote() {
+        IllegalStateException failure = new IllegalStateException("customer-service no disponible");
+        customerService.batchFailure = failure;
+
+        CompletableFuture<CustomerResponse> first = get("c1");
+        CompletableFuture<CustomerResponse> second = get("c2");
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> await(first)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> await(second)).getCause());
+    }
+
+    @Test
+    void unClienteDuplicadoEnLaRespuestaNoRompeElLote() throws Exception {
+        customerService.duplicateInBatch = customer("c1", CustomerType.VIP);
+
+        assertEquals(CustomerType.PERSONAL, await(get("c1")).type());
+    }
+
+    @Test
+    void sinAgrupamientoSeConsultaCadaClienteIndividualmente() throws Exception {
+        lookup.batchingEnabled = false;
+
+        assertEquals("c2", await(get("c2")).id());
+        assertEquals(List.of("c2"), customerService.singleCalls);
+        assertTrue(customerService.batchCalls.isEmpty());
+    }
+
+    private CompletableFuture<CustomerResponse> get(String customerId) {
+        return lookup.getCustomerById(customerId).subscribeAsCompletionStage();
+    }
+
+    private static CustomerResponse await(CompletableFuture<CustomerResponse> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static CustomerResponse customer(String id, CustomerType type) {
+        return new CustomerResponse(id, type, id + "@bancario.com", null, "Nombre", "Apellido", null, null, null, null);
+    }
+
+    /**
+     * Customer-service simulado: GET /customers/{id} y POST /customers/batch (omite los IDs inexistentes).
+     */
+    private static final class StubCustomerService implements CustomerServiceRestClient {
+
+        private final Map<String, CustomerResponse> customers;
+        final List<List<String>> batchCalls = new CopyOnWriteArrayList<>();
+        final List<String> singleCalls = new CopyOnWriteArrayList<>();
+        RuntimeException batchFailure;
+        CustomerResponse duplicateInBatch;
+
+        StubCustomerService(Map<String, CustomerResponse> customers) {
+            this.customers = customers;
+        }
+
+        @Override
+        public Uni<CustomerResponse> getCustomerById(String customerId) {
+            singleCalls.add(customerId);
+            return Uni.createFrom().item(customers.get(customerId));
+        }
+
+        @Override
+        public Uni<List<CustomerResponse>> getCustomersByIds(List<String> customerIds) {
+            batchCalls.add(List.copyOf(customerIds));
+            if (batchFailure != null) {
+                return Uni.createFrom().failure(batchFailure);
+            }
+            List<CustomerResponse> found = new ArrayList<>();
+            customerIds.stream()
+                    .filter(customers::containsKey)
+                    .map(customers::get)
+                    .forEach(found::add);
+            if (duplicateInBatch != null) {
+                found.add(duplicateInBatch);
+            }
+            return Uni.createFrom().item(found);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.bancario.account.repository;
+
+import com.bancario.account.enums.AccountType;
+import com.bancario.account.enums.CustomerType;
+import com.bancario.account.repository.entity.AccountCompliance;
+import com.bancario.account.repository.entity.BalanceSnapshot;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.Filters;
+import io.quarkus.mongodb.MongoClientName;
+import io.quarkus.mongodb.reactive.ReactiveMongoClient;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba contra MongoDB (Dev Services: replica set de un nodo) que los snapshots y el cumplimiento de SPD
+ * usan el cliente 'analytics' con su preferencia de lectura, y que las lecturas de la retención (primario)
+ * funcionan sobre ese cliente. En el perfil de test cada cliente usa su propia base de datos.
+ */
+@QuarkusTest
+class AnalyticsClientTest {
+
+    private static final LocalDate SNAPSHOT_DATE = LocalDate.of(2001, 1, 15);
+
+    @Inject
+    BalanceSnapshotRepository snapshotRepository;
+
+    @Inject
+    AccountComplianceRepository complianceRepository;
+
+    @Inject
+    ReactiveMongoClient defaultClient;
+
+    @Inject
+    @MongoClientName("analytics")
+    ReactiveMongoClient analyticsClient;
+
+    @ConfigProperty(name = "quarkus.mongodb.database")
+    String database;
+
+    @ConfigProperty(name = "quarkus.mongodb.analytics.database")
+    String analyticsDatabase;
+
+    @AfterEach
+    void cleanUp() {
+        snapshotRepository.deleteByDate(SNAPSHOT_DATE).await().indefinitely();
+        complianceRepository.deleteAll().await().indefinitely();
+    }
+
+    @Test
+    void elClienteAnalyticsLeeDeSecundariosYElTransaccionalDelPrimario() {
+        assertEquals(ReadPreference.secondaryPreferred(),
+                analyticsClient.unwrap().getDatabase(analyticsDatabase).getReadPreference());
+        assertEquals(ReadPreference.primary(),
+                defaultClient.unwrap().getDatabase(database).getReadPreference());
+    }
+
+    @Test
+    void losSnapshotsSeEscribenConElClienteAnalytics() {
+        BalanceSnapshot snapshot = snapshot();
+        snapshotRepository.persist(snapshot).await().indefinitely();
+
+        assertEquals(1L, countById(analyticsClient, analyticsDatabase, "balance_snapshots", snapshot.id));
+        assertEquals(0L, countById(defaultClient, database, "balance_snapshots", snapshot.id));
+    }
+
+    @Test
+    void lasLecturasDeLaRetencionLeenDelPrimarioDelClienteAnalytics() {
+        snapshotRepository.persist(snapshot()).await().indefinitely();
+
+        // Leer justo después de escribir: la lectura del primario ve el snapshot sin retraso de replicación.
+        assertEquals(SNAPSHOT_DATE, snapshotRepository.findOldestDateBefore(SNAPSHOT_DATE.plusDays(1)).await().indefinitely());
+        assertEquals(1, snapshotRepository.findByProductsAndDateRange(
+                List.of("product-analytics-test"), SNAPSHOT_DATE, SNAPSHOT_DATE).await().indefinitely().size());
+    }
+
+    @Test
+    void elCumplimientoSeLeeYEscribeConElClienteAnalytics() {
+        AccountCompliance compliance = new AccountCompliance();
+        compliance.id = new ObjectId().toHexString();
+        compliance.customerId = "customer-analytics-test";
+        compliance.customerType = CustomerType.VIP;
+        compliance.accountType = AccountType.SAVINGS_ACCOUNT;
+        compliance.period = "2001-01";
+        compliance.averageDailyBalance = BigDecimal.TEN;
+        compliance.computedAt = LocalDateTime.now();
+        complianceRepository.persist(compliance).await().indefinitely();
+
+        assertEquals(1L, countById(analyticsClient, analyticsDatabase, "account_compliance", compliance.id));
+        assertEquals(0L, countById(defaultClient, database, "account_compliance", compliance.id));
+        assertEquals("customer-analytics-test",
+                complianceRepository.findById(compliance.id).await().indefinitely().customerId);
+    }
+
+    private static long countById(ReactiveMongoClient client, String databaseName, String collection, Object id) {
+        return client.getDatabase(databaseName).getCollection(collection)
+                .countDocuments(Filters.eq("_id", id))
+                .await().indefinitely();
+    }
+
+    private static BalanceSnapshot snapshot() {
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.id = new ObjectId();
+        snapshot.customerId = "customer-analytics-test";
+        snapshot.productId = "product-analytics-test";
+        snapshot.accountType = AccountType.SAVINGS_ACCOUNT;
+        snapshot.productType = "PASSIVE";
+        snapshot.customerType = CustomerType.VIP;
+        snapshot.date = SNAPSHOT_DATE;
+        snapshot.balanceEOD = new BigDecimal("150.00");
+        snapshot.amountUsedEOD = BigDecimal.ZERO;
+        snapshot.takenAt = SNAPSHOT_DATE.atTime(23, 59);
+        return snapshot;
+    }
+}
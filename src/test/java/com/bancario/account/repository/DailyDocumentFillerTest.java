@@ -0,0 +1,74 @@
+package com.bancario.account.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailyDocumentFillerTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void losDiasSinSnapshotRepitenElUltimoValorDelProducto() {
+        List<Document> rows = fill(new DailyDocumentFiller(DAY_1, DAY_1.plusDays(4)),
+                row("p1", DAY_1, "100"),
+                row("p2", DAY_1, "7"),
+                row("p1", DAY_1.plusDays(3), "40"));
+
+        assertEquals(List.of(
+                "2025-03-01 p1 100", "2025-03-01 p2 7",
+                "2025-03-02 p1 100", "2025-03-02 p2 7",
+                "2025-03-03 p1 100", "2025-03-03 p2 7",
+                "2025-03-04 p1 40", "2025-03-04 p2 7",
+                "2025-03-05 p1 40", "2025-03-05 p2 7"), describe(rows));
+    }
+
+    @Test
+    void losDiasAnterioresAlRangoSoloAportanElValorVigente() {
+        List<Document> rows = fill(new DailyDocumentFiller(DAY_1.plusDays(5), DAY_1.plusDays(6)),
+                row("p1", DAY_1, "100"));
+
+        assertEquals(List.of("2025-03-06 p1 100", "2025-03-07 p1 100"), describe(rows));
+    }
+
+    @Test
+    void noSeRellenaDespuesDelUltimoDiaCerrado() {
+        List<Document> rows = fill(new DailyDocumentFiller(DAY_1, DAY_1.plusDays(1)),
+                row("p1", DAY_1, "100"));
+
+        assertEquals(List.of("2025-03-01 p1 100", "2025-03-02 p1 100"), describe(rows));
+    }
+
+    @Test
+    void elSnapshotRepetidoDeLaMismaFechaSustituyeAlAnterior() {
+        List<Document> rows = fill(new DailyDocumentFiller(DAY_1, DAY_1),
+                row("p1", DAY_1, "100"),
+                row("p1", DAY_1, "90"));
+
+        assertEquals(List.of("2025-03-01 p1 90"), describe(rows));
+    }
+
+    private static List<Document> fill(DailyDocumentFiller filler, Document... rows) {
+        List<Document> out = new ArrayList<>();
+        for (Document row : rows) {
+            out.addAll(filler.accept(row));
+        }
+        out.addAll(filler.finish());
+        return out;
+    }
+
+    private static Document row(String productId, LocalDate date, String balance) {
+        return new Document("date", date).append("productId", productId).append("balanceEOD", balance);
+    }
+
+    private static List<String> describe(List<Document> rows) {
+        return rows.stream()
+                .map(row -> row.get("date") + " " + row.getString("productId") + " " + row.get("balanceEOD"))
+                .toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitersTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimiters limiters;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiters = new ConcurrencyLimiters();
+        limiters.meterRegistry = meterRegistry;
+        limiters.enabled = true;
+        limiters.initialLimit = 10;
+        limiters.minLimit = 1;
+        limiters.maxLimit = 100;
+        limiters.priorityThreshold = 0.9;
+        limiters.init();
+    }
+
+    @Test
+    void conElGrupoTransaccionalSaturadoSeDescartanLosDemasGrupos() {
+        admitTransactional(9);
+
+        assertNotNull(limiters.admit(EndpointGroup.ANALYTIC));
+        assertNotNull(limiters.admit(EndpointGroup.ACQUISITION));
+        // El tráfico transaccional conserva la capacidad restante.
+        assertNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+        assertNotNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+    }
+
+    @Test
+    void alLiberarseElGrupoTransaccionalLosDemasGruposVuelvenAAdmitirse() {
+        admitTransactional(9);
+        limiters.limiter(EndpointGroup.TRANSACTIONAL).cancel();
+
+        assertNull(limiters.admit(EndpointGroup.ANALYTIC));
+    }
+
+    @Test
+    void cadaGrupoTieneSuPropioLimite() {
+        for (int i = 0; i < 10; i++) {
+            assertNull(limiters.admit(EndpointGroup.ANALYTIC));
+        }
+
+        assertNotNull(limiters.admit(EndpointGroup.ANALYTIC));
+        assertNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+    }
+
+    @Test
+    void losRechazosSeContabilizanPorGrupo() {
+        admitTransactional(10);
+        limiters.admit(EndpointGroup.TRANSACTIONAL);
+        limiters.admit(EndpointGroup.ANALYTIC);
+
+        assertEquals(1.0, meterRegistry.get("concurrency.rejected").tag("group", "TRANSACTIONAL").counter().count());
+        assertEquals(1.0, meterRegistry.get("concurrency.rejected").tag("group", "ANALYTIC").counter().count());
+    }
+
+    @Test
+    void soloLosTimeoutsYRechazosCuentanComoSobrecarga() {
+        assertTrue(ConcurrencyLimitFilter.isOverload(503));
+        assertTrue(ConcurrencyLimitFilter.isOverload(504));
+        assertFalse(ConcurrencyLimitFilter.isOverload(500));
+        assertFalse(ConcurrencyLimitFilter.isOverload(400));
+        assertFalse(ConcurrencyLimitFilter.isOverload(200));
+    }
+
+    private void admitTransactional(int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+        }
+    }
+}
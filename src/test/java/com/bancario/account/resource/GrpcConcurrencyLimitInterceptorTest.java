@@ -0,0 +1,155 @@
+package com.bancario.account.resource;
+
+import com.bancario.account.enums.EndpointGroup;
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GrpcConcurrencyLimitInterceptorTest {
+
+    private static final MethodDescriptor.Marshaller<String> MARSHALLER = new MethodDescriptor.Marshaller<>() {
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes());
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            return "";
+        }
+    };
+
+    private static final MethodDescriptor<String, String> METHOD = MethodDescriptor.<String, String>newBuilder()
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("bancario.account.v1.AccountTransactions/GetTransactionStatus")
+            .setRequestMarshaller(MARSHALLER)
+            .setResponseMarshaller(MARSHALLER)
+            .build();
+
+    private ConcurrencyLimiters limiters;
+    private GrpcConcurrencyLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        limiters = new ConcurrencyLimiters();
+        limiters.meterRegistry = new SimpleMeterRegistry();
+        limiters.enabled = true;
+        limiters.initialLimit = 2;
+        limiters.minLimit = 1;
+        limiters.maxLimit = 10;
+        limiters.priorityThreshold = 0.9;
+        limiters.init();
+        interceptor = new GrpcConcurrencyLimitInterceptor();
+        interceptor.limiters = limiters;
+    }
+
+    @Test
+    void porEncimaDelLimiteLaLlamadaSeCierraConUnavailableSinLlegarAlServicio() {
+        limiters.admit(EndpointGroup.TRANSACTIONAL);
+        limiters.admit(EndpointGroup.TRANSACTIONAL);
+        RecordingCall call = new RecordingCall();
+        AtomicInteger started = new AtomicInteger();
+
+        interceptor.interceptCall(call, new Metadata(), (serverCall, headers) -> {
+            started.incrementAndGet();
+            return new ServerCall.Listener<>() {
+            };
+        });
+
+        assertEquals(Status.Code.UNAVAILABLE, call.closedWith.getCode());
+        assertEquals(0, started.get());
+    }
+
+    @Test
+    void elHuecoSeLiberaAlCerrarLaLlamada() {
+        RecordingCall call = new RecordingCall();
+
+        interceptor.interceptCall(call, new Metadata(), (serverCall, headers) -> {
+            assertEquals(1, limiters.limiter(EndpointGroup.TRANSACTIONAL).getInFlight());
+            serverCall.close(Status.OK, new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        });
+
+        assertEquals(Status.Code.OK, call.closedWith.getCode());
+        assertEquals(0, limiters.limiter(EndpointGroup.TRANSACTIONAL).getInFlight());
+    }
+
+    @Test
+    void laCancelacionDelClienteLiberaElHuecoUnaSolaVez() {
+        RecordingCall call = new RecordingCall();
+
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, new Metadata(), (serverCall, headers) ->
+                new ServerCall.Listener<>() {
+                });
+        listener.onCancel();
+        listener.onCancel();
+
+        assertEquals(0, limiters.limiter(EndpointGroup.TRANSACTIONAL).getInFlight());
+        assertNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+        assertNull(limiters.admit(EndpointGroup.TRANSACTIONAL));
+    }
+
+    @Test
+    void soloUnavailableYDeadlineExceededCuentanComoSobrecarga() {
+        assertTrue(GrpcConcurrencyLimitInterceptor.isOverload(Status.Code.UNAVAILABLE));
+        assertTrue(GrpcConcurrencyLimitInterceptor.isOverload(Status.Code.DEADLINE_EXCEEDED));
+        assertFalse(GrpcConcurrencyLimitInterceptor.isOverload(Status.Code.INVALID_ARGUMENT));
+        assertFalse(GrpcConcurrencyLimitInterceptor.isOverload(Status.Code.NOT_FOUND));
+        assertFalse(GrpcConcurrencyLimitInterceptor.isOverload(Status.Code.OK));
+    }
+
+    /**
+     * ServerCall mínima que registra el estado con el que se cierra.
+     */
+    private static final class RecordingCall extends ServerCall<String, String> {
+
+        Status closedWith;
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            closedWith = status;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return Attributes.EMPTY;
+        }
+
+        @Override
+        public MethodDescriptor<String, String> getMethodDescriptor() {
+            return METHOD;
+        }
+    }
+}
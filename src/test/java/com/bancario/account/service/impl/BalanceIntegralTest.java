@@ -0,0 +1,97 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.repository.entity.Account;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BalanceIntegralTest {
+
+    private static final LocalDateTime MONTH_START = LocalDateTime.of(2025, 3, 1, 0, 0);
+    private static final long DAY = 86_400;
+
+    @Test
+    void unaCuentaNuevaEmpiezaConIntegralCeroDesdeSuApertura() {
+        Account account = account("100", MONTH_START.minusMonths(2));
+        LocalDateTime openedAt = MONTH_START.plusDays(4);
+
+        BalanceIntegral.start(account, openedAt);
+
+        assertEquals(BigDecimal.ZERO, account.balanceIntegralMonth);
+        assertEquals("2025-03", account.integralPeriod);
+        assertEquals(openedAt, account.lastBalanceChangeAt);
+    }
+
+    @Test
+    void accrueAcumulaElSaldoVigenteHastaElCambio() {
+        Account account = account("100", MONTH_START.minusMonths(2));
+        BalanceIntegral.start(account, MONTH_START);
+
+        LocalDateTime change = MONTH_START.plusDays(2);
+        BalanceIntegral.accrue(account, change);
+
+        assertEquals(new BigDecimal(100 * 2 * DAY), account.balanceIntegralMonth);
+        assertEquals(change, account.lastBalanceChangeAt);
+        assertEquals("2025-03", account.integralPeriod);
+    }
+
+    @Test
+    void elPromedioPonderaCadaSaldoPorElTiempoQueEstuvoVigente() {
+        Account account = account("100", MONTH_START.minusMonths(2));
+        BalanceIntegral.start(account, MONTH_START);
+        BalanceIntegral.accrue(account, MONTH_START.plusDays(1));
+        account.balance = new BigDecimal("300");
+
+        // 1 día a 100 y 1 día a 300.
+        assertEquals(new BigDecimal("200.00"), BalanceIntegral.monthToDateAverage(account, MONTH_START.plusDays(2)));
+    }
+
+    @Test
+    void unaIntegralDelMesAnteriorCuentaComoCeroYElSaldoDesdeElInicioDelMes() {
+        Account account = account("100", MONTH_START.minusMonths(2));
+        account.balanceIntegralMonth = new BigDecimal("999999999");
+        account.integralPeriod = "2025-02";
+        account.lastBalanceChangeAt = MONTH_START.minusDays(10);
+
+        LocalDateTime now = MONTH_START.plusDays(10);
+        assertEquals(new BigDecimal("100.00"), BalanceIntegral.monthToDateAverage(account, now));
+
+        BalanceIntegral.accrue(account, now);
+        assertEquals(new BigDecimal(100 * 10 * DAY), account.balanceIntegralMonth);
+        assertEquals("2025-03", account.integralPeriod);
+    }
+
+    @Test
+    void unaCuentaAbiertaAMitadDeMesPromediaDesdeSuApertura() {
+        LocalDateTime openedAt = MONTH_START.plusDays(15);
+        Account account = account("100", openedAt);
+        BalanceIntegral.start(account, openedAt);
+
+        assertEquals(new BigDecimal("100.00"), BalanceIntegral.monthToDateAverage(account, openedAt.plusDays(5)));
+    }
+
+    @Test
+    void unaCuentaAbiertaEsteMesSinIntegralPromediaDesdeSuApertura() {
+        LocalDateTime openedAt = MONTH_START.plusDays(15);
+        Account account = account("100", openedAt);
+
+        assertEquals(new BigDecimal("100.00"), BalanceIntegral.monthToDateAverage(account, openedAt.plusDays(5)));
+    }
+
+    @Test
+    void enElInstanteDeAperturaElPromedioEsElSaldo() {
+        Account account = account("100", MONTH_START);
+
+        assertEquals(new BigDecimal("100"), BalanceIntegral.monthToDateAverage(account, MONTH_START));
+    }
+
+    private static Account account(String balance, LocalDateTime openingDate) {
+        Account account = new Account();
+        account.balance = new BigDecimal(balance);
+        account.openingDate = openingDate;
+        return account;
+    }
+}
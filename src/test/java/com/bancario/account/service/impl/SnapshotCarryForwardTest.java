@@ -0,0 +1,105 @@
+package com.bancario.account.service.impl;
+
+import com.bancario.account.repository.entity.BalanceSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SnapshotCarryForwardTest {
+
+    private static final LocalDate DAY_1 = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void cadaSnapshotValeHastaElSiguienteDelProducto() {
+        BalanceSnapshot first = snapshot("p1", DAY_1, "100", null);
+        BalanceSnapshot second = snapshot("p1", DAY_1.plusDays(3), "40", null);
+
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(second, first),
+                DAY_1, DAY_1.plusDays(4), DAY_1.plusDays(4));
+
+        assertEquals(dates(DAY_1, 5), daily.stream().map(snapshot -> snapshot.date).toList());
+        assertEquals(List.of("100", "100", "100", "40", "40"), balances(daily));
+        assertSame(first, daily.get(0));
+        assertSame(second, daily.get(3));
+    }
+
+    @Test
+    void sinPuntoDeControlSoloSeDevuelvenLosSnapshotsAlmacenados() {
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(
+                        snapshot("p1", DAY_1, "100", null),
+                        snapshot("p1", DAY_1.plusDays(2), "80", null)),
+                DAY_1, DAY_1.plusDays(9), null);
+
+        assertEquals(List.of(DAY_1, DAY_1.plusDays(1), DAY_1.plusDays(2)),
+                daily.stream().map(snapshot -> snapshot.date).toList());
+    }
+
+    @Test
+    void losDiasPosterioresAlPuntoDeControlNoSeRellenan() {
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(snapshot("p1", DAY_1, "100", null)),
+                DAY_1, DAY_1.plusDays(9), DAY_1.plusDays(2));
+
+        assertEquals(dates(DAY_1, 3), daily.stream().map(snapshot -> snapshot.date).toList());
+    }
+
+    @Test
+    void elRangoSeRecortaAlInicioYAlFinal() {
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(snapshot("p1", DAY_1, "100", null)),
+                DAY_1.plusDays(5), DAY_1.plusDays(6), DAY_1.plusDays(20));
+
+        assertEquals(dates(DAY_1.plusDays(5), 2), daily.stream().map(snapshot -> snapshot.date).toList());
+        assertEquals(List.of("100", "100"), balances(daily));
+    }
+
+    @Test
+    void conDosSnapshotsDeLaMismaFechaGanaElMasReciente() {
+        BalanceSnapshot rerun = snapshot("p1", DAY_1, "90", DAY_1.atTime(23, 59, 30));
+        BalanceSnapshot original = snapshot("p1", DAY_1, "100", DAY_1.atTime(23, 59));
+
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(rerun, original),
+                DAY_1, DAY_1.plusDays(1), DAY_1.plusDays(1));
+
+        assertEquals(dates(DAY_1, 2), daily.stream().map(snapshot -> snapshot.date).toList());
+        assertEquals(List.of("90", "90"), balances(daily));
+    }
+
+    @Test
+    void cadaProductoSeRellenaPorSeparado() {
+        List<BalanceSnapshot> daily = SnapshotCarryForward.fill(List.of(
+                        snapshot("p1", DAY_1, "100", null),
+                        snapshot("p2", DAY_1.plusDays(1), "7", null)),
+                DAY_1, DAY_1.plusDays(2), DAY_1.plusDays(2));
+
+        assertEquals(List.of("100", "100", "100"), balances(daily.stream()
+                .filter(snapshot -> snapshot.productId.equals("p1")).toList()));
+        assertEquals(dates(DAY_1.plusDays(1), 2), daily.stream()
+                .filter(snapshot -> snapshot.productId.equals("p2")).map(snapshot -> snapshot.date).toList());
+        assertEquals(List.of(DAY_1, DAY_1.plusDays(1), DAY_1.plusDays(1), DAY_1.plusDays(2), DAY_1.plusDays(2)),
+                daily.stream().map(snapshot -> snapshot.date).toList());
+    }
+
+    private static List<LocalDate> dates(LocalDate from, int days) {
+        return from.datesUntil(from.plusDays(days)).toList();
+    }
+
+    private static List<String> balances(List<BalanceSnapshot> snapshots) {
+        return snapshots.stream().map(snapshot -> snapshot.balanceEOD.toPlainString()).toList();
+    }
+
+    private static BalanceSnapshot snapshot(String productId, LocalDate date, String balance, LocalDateTime takenAt) {
+        BalanceSnapshot snapshot = new BalanceSnapshot();
+        snapshot.customerId = "c1";
+        snapshot.productId = productId;
+        snapshot.date = date;
+        snapshot.balanceEOD = new BigDecimal(balance);
+        snapshot.amountUsedEOD = BigDecimal.ZERO;
+        snapshot.takenAt = takenAt;
+        return snapshot;
+    }
+}
@@ -0,0 +1,112 @@
+package com.bancario.account.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void rechazaPorEncimaDelLimite() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(3, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(1.0, limiter.utilization());
+
+        limiter.cancel();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void cancelarLiberaSinAjustarElLimite() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+        limiter.tryAcquire();
+
+        limiter.cancel();
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void laSobrecargaReduceElLimiteHastaElMinimo() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 5, 100);
+
+        limiter.tryAcquire();
+        limiter.release(BASE_RTT, true);
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.release(BASE_RTT, true);
+        }
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void conLatenciaEstableYConcurrenciaAltaElLimiteCrece() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+        holdSlots(limiter, 9);
+
+        cycle(limiter, BASE_RTT, 50);
+
+        assertTrue(limiter.getLimit() > 10, "límite: " + limiter.getLimit());
+    }
+
+    @Test
+    void conPocaConcurrenciaElLimiteNoCrece() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+        // Una sola petición en curso: por debajo de la mitad del límite.
+        cycle(limiter, BASE_RTT, 50);
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void unaSubidaDeLatenciaReduceElLimite() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100);
+        holdSlots(limiter, 10);
+        cycle(limiter, BASE_RTT, 1);
+        int before = limiter.getLimit();
+
+        // La latencia reciente se aleja de la referencia: el gradiente baja de 1 y el límite se reduce.
+        cycle(limiter, BASE_RTT * 10, 10);
+
+        assertTrue(limiter.getLimit() < before, "límite: " + limiter.getLimit() + ", antes: " + before);
+    }
+
+    @Test
+    void elLimiteNoSuperaElMaximo() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 12);
+        holdSlots(limiter, 9);
+
+        cycle(limiter, BASE_RTT, 200);
+
+        assertEquals(12, limiter.getLimit());
+    }
+
+    private static void holdSlots(AdaptiveConcurrencyLimiter limiter, int slots) {
+        for (int i = 0; i < slots; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    private static void cycle(AdaptiveConcurrencyLimiter limiter, long rttNanos, int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(rttNanos, false);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.bancario.account.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchCoalescerTest {
+
+    private static final long ONE_HOUR_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void lasClavesDeLaVentanaSeResuelvenEnUnSoloLote() throws Exception {
+        BatchCoalescer<String, String> coalescer = coalescer(this::upperCase, TimeUnit.MILLISECONDS.toMicros(50), 100);
+
+        CompletableFuture<String> a = load(coalescer, "a");
+        CompletableFuture<String> b = load(coalescer, "b");
+        CompletableFuture<String> c = load(coalescer, "c");
+
+        assertEquals("A", await(a));
+        assertEquals("B", await(b));
+        assertEquals("C", await(c));
+        assertEquals(List.of(List.of("a", "b", "c")), batches);
+    }
+
+    @Test
+    void alCompletarElTamanoMaximoElLoteSeEnviaSinEsperarLaVentana() throws Exception {
+        BatchCoalescer<String, String> coalescer = coalescer(this::upperCase, ONE_HOUR_MICROS, 2);
+
+        CompletableFuture<String> a = load(coalescer, "a");
+        CompletableFuture<String> b = load(coalescer, "b");
+
+        // La ventana es de una hora: solo el tamaño máximo puede haber enviado el lote.
+        assertEquals("A", await(a));
+        assertEquals("B", await(b));
+        assertEquals(List.of(List.of("a", "b")), batches);
+    }
+
+    @Test
+    void unaClaveRepetidaSeConsultaUnaVezYSeRepartePorSolicitante() throws Exception {
+        BatchCoalescer<String, String> coalescer = coalescer(this::upperCase, TimeUnit.MILLISECONDS.toMicros(50), 100);
+
+        CompletableFuture<String> first = load(coalescer, "a");
+        CompletableFuture<String> second = load(coalescer, "a");
+        CompletableFuture<String> other = load(coalescer, "b");
+
+        assertEquals("A", await(first));
+        assertEquals("A", await(second));
+        assertEquals("B", await(other));
+        assertEquals(List.of(List.of("a", "b")), batches);
+    }
+
+    @Test
+    void unaClaveAusenteEnLaRespuestaSeEmiteComoNull() throws Exception {
+        BatchCoalescer<String, String> coalescer = coalescer(
+                keys -> upperCase(keys.stream().filter(key -> !key.equals("missing")).toList()),
+                TimeUnit.MILLISECONDS.toMicros(50), 100);
+
+        CompletableFuture<String> found = load(coalescer, "a");
+        CompletableFuture<String> missing = load(coalescer, "missing");
+
+        assertEquals("A", await(found));
+        assertNull(await(missing));
+    }
+
+    @Test
+    void siElLoteFallaFallanTodosSusSolicitantes() {
+        IllegalStateException failure = new IllegalStateException("customer-service caído");
+        BatchCoalescer<String, String> coalescer = coalescer(
+                keys -> Uni.createFrom().failure(failure), TimeUnit.MILLISECONDS.toMicros(50), 100);
+
+        CompletableFuture<String> a = load(coalescer, "a");
+        CompletableFuture<String> b = load(coalescer, "b");
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> await(a)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> await(b)).getCause());
+    }
+
+    @Test
+    void conElSistemaOciosoLaConsultaSeEnviaDirectamente() throws Exception {
+        BatchCoalescer<String, String> coalescer = new BatchCoalescer<>("test", this::recordBatch,
+                key -> Uni.createFrom().item("direct-" + key), ONE_HOUR_MICROS, 100, new SimpleMeterRegistry());
+
+        assertEquals("direct-a", await(load(coalescer, "a")));
+        assertTrue(batches.isEmpty());
+    }
+
+    private BatchCoalescer<String, String> coalescer(Function<List<String>, Uni<Map<String, String>>> loader,
+                                                     long windowMicros, int maxBatchSize) {
+        return new BatchCoalescer<>("test", keys -> {
+            batches.add(List.copyOf(keys));
+            return loader.apply(keys);
+        }, null, windowMicros, maxBatchSize, new SimpleMeterRegistry());
+    }
+
+    private Uni<Map<String, String>> recordBatch(List<String> keys) {
+        batches.add(List.copyOf(keys));
+        return upperCase(keys);
+    }
+
+    private Uni<Map<String, String>> upperCase(List<String> keys) {
+        return Uni.createFrom().item(keys.stream().collect(Collectors.toMap(Function.identity(), String::toUpperCase)));
+    }
+
+    private static CompletableFuture<String> load(BatchCoalescer<String, String> coalescer, String key) {
+        return coalescer.load(key).subscribeAsCompletionStage();
+    }
+
+    private static String await(CompletableFuture<String> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,96 @@
+package com.bancario.account.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void siLaLlamadaOriginalTardaGanaLaCobertura() throws Exception {
+        RequestHedger hedger = hedger(1.0, Duration.ofMillis(20));
+        AtomicInteger invocations = new AtomicInteger();
+
+        String result = await(hedger.execute(() -> invocations.incrementAndGet() == 1
+                ? Uni.createFrom().<String>nothing()
+                : Uni.createFrom().item("cobertura")));
+
+        assertEquals("cobertura", result);
+        assertEquals(2, invocations.get());
+        assertEquals(1.0, count("hedge.fired"));
+        assertEquals(1.0, count("hedge.wins"));
+        assertEquals(1.0, count("hedge.calls"));
+    }
+
+    @Test
+    void unaRespuestaRapidaNoLanzaCobertura() throws Exception {
+        RequestHedger hedger = hedger(1.0, Duration.ofMillis(20));
+        AtomicInteger invocations = new AtomicInteger();
+
+        String result = await(hedger.execute(() -> {
+            invocations.incrementAndGet();
+            return Uni.createFrom().item("original");
+        }));
+        // Pasado el retardo, la cobertura ya cancelada no debe haberse lanzado.
+        Thread.sleep(100);
+
+        assertEquals("original", result);
+        assertEquals(1, invocations.get());
+        assertEquals(0.0, count("hedge.fired"));
+    }
+
+    @Test
+    void lasCoberturasNoSuperanLaFraccionDelPresupuesto() throws Exception {
+        // 0.1 créditos por llamada: la décima llamada reúne el primer crédito completo.
+        RequestHedger hedger = hedger(0.1, Duration.ofMillis(10));
+        AtomicInteger invocations = new AtomicInteger();
+
+        for (int i = 0; i < 11; i++) {
+            await(hedger.execute(() -> {
+                invocations.incrementAndGet();
+                return Uni.createFrom().item("lenta").onItem().delayIt().by(Duration.ofMillis(60));
+            }));
+        }
+
+        assertEquals(1.0, count("hedge.fired"));
+        assertEquals(12, invocations.get());
+        assertEquals(11.0, count("hedge.calls"));
+    }
+
+    @Test
+    void elRetardoSeRecalculaConLasLatenciasObservadasSinBajarDelMinimo() throws Exception {
+        RequestHedger hedger = new RequestHedger("test", 0.95, Duration.ofMillis(500), Duration.ofMillis(10),
+                0.1, 100, registry);
+        assertEquals(500.0, delayMillis());
+
+        for (int i = 0; i < 101; i++) {
+            await(hedger.execute(() -> Uni.createFrom().item("rapida")));
+        }
+
+        assertEquals(10.0, delayMillis());
+    }
+
+    private RequestHedger hedger(double maxHedgeRatio, Duration initialDelay) {
+        return new RequestHedger("test", 0.95, initialDelay, Duration.ofMillis(1), maxHedgeRatio, 100, registry);
+    }
+
+    private double count(String name) {
+        return registry.get(name).tag("name", "test").counter().count();
+    }
+
+    private double delayMillis() {
+        return registry.get("hedge.delay.ms").tag("name", "test").gauge().value();
+    }
+
+    private static String await(Uni<String> uni) throws Exception {
+        return uni.subscribeAsCompletionStage().get(5, TimeUnit.SECONDS);
+    }
+}